@@ -0,0 +1,79 @@
+/*******************************************************************************
+ * Copyright 2013-2018 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.apitools.builder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map.Entry;
+import java.util.Properties;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * Properties prepared for values generation: every value is split once into literal parts and generator so new
+ * value set is produced without parsing of the values.
+ */
+public class CompiledProperties {
+
+    private final List<Object> keys = new ArrayList<Object>();
+
+    private final List<Object> values = new ArrayList<Object>();
+
+    CompiledProperties(Properties in, GenerateProcessor processor) {
+        for (Entry<Object, Object> entry : in.entrySet()) {
+            keys.add(entry.getKey());
+            String value = entry.getValue().toString();
+            Generator generator = processor.compile(value);
+            values.add(generator != null ? generator : entry.getValue());
+        }
+    }
+
+    /**
+     * Generates new value set.
+     *
+     * @return Properties
+     */
+    public Properties generate() {
+        Properties out = new Properties();
+        for (int i = 0; i < keys.size(); i++) {
+            Object value = values.get(i);
+            out.put(keys.get(i), value instanceof Generator ? ((Generator) value).generate() : value);
+        }
+        return out;
+    }
+
+    /**
+     * Value with generated part, all occurrences of the placeholder get the same generated value.
+     */
+    static class Generator {
+        private final String[] literals;
+        private final Supplier<String> supplier;
+
+        Generator(String value, String placeholder, Supplier<String> supplier) {
+            this.literals = value.split(Pattern.quote(placeholder), -1);
+            this.supplier = supplier;
+        }
+
+        String generate() {
+            String generated = supplier.get();
+            StringBuilder sb = new StringBuilder(literals[0]);
+            for (int i = 1; i < literals.length; i++) {
+                sb.append(generated).append(literals[i]);
+            }
+            return sb.toString();
+        }
+    }
+}
@@ -16,61 +16,72 @@
 package com.qaprosoft.apitools.builder;
 
 import java.util.Calendar;
-import java.util.Map.Entry;
 import java.util.Properties;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import com.qaprosoft.apitools.builder.CompiledProperties.Generator;
 import com.qaprosoft.apitools.util.GenerationUtil;
 
 public class GenerateProcessor implements PropertiesProcessor {
 
+    private static final Pattern WORD = Pattern.compile(PropertiesKeywords.GENERATE_WORD_REGEX.getKey());
+    private static final Pattern NUMBER = Pattern.compile(PropertiesKeywords.GENERATE_NUMBER_REGEX.getKey());
+    private static final Pattern DATE = Pattern.compile(PropertiesKeywords.GENERATE_DATE_REGEX.getKey());
+    private static final Pattern LENGTH = Pattern.compile("\\d+");
+    private static final Pattern OFFSET = Pattern.compile("-{0,1}\\d+");
+    private static final Pattern FORMAT = Pattern.compile("(?<=generate_date\\().*(?=;)");
+
     @Override
     public Properties process(Properties in) {
-        Properties out = new Properties();
-        for (Entry<Object, Object> entry : in.entrySet()) {
-            Matcher wordMatcher = Pattern.compile(PropertiesKeywords.GENERATE_WORD_REGEX.getKey()).matcher(entry.getValue().toString());
-            Matcher numberMatcher = Pattern.compile(PropertiesKeywords.GENERATE_NUMBER_REGEX.getKey()).matcher(entry.getValue().toString());
-            Matcher dateMatcher = Pattern.compile(PropertiesKeywords.GENERATE_DATE_REGEX.getKey()).matcher(entry.getValue().toString());
-            {
-                if (wordMatcher.find()) {
-                    String toReplace = wordMatcher.group();
-                    Matcher tmpMatcher = Pattern.compile("\\d+").matcher(toReplace);
-                    tmpMatcher.find();
-                    String length = tmpMatcher.group();
-                    out.put(entry.getKey(), entry.getValue().toString().replace(toReplace, GenerationUtil.generateWord(Integer.parseInt(length))));
-                } else if (numberMatcher.find()) {
-                    String toReplace = numberMatcher.group();
-                    Matcher tmpMatcher = Pattern.compile("\\d+").matcher(toReplace);
-                    tmpMatcher.find();
-                    String length = tmpMatcher.group();
-                    out.put(entry.getKey(), entry.getValue().toString().replace(toReplace, GenerationUtil.generateNumber(Integer.parseInt(length))));
-                } else if (dateMatcher.find()) {
-                    String toReplace = dateMatcher.group();
-                    // getting offset
-                    Matcher offsetMatcher = Pattern.compile("-{0,1}\\d+").matcher(entry.getValue().toString());
-                    offsetMatcher.find();
-                    String offset = offsetMatcher.group();
-                    // getting format
-                    Matcher formatMatcher = Pattern.compile("(?<=generate_date\\().*(?=;)").matcher(entry.getValue().toString());
-                    formatMatcher.find();
-                    String format = formatMatcher.group();
-                    // generating date
-                    out.put(entry.getKey(), entry.getValue().toString().replace(toReplace,
-                            GenerationUtil.generateTime(format, Integer.parseInt(offset), Calendar.DAY_OF_YEAR)));
-                } else {
-                    out.put(entry.getKey(), entry.getValue());
-                }
-            }
+        return compile(in).generate();
+    }
+
+    /**
+     * Parses generate_* placeholders of all values.
+     *
+     * @param in Properties
+     * @return CompiledProperties
+     */
+    public CompiledProperties compile(Properties in) {
+        return new CompiledProperties(in, this);
+    }
+
+    /**
+     * Parses generate_* placeholder of the value.
+     *
+     * @param value String
+     * @return Generator or null if value has no placeholder
+     */
+    Generator compile(String value) {
+        Matcher wordMatcher = WORD.matcher(value);
+        if (wordMatcher.find()) {
+            String toReplace = wordMatcher.group();
+            int length = Integer.parseInt(find(LENGTH, toReplace));
+            return new Generator(value, toReplace, () -> GenerationUtil.generateWord(length));
         }
-        return out;
+        Matcher numberMatcher = NUMBER.matcher(value);
+        if (numberMatcher.find()) {
+            String toReplace = numberMatcher.group();
+            int length = Integer.parseInt(find(LENGTH, toReplace));
+            return new Generator(value, toReplace, () -> GenerationUtil.generateNumber(length));
+        }
+        Matcher dateMatcher = DATE.matcher(value);
+        if (dateMatcher.find()) {
+            String toReplace = dateMatcher.group();
+            // getting offset
+            int offset = Integer.parseInt(find(OFFSET, value));
+            // getting format
+            String format = find(FORMAT, value);
+            // generating date
+            return new Generator(value, toReplace, () -> GenerationUtil.generateTime(format, offset, Calendar.DAY_OF_YEAR));
+        }
+        return null;
+    }
+
+    private static String find(Pattern pattern, String value) {
+        Matcher matcher = pattern.matcher(value);
+        matcher.find();
+        return matcher.group();
     }
-    // public static void main(String[] args) {
-    // Properties p = new Properties();
-    // p.put("word", "generate_word(7)");
-    // p.put("date", "generate_date(yyyy-MM-dd;5)");
-    // p = new GenerateProcessor().process(p);
-    // System.out.println(p.getProperty("word"));
-    // System.out.println(p.getProperty("date"));
-    // }
 }
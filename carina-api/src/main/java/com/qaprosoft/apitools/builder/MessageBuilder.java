@@ -17,49 +17,123 @@ package com.qaprosoft.apitools.builder;
 
 import java.io.IOException;
 import java.io.StringWriter;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import freemarker.cache.ClassTemplateLoader;
 import freemarker.template.Configuration;
+import freemarker.template.ObjectWrapper;
+import freemarker.template.SimpleCollection;
 import freemarker.template.Template;
+import freemarker.template.TemplateCollectionModel;
 import freemarker.template.TemplateException;
+import freemarker.template.TemplateHashModelEx;
+import freemarker.template.TemplateModel;
+import freemarker.template.TemplateModelException;
 
+/**
+ * Renders request/response templates. Every template is parsed once and shared by all threads: parsed freemarker
+ * Template is immutable so templates are processed concurrently without locking.
+ */
 public class MessageBuilder {
 
     private static Configuration freemarkerConfiguration;
 
+    private static final ConcurrentMap<String, Template> templates = new ConcurrentHashMap<String, Template>();
+
     static {
         freemarkerConfiguration = new Configuration();
         freemarkerConfiguration.setTemplateLoader(new ClassTemplateLoader(MessageBuilder.class, "/"));
     }
 
-    public final static synchronized String buildStringMessage(String templatePath, Properties... propertiesArr) {
-        Template template;
-        try {
-            template = freemarkerConfiguration.getTemplate(templatePath);
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
+    public final static String buildStringMessage(String templatePath, Properties... propertiesArr) {
+        Template template = getTemplate(templatePath);
 
-        Properties resultProperties = new Properties();
-        for (Properties properties : propertiesArr) {
-            resultProperties.putAll(properties);
+        Map<?, ?> resultProperties;
+        if (propertiesArr.length == 1) {
+            // already merged properties (e.g. TemplateMessage storage) are used as is
+            resultProperties = propertiesArr[0];
+        } else {
+            Map<Object, Object> merged = new HashMap<Object, Object>();
+            for (Properties properties : propertiesArr) {
+                merged.putAll(properties);
+            }
+            resultProperties = merged;
         }
 
         StringWriter sw = new StringWriter();
         try {
-            template.process(resultProperties, sw);
+            template.process(new MapModel(resultProperties, template.getObjectWrapper()), sw);
         } catch (TemplateException e) {
             throw new RuntimeException(e);
         } catch (IOException e) {
             throw new RuntimeException(e);
-        } finally {
+        }
+        return sw.getBuffer().toString();
+    }
+
+    /**
+     * Returns parsed template from the cache, template is loaded from classpath on the first request.
+     *
+     * @param templatePath
+     *            - classpath of the template
+     * @return Template
+     */
+    public static Template getTemplate(String templatePath) {
+        Template template = templates.get(templatePath);
+        if (template == null) {
             try {
-                sw.close();
+                template = freemarkerConfiguration.getTemplate(templatePath);
             } catch (IOException e) {
                 throw new RuntimeException(e);
             }
+            Template existing = templates.putIfAbsent(templatePath, template);
+            if (existing != null) {
+                template = existing;
+            }
+        }
+        return template;
+    }
+
+    /**
+     * Read-only data model backed by the map. Unlike default wrapping the map isn't copied on every processing.
+     */
+    private static class MapModel implements TemplateHashModelEx {
+        private final Map<?, ?> map;
+        private final ObjectWrapper wrapper;
+
+        MapModel(Map<?, ?> map, ObjectWrapper wrapper) {
+            this.map = map;
+            this.wrapper = wrapper;
+        }
+
+        @Override
+        public TemplateModel get(String key) throws TemplateModelException {
+            Object value = map.get(key);
+            return value != null ? wrapper.wrap(value) : null;
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return map.isEmpty();
+        }
+
+        @Override
+        public int size() {
+            return map.size();
+        }
+
+        @Override
+        public TemplateCollectionModel keys() {
+            return new SimpleCollection(map.keySet(), wrapper);
+        }
+
+        @Override
+        public TemplateCollectionModel values() {
+            return new SimpleCollection(map.values(), wrapper);
         }
-        return sw.getBuffer().toString();
     }
 }
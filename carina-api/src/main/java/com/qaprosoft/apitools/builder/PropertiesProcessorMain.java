@@ -15,17 +15,29 @@
  *******************************************************************************/
 package com.qaprosoft.apitools.builder;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.log4j.Logger;
 
 public class PropertiesProcessorMain {
+    private static final Logger LOGGER = Logger.getLogger(PropertiesProcessorMain.class);
 
     private static List<PropertiesProcessor> processors;
 
+    private static GenerateProcessor generateProcessor = new GenerateProcessor();
+
+    private static final ConcurrentMap<String, CompiledProperties> compiledProperties = new ConcurrentHashMap<String, CompiledProperties>();
+
     static {
         processors = new ArrayList<PropertiesProcessor>();
-        processors.add(new GenerateProcessor());
+        processors.add(generateProcessor);
     }
 
     public static Properties processProperties(Properties in) {
@@ -36,4 +48,38 @@ public class PropertiesProcessorMain {
         return out;
     }
 
+    /**
+     * Generates values for properties file from classpath. File is read and parsed once, every call only generates
+     * new values.
+     *
+     * @param propertiesPath
+     *            - classpath of properties file
+     * @return Properties
+     */
+    public static Properties processProperties(String propertiesPath) {
+        CompiledProperties compiled = compiledProperties.get(propertiesPath);
+        if (compiled == null) {
+            compiled = generateProcessor.compile(loadProperties(propertiesPath));
+            CompiledProperties existing = compiledProperties.putIfAbsent(propertiesPath, compiled);
+            if (existing != null) {
+                compiled = existing;
+            }
+        }
+        return compiled.generate();
+    }
+
+    private static Properties loadProperties(String propertiesPath) {
+        URL baseResource = ClassLoader.getSystemResource(propertiesPath);
+        if (baseResource == null) {
+            throw new RuntimeException("Properties can't be found by path: " + propertiesPath);
+        }
+        Properties properties = new Properties();
+        try (InputStream is = baseResource.openStream()) {
+            properties.load(is);
+        } catch (IOException e) {
+            throw new RuntimeException("Properties can't be loaded by path: " + propertiesPath, e);
+        }
+        LOGGER.info("Base properties loaded: " + propertiesPath);
+        return properties;
+    }
 }
@@ -15,6 +15,16 @@
  *******************************************************************************/
 package com.qaprosoft.apitools.validation;
 
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
@@ -26,12 +36,36 @@ import org.skyscreamer.jsonassert.JSONCompareMode;
 import org.skyscreamer.jsonassert.JSONCompareResult;
 import org.skyscreamer.jsonassert.comparator.DefaultComparator;
 
+/**
+ * Comparator which supports JsonCompareKeywords in expected Json. Array items are compared regardless of their order.
+ *
+ * Arrays of objects are matched in two steps. Expected items without keywords are matched to actual ones by
+ * fingerprints (order independent hash of the content) when mode is not extensible, other items are compared with
+ * actual ones until free matching item is found, conflicts are resolved by augmenting paths (bipartite matching). So
+ * usual comparison of equal arrays takes linear time. Failure messages are built by item by item comparison with the
+ * most similar actual item.
+ *
+ * Comparator keeps compiled regular expressions and fingerprints of compared documents so new instance should be used
+ * for every comparison.
+ */
 public class JsonKeywordsComparator extends DefaultComparator {
 
+    private JSONCompareMode mode;
+
     private String validationFlags[];
 
+    private final Map<String, Pattern> patterns = new HashMap<String, Pattern>();
+
+    private final Map<Object, Boolean> exactItems = new IdentityHashMap<Object, Boolean>();
+
+    private final Map<Object, Long> fingerprints = new IdentityHashMap<Object, Long>();
+
+    // greater than 0 when only comparison status is needed so failure messages are not built
+    private int probes;
+
     public JsonKeywordsComparator(JSONCompareMode mode, String... validationFlags) {
         super(mode);
+        this.mode = mode;
         this.validationFlags = validationFlags;
     }
 
@@ -49,7 +83,7 @@ public class JsonKeywordsComparator extends DefaultComparator {
             if (actualValue instanceof Number || actualValue instanceof String) {
                 String actualStr = actualValue.toString();
                 String regex = expectedValue.toString().replace(JsonCompareKeywords.REGEX.getKey(), "");
-                Matcher m = Pattern.compile(regex).matcher(actualStr);
+                Matcher m = getPattern(regex).matcher(actualStr);
                 if (!m.find()) {
                     result.fail(String.format("%s\nActual value '%s' doesn't match to expected regex '%s'\n", prefix, actualStr, regex));
                 }
@@ -74,51 +108,25 @@ public class JsonKeywordsComparator extends DefaultComparator {
             }
         }
 
-        JSONArray actualTmp = new JSONArray();
-        for (int i1 = 0; i1 < actual.length(); i1++) {
-            actualTmp.put(actual.get(i1));
+        if (expected.length() == 0) {
+            return;
         }
-        for (int i = 0; i < expected.length(); ++i) {
-            boolean isEquals = false;
-            if (!JSONObject.class.equals(expected.get(i).getClass())) {
-                compareJSONArrayForSimpleTypeWContains(prefix, expected, actual, result);
-                break;
-            }
-            JSONObject expectedValue = (JSONObject) expected.get(i);
-
-            JSONObject actValueMostlySimilar = (JSONObject) actualTmp.get(0);
-            int actValueMostlySimilarIndex = 0;
-            int minErrorsCount = Integer.MAX_VALUE;
-
-            for (int j = 0; j < actualTmp.length(); ++j) {
-                JSONObject actualValue = (JSONObject) actualTmp.get(j);
-                JSONCompareResult tmpResult = new JSONCompareResult();
-                compareValues(prefix + "[" + i + "]", expectedValue, actualValue, tmpResult);
-                if (tmpResult.passed()) {
-                    isEquals = true;
-                    actValueMostlySimilarIndex = j;
-                    break;
-                }
-                if (tmpResult.getFieldFailures().size() < minErrorsCount) {
-                    minErrorsCount = tmpResult.getFieldFailures().size();
-                    actValueMostlySimilar = actualValue;
-                    actValueMostlySimilarIndex = j;
-                }
-            }
-            if (!isEquals) {
-                JSONCompareResult tmpResult = new JSONCompareResult();
-                super.compareJSON(prefix + "[" + i + "]", expectedValue, actValueMostlySimilar, tmpResult);
-                result.fail(tmpResult.getMessage());
+        if (!JSONObject.class.equals(expected.get(0).getClass())) {
+            compareJSONArrayForSimpleTypeWContains(prefix, expected, actual, result);
+            return;
+        }
+        ArrayComparison comparison = new ArrayComparison(prefix, expected, actual);
+        if (isArrayOfObjects(expected)) {
+            if (comparison.match()) {
+                return;
             }
-
-            JSONArray arrayAfterRemove = new JSONArray();
-            for (int i1 = 0; i1 < actualTmp.length(); i1++) {
-                if (i1 != actValueMostlySimilarIndex) {
-                    arrayAfterRemove.put(actualTmp.get(i1));
-                }
+            if (probes > 0) {
+                // matching item is not found for some expected item so differences are not collected
+                result.fail(String.format("%s[]\nArray items don't match\n", prefix));
+                return;
             }
-            actualTmp = arrayAfterRemove;
         }
+        comparison.compareItemByItem(result);
     }
 
     private void compareJSONArrayForSimpleTypeWContains(String prefix, JSONArray expected, JSONArray actual, JSONCompareResult result)
@@ -126,20 +134,295 @@ public class JsonKeywordsComparator extends DefaultComparator {
         if (expected.length() == 1 && JsonCompareKeywords.SKIP.getKey().equals(expected.get(0).toString())) {
             return;
         }
+        Set<Object> actualItems = new HashSet<Object>();
+        for (int j = 0; j < actual.length(); ++j) {
+            actualItems.add(actual.get(j));
+        }
         for (int i = 0; i < expected.length(); ++i) {
-            boolean isEquals = false;
+            if (!actualItems.contains(expected.get(i))) {
+                result.fail(String.format("%s\nExpected array item '" + expected.get(i) + "' is missed in actual array\n", prefix));
+            }
+        }
+    }
 
-            for (int j = 0; j < actual.length(); ++j) {
-                if (expected.get(i).equals(actual.get(j))) {
-                    isEquals = true;
-                    break;
+    private Pattern getPattern(String regex) {
+        Pattern pattern = patterns.get(regex);
+        if (pattern == null) {
+            pattern = Pattern.compile(regex);
+            patterns.put(regex, pattern);
+        }
+        return pattern;
+    }
+
+    private boolean hasArrayContainsFlag(String pathPrefix) {
+        if (validationFlags != null) {
+            for (String flag : validationFlags) {
+                if (flag != null && flag.startsWith(JsonCompareKeywords.ARRAY_CONTAINS.getKey() + pathPrefix)) {
+                    return true;
                 }
             }
+        }
+        return false;
+    }
 
-            if (!isEquals) {
-                result.fail(String.format("%s\nExpected array item '" + expected.get(i) + "' is missed in actual array\n", prefix));
+    private static boolean isArrayOfObjects(JSONArray array) throws JSONException {
+        for (int i = 0; i < array.length(); i++) {
+            if (!JSONObject.class.equals(array.get(i).getClass())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isKeyword(String value) {
+        return JsonCompareKeywords.SKIP.getKey().equals(value) || value.startsWith(JsonCompareKeywords.TYPE.getKey())
+                || value.startsWith(JsonCompareKeywords.REGEX.getKey());
+    }
+
+    /**
+     * Expected value is exact when it contains no keywords and arrays of simple values have no duplicates. In not
+     * extensible mode exact value matches actual one only when their fingerprints are equal.
+     */
+    private boolean isExact(Object value) throws JSONException {
+        if (value instanceof String) {
+            return !isKeyword((String) value);
+        }
+        if (value instanceof Number || value instanceof Boolean || JSONObject.NULL.equals(value)) {
+            return true;
+        }
+        if (!(value instanceof JSONObject) && !(value instanceof JSONArray)) {
+            return false;
+        }
+        Boolean exact = exactItems.get(value);
+        if (exact == null) {
+            exact = true;
+            if (value instanceof JSONObject) {
+                JSONObject object = (JSONObject) value;
+                Iterator<?> keys = object.keys();
+                while (exact && keys.hasNext()) {
+                    exact = isExact(object.get((String) keys.next()));
+                }
+            } else {
+                JSONArray array = (JSONArray) value;
+                if (array.length() > 0 && JSONObject.class.equals(array.get(0).getClass())) {
+                    for (int i = 0; exact && i < array.length(); i++) {
+                        exact = JSONObject.class.equals(array.get(i).getClass()) && isExact(array.get(i));
+                    }
+                } else {
+                    // simple values are compared by "contains" so only unique values are matched exactly
+                    Set<Object> items = new HashSet<Object>();
+                    for (int i = 0; exact && i < array.length(); i++) {
+                        Object item = array.get(i);
+                        exact = (item instanceof String || item instanceof Number || item instanceof Boolean || JSONObject.NULL.equals(item))
+                                && isExact(item) && items.add(item);
+                    }
+                }
             }
+            exactItems.put(value, exact);
         }
+        return exact;
     }
 
-}
\ No newline at end of file
+    /**
+     * Order independent hash of the value. Equal values have equal fingerprints, numbers are compared by double value
+     * except array items which are compared by equals.
+     */
+    private long getFingerprint(Object value, boolean arrayItem) throws JSONException {
+        if (value instanceof JSONObject || value instanceof JSONArray) {
+            Long fingerprint = fingerprints.get(value);
+            if (fingerprint == null) {
+                long hash;
+                if (value instanceof JSONObject) {
+                    JSONObject object = (JSONObject) value;
+                    hash = mix(object.length());
+                    Iterator<?> keys = object.keys();
+                    while (keys.hasNext()) {
+                        String key = (String) keys.next();
+                        hash += mix(31L * key.hashCode() + getFingerprint(object.get(key), false));
+                    }
+                } else {
+                    JSONArray array = (JSONArray) value;
+                    hash = mix(~(long) array.length());
+                    for (int i = 0; i < array.length(); i++) {
+                        hash += mix(getFingerprint(array.get(i), true));
+                    }
+                }
+                fingerprint = hash;
+                fingerprints.put(value, fingerprint);
+            }
+            return fingerprint;
+        }
+        if (value instanceof Number && !arrayItem) {
+            double number = ((Number) value).doubleValue();
+            return mix(Double.doubleToLongBits(number == 0 ? 0 : number));
+        }
+        return mix(31L * value.getClass().getName().hashCode() + value.hashCode());
+    }
+
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        hash *= 0xc4ceb3fe1a85ec53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    /**
+     * Comparison of array items regardless of their order.
+     */
+    private class ArrayComparison {
+        private final String prefix;
+        private final JSONArray expected;
+        private final JSONArray actual;
+        // actual items with the same fingerprint for exact expected items
+        private final List<List<Integer>> candidates;
+        private final Map<Long, Boolean> comparisons = new HashMap<Long, Boolean>();
+
+        ArrayComparison(String prefix, JSONArray expected, JSONArray actual) throws JSONException {
+            this.prefix = prefix;
+            this.expected = expected;
+            this.actual = actual;
+            this.candidates = new ArrayList<List<Integer>>(Collections.<List<Integer>> nCopies(expected.length(), null));
+            if (!mode.isExtensible() && !hasArrayContainsFlag(prefix + "[")) {
+                Map<Long, List<Integer>> actualItems = null;
+                for (int i = 0; i < expected.length(); i++) {
+                    if (JSONObject.class.equals(expected.get(i).getClass()) && isExact(expected.get(i))) {
+                        if (actualItems == null) {
+                            actualItems = new HashMap<Long, List<Integer>>();
+                            for (int j = 0; j < actual.length(); j++) {
+                                Long fingerprint = getFingerprint(actual.get(j), true);
+                                List<Integer> items = actualItems.get(fingerprint);
+                                if (items == null) {
+                                    items = new ArrayList<Integer>();
+                                    actualItems.put(fingerprint, items);
+                                }
+                                items.add(j);
+                            }
+                        }
+                        List<Integer> items = actualItems.get(getFingerprint(expected.get(i), true));
+                        candidates.set(i, items != null ? items : Collections.<Integer> emptyList());
+                    }
+                }
+            }
+        }
+
+        /**
+         * Finds matching actual item for every expected object, already matched items are reassigned by augmenting
+         * paths (Kuhn's algorithm) when it is needed.
+         *
+         * @return true if all expected items are matched
+         */
+        boolean match() throws JSONException {
+            if (expected.length() > actual.length()) {
+                return false;
+            }
+            int[] actualMatches = new int[actual.length()];
+            Arrays.fill(actualMatches, -1);
+            for (int i = 0; i < expected.length(); i++) {
+                if (!matchFree(i, actualMatches) && !augment(i, actualMatches, new boolean[actual.length()])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Every expected item is matched with the first equal remaining actual item or differences with the most
+         * similar remaining item are reported.
+         */
+        void compareItemByItem(JSONCompareResult result) throws JSONException {
+            boolean[] used = new boolean[actual.length()];
+            int remaining = actual.length();
+            for (int i = 0; i < expected.length(); ++i) {
+                if (!JSONObject.class.equals(expected.get(i).getClass())) {
+                    compareJSONArrayForSimpleTypeWContains(prefix, expected, actual, result);
+                    break;
+                }
+                if (remaining == 0) {
+                    throw new JSONException("JSONArray[0] not found.");
+                }
+                int index = findEqual(i, used);
+                if (index < 0) {
+                    int minErrorsCount = Integer.MAX_VALUE;
+                    for (int j = 0; j < actual.length(); ++j) {
+                        if (!used[j]) {
+                            JSONCompareResult tmpResult = compare(i, j);
+                            if (tmpResult.getFieldFailures().size() < minErrorsCount) {
+                                minErrorsCount = tmpResult.getFieldFailures().size();
+                                index = j;
+                            }
+                        }
+                    }
+                    JSONCompareResult tmpResult = new JSONCompareResult();
+                    compareJSON(prefix + "[" + i + "]", (JSONObject) expected.get(i), (JSONObject) actual.get(index), tmpResult);
+                    result.fail(tmpResult.getMessage());
+                }
+                used[index] = true;
+                remaining--;
+            }
+        }
+
+        private int findEqual(int i, boolean[] used) throws JSONException {
+            List<Integer> items = candidates.get(i);
+            int count = items != null ? items.size() : actual.length();
+            for (int k = 0; k < count; k++) {
+                int j = items != null ? items.get(k) : k;
+                if (!used[j] && isEqual(i, j)) {
+                    return j;
+                }
+            }
+            return -1;
+        }
+
+        private boolean matchFree(int i, int[] actualMatches) throws JSONException {
+            List<Integer> items = candidates.get(i);
+            int count = items != null ? items.size() : actual.length();
+            for (int k = 0; k < count; k++) {
+                int j = items != null ? items.get(k) : k;
+                if (actualMatches[j] < 0 && isEqual(i, j)) {
+                    actualMatches[j] = i;
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private boolean augment(int i, int[] actualMatches, boolean[] visited) throws JSONException {
+            List<Integer> items = candidates.get(i);
+            int count = items != null ? items.size() : actual.length();
+            for (int k = 0; k < count; k++) {
+                int j = items != null ? items.get(k) : k;
+                if (!visited[j] && isEqual(i, j)) {
+                    visited[j] = true;
+                    if (actualMatches[j] < 0 || augment(actualMatches[j], actualMatches, visited)) {
+                        actualMatches[j] = i;
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        private boolean isEqual(int i, int j) throws JSONException {
+            Long key = (long) i * actual.length() + j;
+            Boolean equal = comparisons.get(key);
+            if (equal == null) {
+                equal = compare(i, j).passed();
+                comparisons.put(key, equal);
+            }
+            return equal;
+        }
+
+        private JSONCompareResult compare(int i, int j) throws JSONException {
+            JSONCompareResult tmpResult = new JSONCompareResult();
+            probes++;
+            try {
+                compareValues(prefix + "[" + i + "]", expected.get(i), actual.get(j), tmpResult);
+            } finally {
+                probes--;
+            }
+            return tmpResult;
+        }
+    }
+}
@@ -0,0 +1,108 @@
+/*******************************************************************************
+ * Copyright 2013-2018 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.apitools.validation;
+
+import java.io.IOException;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.apache.log4j.Logger;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.github.fge.jackson.JsonLoader;
+import com.github.fge.jsonschema.core.exceptions.ProcessingException;
+import com.github.fge.jsonschema.main.JsonSchema;
+import com.github.fge.jsonschema.main.JsonSchemaFactory;
+import com.qaprosoft.apitools.builder.MessageBuilder;
+
+/**
+ * Registry of compiled Json schemas. Every schema resource is read and compiled once and shared by all threads as
+ * JsonSchema is immutable and thread-safe. All schemas are compiled by one factory so referenced ($ref) schemas are
+ * also loaded once. Schema without "id" gets id of its classpath resource ("resource:/path") so its relative references
+ * are resolved against the schema location.
+ */
+public class JsonSchemaRegistry {
+    private final static Logger LOGGER = Logger.getLogger(JsonSchemaRegistry.class);
+
+    private static final String RESOURCE_SCHEME = "resource:/";
+    private static final String ID = "id";
+
+    private static final JsonSchemaFactory factory = JsonSchemaFactory.byDefault();
+
+    private static final ConcurrentMap<String, JsonSchema> schemas = new ConcurrentHashMap<String, JsonSchema>();
+
+    private JsonSchemaRegistry() {
+    }
+
+    /**
+     * Returns compiled schema, schema is loaded on the first request.
+     *
+     * @param schemaPath
+     *            - classpath of the schema template
+     * @return JsonSchema
+     */
+    public static JsonSchema getSchema(String schemaPath) {
+        JsonSchema schema = schemas.get(schemaPath);
+        if (schema == null) {
+            schema = load(schemaPath);
+            JsonSchema existing = schemas.putIfAbsent(schemaPath, schema);
+            if (existing != null) {
+                schema = existing;
+            }
+        }
+        return schema;
+    }
+
+    /**
+     * Compiles schema without caching.
+     *
+     * @param schemaNode
+     *            - Json schema
+     * @return JsonSchema
+     */
+    public static JsonSchema compile(JsonNode schemaNode) {
+        try {
+            return factory.getJsonSchema(schemaNode);
+        } catch (ProcessingException e) {
+            throw new RuntimeException("Can't process shema", e);
+        }
+    }
+
+    /**
+     * Removes all compiled schemas, e.g. when schema resources are changed at runtime.
+     */
+    public static void clear() {
+        schemas.clear();
+    }
+
+    private static JsonSchema load(String schemaPath) {
+        LOGGER.debug("Compiling Json schema: " + schemaPath);
+        // schema is a template like other messages although it is rendered without properties
+        String schemaText = MessageBuilder.buildStringMessage(schemaPath, new Properties());
+        JsonNode schemaNode;
+        try {
+            schemaNode = JsonLoader.fromString(schemaText);
+        } catch (IOException e) {
+            throw new RuntimeException("Can't read schema from " + schemaPath + ": " + e.getMessage(), e);
+        }
+        if (schemaNode.isObject() && !schemaNode.has(ID)) {
+            ((ObjectNode) schemaNode).put(ID, RESOURCE_SCHEME + schemaPath.replaceFirst("^/", ""));
+        }
+        return compile(schemaNode);
+    }
+}
@@ -0,0 +1,483 @@
+/*******************************************************************************
+ * Copyright 2013-2018 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.apitools.validation;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.skyscreamer.jsonassert.JSONCompareMode;
+import org.skyscreamer.jsonassert.JSONCompareResult;
+import org.skyscreamer.jsonassert.JSONParser;
+import org.skyscreamer.jsonassert.comparator.JSONCompareUtil;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Validates actual Json read by streaming parser against expected Json with JsonCompareKeywords so actual document is
+ * parsed once and is not kept in memory. Comparison rules are the same as in {@link JsonKeywordsComparator}: objects
+ * are compared according to the mode, array items are compared regardless of their order.
+ *
+ * Only one item of actual array is materialized at a time. Arrays of objects are matched by bipartite matching of
+ * expected items to actual ones using flags of equal pairs (one bit per expected item for every actual item): equal
+ * free items are matched first and remaining expected items are matched by augmenting paths searched without
+ * recursion, so array size is not limited by the stack. As actual items are not kept, expected item without a match is
+ * reported without differences with the most similar actual one.
+ *
+ * Validator keeps compiled regular expressions so new instance should be used for every comparison.
+ */
+public class JsonStreamValidator {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    private static final JsonFactory FACTORY = MAPPER.getFactory();
+
+    // thrown on the first difference when only comparison status is needed
+    private static final RuntimeException MISMATCH = new RuntimeException("Json values don't match", null, false, false) {
+        private static final long serialVersionUID = 1L;
+    };
+
+    private final JSONCompareMode mode;
+
+    private final String[] validationFlags;
+
+    private final Map<String, Pattern> patterns = new HashMap<String, Pattern>();
+
+    private int probes;
+
+    public JsonStreamValidator(JSONCompareMode mode, String... validationFlags) {
+        this.mode = mode;
+        this.validationFlags = validationFlags;
+    }
+
+    /**
+     * Validates actual Json stream against expected Json.
+     *
+     * @param expectedJson
+     *            - expected Json with JsonCompareKeywords
+     * @param actualJson
+     *            - actual Json, stream is read till the end of the root value but not closed
+     * @throws AssertionError
+     *             with description of all differences
+     */
+    public void validate(String expectedJson, InputStream actualJson) {
+        JsonParser parser;
+        try {
+            parser = FACTORY.createParser(actualJson);
+        } catch (IOException e) {
+            throw new RuntimeException("Can't read actual json: " + e.getMessage(), e);
+        }
+        validate(expectedJson, parser);
+    }
+
+    /**
+     * Validates already parsed actual Json (e.g. after validation against Json schema) against expected Json.
+     *
+     * @param expectedJson
+     *            - expected Json with JsonCompareKeywords
+     * @param actualJson
+     *            - actual Json
+     * @throws AssertionError
+     *             with description of all differences
+     */
+    public void validate(String expectedJson, JsonNode actualJson) {
+        validate(expectedJson, actualJson.traverse());
+    }
+
+    /**
+     * Validates actual Json tokens against expected Json.
+     *
+     * @param expectedJson
+     *            - expected Json with JsonCompareKeywords
+     * @param actual
+     *            - parser of actual Json
+     * @throws AssertionError
+     *             with description of all differences
+     */
+    public void validate(String expectedJson, JsonParser actual) {
+        // expected Json is small and is parsed as usual, e.g. unquoted keywords are allowed
+        Object expected;
+        try {
+            expected = JSONParser.parseJSON(expectedJson);
+        } catch (JSONException e) {
+            throw new RuntimeException("Can't read expected json: " + e.getMessage(), e);
+        }
+        JSONCompareResult result = new JSONCompareResult();
+        try {
+            if (actual.nextToken() == null) {
+                throw new RuntimeException("Actual json is empty");
+            }
+            compareValues("", expected, actual, result);
+        } catch (IOException e) {
+            throw new RuntimeException("Can't read actual json: " + e.getMessage(), e);
+        }
+        if (result.failed()) {
+            throw new AssertionError(result.getMessage());
+        }
+    }
+
+    /**
+     * Compares expected value with actual one starting at the current token of the parser. Parser is left on the last
+     * token of actual value.
+     */
+    private void compareValues(String prefix, Object expected, JsonParser actual, JSONCompareResult result) throws IOException {
+        JsonToken token = actual.getCurrentToken();
+        if (expected instanceof String) {
+            String expectedValue = (String) expected;
+            if (JsonCompareKeywords.SKIP.getKey().equals(expectedValue)) {
+                actual.skipChildren();
+                return;
+            }
+            if (expectedValue.startsWith(JsonCompareKeywords.TYPE.getKey())) {
+                String expType = expectedValue.replace(JsonCompareKeywords.TYPE.getKey(), "");
+                String actualType = getTypeName(actual);
+                actual.skipChildren();
+                if (!expType.equals(actualType)) {
+                    failFormatted(result, "%s\nValue type '%s' doesn't match to expected type '%s'\n", prefix, actualType, expType);
+                }
+                return;
+            }
+            if (expectedValue.startsWith(JsonCompareKeywords.REGEX.getKey()) && (token == JsonToken.VALUE_STRING || token.isNumeric())) {
+                String actualStr = actual.getText();
+                String regex = expectedValue.replace(JsonCompareKeywords.REGEX.getKey(), "");
+                if (!getPattern(regex).matcher(actualStr).find()) {
+                    failFormatted(result, "%s\nActual value '%s' doesn't match to expected regex '%s'\n", prefix, actualStr, regex);
+                }
+                return;
+            }
+        }
+
+        if (token == JsonToken.START_OBJECT && expected instanceof JSONObject) {
+            compareJSON(prefix, (JSONObject) expected, actual, result);
+        } else if (token == JsonToken.START_ARRAY && expected instanceof JSONArray) {
+            compareJSONArray(prefix, (JSONArray) expected, actual, result);
+        } else {
+            Object actualValue = toValue(actual);
+            actual.skipChildren();
+            if (expected instanceof Number && actualValue instanceof Number) {
+                if (((Number) expected).doubleValue() != ((Number) actualValue).doubleValue()) {
+                    fail(result, prefix, expected, actualValue);
+                }
+            } else if (!expected.equals(actualValue)) {
+                fail(result, prefix, expected, actualValue);
+            }
+        }
+    }
+
+    private void compareJSON(String prefix, JSONObject expected, JsonParser actual, JSONCompareResult result) throws IOException {
+        Set<String> found = new HashSet<String>();
+        while (actual.nextToken() == JsonToken.FIELD_NAME) {
+            String key = actual.getCurrentName();
+            actual.nextToken();
+            Object expectedValue = expected.opt(key);
+            if (expectedValue != null) {
+                found.add(key);
+                compareValues(JSONCompareUtil.qualify(prefix, key), expectedValue, actual, result);
+            } else {
+                if (!mode.isExtensible()) {
+                    unexpected(result, prefix, key);
+                }
+                actual.skipChildren();
+            }
+        }
+        if (found.size() < expected.length()) {
+            Iterator<?> keys = expected.keys();
+            while (keys.hasNext()) {
+                String key = (String) keys.next();
+                if (!found.contains(key)) {
+                    missing(result, prefix, key);
+                }
+            }
+        }
+    }
+
+    private void compareJSONArray(String prefix, JSONArray expected, JsonParser actual, JSONCompareResult result) throws IOException {
+        boolean checkLength = !(validationFlags != null && validationFlags.length > 0
+                && Arrays.asList(validationFlags).contains(JsonCompareKeywords.ARRAY_CONTAINS.getKey() + prefix));
+        // differences of items are reported only if lengths of arrays are equal
+        JSONCompareResult itemsResult = checkLength ? new JSONCompareResult() : result;
+        int length;
+        if (expected.length() == 0) {
+            length = skipItems(actual);
+        } else if (!(expected.opt(0) instanceof JSONObject)) {
+            length = compareArrayForSimpleTypeWContains(prefix, expected, actual, itemsResult);
+        } else {
+            length = new ArrayMatching(prefix, expected).match(actual, itemsResult);
+        }
+
+        if (checkLength && expected.length() != length) {
+            fail(result, String.format("%s[]\nArrays length differs. Expected length=%d but actual length=%d\n", prefix, expected.length(), length));
+        } else if (itemsResult != result && itemsResult.failed()) {
+            fail(result, itemsResult.getMessage());
+        }
+    }
+
+    private int compareArrayForSimpleTypeWContains(String prefix, JSONArray expected, JsonParser actual, JSONCompareResult result)
+            throws IOException {
+        if (expected.length() == 1 && JsonCompareKeywords.SKIP.getKey().equals(expected.opt(0).toString())) {
+            return skipItems(actual);
+        }
+        Set<Object> missed = new HashSet<Object>();
+        for (int i = 0; i < expected.length(); i++) {
+            missed.add(expected.opt(i));
+        }
+        int length = 0;
+        while (actual.nextToken() != JsonToken.END_ARRAY) {
+            if (!missed.isEmpty()) {
+                missed.remove(toValue(actual));
+            }
+            actual.skipChildren();
+            length++;
+        }
+        for (int i = 0; i < expected.length(); i++) {
+            if (missed.contains(expected.opt(i))) {
+                fail(result, String.format("%s\nExpected array item '" + expected.opt(i) + "' is missed in actual array\n", prefix));
+            }
+        }
+        return length;
+    }
+
+    private static int skipItems(JsonParser actual) throws IOException {
+        int length = 0;
+        while (actual.nextToken() != JsonToken.END_ARRAY) {
+            actual.skipChildren();
+            length++;
+        }
+        return length;
+    }
+
+    private void fail(JSONCompareResult result, String message) {
+        if (probes > 0) {
+            throw MISMATCH;
+        }
+        result.fail(message);
+    }
+
+    /**
+     * Message is formatted only when it is reported, so probes of array items don't pay for it.
+     */
+    private void failFormatted(JSONCompareResult result, String format, Object... args) {
+        if (probes > 0) {
+            throw MISMATCH;
+        }
+        result.fail(String.format(format, args));
+    }
+
+    private void fail(JSONCompareResult result, String field, Object expected, Object actual) {
+        if (probes > 0) {
+            throw MISMATCH;
+        }
+        result.fail(field, expected, actual);
+    }
+
+    private void missing(JSONCompareResult result, String prefix, String key) {
+        if (probes > 0) {
+            throw MISMATCH;
+        }
+        result.missing(prefix, key);
+    }
+
+    private void unexpected(JSONCompareResult result, String prefix, String key) {
+        if (probes > 0) {
+            throw MISMATCH;
+        }
+        result.unexpected(prefix, key);
+    }
+
+    private Pattern getPattern(String regex) {
+        Pattern pattern = patterns.get(regex);
+        if (pattern == null) {
+            pattern = Pattern.compile(regex);
+            patterns.put(regex, pattern);
+        }
+        return pattern;
+    }
+
+    /**
+     * Simple values are converted to the same types as org.json uses so they are compared like by
+     * {@link JsonKeywordsComparator}, objects and arrays are described by their type.
+     */
+    private static Object toValue(JsonParser parser) throws IOException {
+        switch (parser.getCurrentToken()) {
+        case VALUE_STRING:
+            return parser.getText();
+        case VALUE_NUMBER_INT:
+            return parser.getNumberValue();
+        case VALUE_NUMBER_FLOAT:
+            return parser.getDoubleValue();
+        case VALUE_TRUE:
+            return Boolean.TRUE;
+        case VALUE_FALSE:
+            return Boolean.FALSE;
+        case VALUE_NULL:
+            return JSONObject.NULL;
+        case START_OBJECT:
+            return "a JSON object";
+        default:
+            return "a JSON array";
+        }
+    }
+
+    /**
+     * Type name of actual value in terms of org.json classes used by "type:" keyword.
+     */
+    private static String getTypeName(JsonParser parser) throws IOException {
+        switch (parser.getCurrentToken()) {
+        case START_OBJECT:
+            return "JSONObject";
+        case START_ARRAY:
+            return "JSONArray";
+        case VALUE_NULL:
+            return "Null";
+        default:
+            return toValue(parser).getClass().getSimpleName();
+        }
+    }
+
+    /**
+     * Matching of streamed actual array items to expected objects regardless of their order.
+     */
+    private class ArrayMatching {
+        private final String prefix;
+        private final JSONArray expected;
+        private final int words;
+        // bit i of the item j is set when expected item i is equal to actual item j
+        private long[] equalItems = new long[64];
+
+        ArrayMatching(String prefix, JSONArray expected) {
+            this.prefix = prefix;
+            this.expected = expected;
+            this.words = (expected.length() + 63) / 64;
+        }
+
+        /**
+         * Reads actual items and reports expected items without a match.
+         *
+         * @return length of actual array
+         */
+        int match(JsonParser actual, JSONCompareResult result) throws IOException {
+            int length = 0;
+            while (actual.nextToken() != JsonToken.END_ARRAY) {
+                JsonNode item = MAPPER.readTree(actual);
+                if ((length + 1) * words > equalItems.length) {
+                    equalItems = Arrays.copyOf(equalItems, Math.max(equalItems.length * 2, (length + 1) * words));
+                }
+                for (int i = 0; i < expected.length(); i++) {
+                    if (isEqual(i, item)) {
+                        equalItems[length * words + i / 64] |= 1L << (i % 64);
+                    }
+                }
+                length++;
+            }
+
+            int[] actualMatches = new int[length];
+            Arrays.fill(actualMatches, -1);
+            boolean[] matched = new boolean[expected.length()];
+            // equal free items are matched without search, usually it leaves nothing to augment
+            for (int i = 0; i < expected.length(); i++) {
+                for (int j = 0; j < length && !matched[i]; j++) {
+                    if (actualMatches[j] < 0 && isEqual(i, j)) {
+                        actualMatches[j] = i;
+                        matched[i] = true;
+                    }
+                }
+            }
+            List<Integer> missed = new ArrayList<Integer>();
+            for (int i = 0; i < expected.length(); i++) {
+                if (!matched[i] && !augment(i, actualMatches)) {
+                    missed.add(i);
+                }
+            }
+            for (int i : missed) {
+                fail(result, String.format("%s[%d]\nExpected array item '%s' is missed in actual array\n", prefix, i, expected.opt(i)));
+            }
+            return length;
+        }
+
+        private boolean isEqual(int i, JsonNode item) throws IOException {
+            JsonParser parser = item.traverse();
+            parser.nextToken();
+            probes++;
+            try {
+                compareValues(prefix + "[" + i + "]", expected.opt(i), parser, new JSONCompareResult());
+                return true;
+            } catch (RuntimeException e) {
+                if (e != MISMATCH) {
+                    throw e;
+                }
+                return false;
+            } finally {
+                probes--;
+            }
+        }
+
+        private boolean isEqual(int i, int j) {
+            return (equalItems[j * words + i / 64] & (1L << (i % 64))) != 0;
+        }
+
+        /**
+         * Kuhn's augmenting path from expected item i, depth-first search uses explicit stack as path can be as long as
+         * the array.
+         */
+        private boolean augment(int i, int[] actualMatches) {
+            boolean[] visited = new boolean[actualMatches.length];
+            // expected items of the path, actual items they are moved to and next actual items to try
+            int[] items = new int[expected.length()];
+            int[] moves = new int[expected.length()];
+            int[] next = new int[expected.length()];
+            int depth = 0;
+            items[0] = i;
+            while (depth >= 0) {
+                int j = next[depth];
+                while (j < actualMatches.length && (visited[j] || !isEqual(items[depth], j))) {
+                    j++;
+                }
+                if (j == actualMatches.length) {
+                    depth--;
+                    continue;
+                }
+                visited[j] = true;
+                moves[depth] = j;
+                next[depth] = j + 1;
+                if (actualMatches[j] < 0) {
+                    for (int d = depth; d >= 0; d--) {
+                        actualMatches[moves[d]] = items[d];
+                    }
+                    return true;
+                }
+                depth++;
+                items[depth] = actualMatches[j];
+                next[depth] = 0;
+            }
+            return false;
+        }
+    }
+}
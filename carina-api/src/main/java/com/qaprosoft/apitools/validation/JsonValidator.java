@@ -16,6 +16,7 @@
 package com.qaprosoft.apitools.validation;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.Iterator;
 
 import org.apache.log4j.Logger;
@@ -29,7 +30,6 @@ import com.github.fge.jsonschema.core.exceptions.ProcessingException;
 import com.github.fge.jsonschema.core.report.ProcessingMessage;
 import com.github.fge.jsonschema.core.report.ProcessingReport;
 import com.github.fge.jsonschema.main.JsonSchema;
-import com.github.fge.jsonschema.main.JsonSchemaFactory;
 
 public class JsonValidator {
     private final static Logger LOGGER = Logger.getLogger(JsonValidator.class);
@@ -42,29 +42,50 @@ public class JsonValidator {
         }
     }
 
+    /**
+     * Validates Json stream without reading it into String, see {@link JsonStreamValidator}
+     *
+     * @param expectedJson
+     *            - expected Json with JsonCompareKeywords
+     * @param actualJson
+     *            - actual Json stream
+     * @param jsonCompareMode
+     *            - determines how to compare Json objects
+     */
+    public static void validateJson(String expectedJson, InputStream actualJson, JSONCompareMode jsonCompareMode) {
+        new JsonStreamValidator(jsonCompareMode).validate(expectedJson, actualJson);
+    }
+
     public static void validateJsonAgainstSchema(String jsonSchema, String jsonData) {
         // create the Json nodes for schema and data
         JsonNode schemaNode;
-        JsonNode data;
         try {
             schemaNode = JsonLoader.fromString(jsonSchema);
         } catch (IOException e) {
             throw new RuntimeException("Can't read schema from String: " + e.getMessage(), e);
         }
+        validateJsonAgainstSchema(JsonSchemaRegistry.compile(schemaNode), jsonData);
+    }
+
+    /**
+     * Validates Json against compiled schema, see {@link JsonSchemaRegistry#getSchema(String)}
+     *
+     * @param schema
+     *            - compiled Json schema
+     * @param jsonData
+     *            - Json to validate
+     */
+    public static void validateJsonAgainstSchema(JsonSchema schema, String jsonData) {
+        JsonNode data;
         try {
             data = JsonLoader.fromString(jsonData);
         } catch (IOException e) {
             throw new RuntimeException("Can't read json from String: " + e.getMessage(), e);
         }
+        validateJsonAgainstSchema(schema, data);
+    }
 
-        JsonSchemaFactory factory = JsonSchemaFactory.byDefault();
-        // load the schema and validate
-        JsonSchema schema;
-        try {
-            schema = factory.getJsonSchema(schemaNode);
-        } catch (ProcessingException e) {
-            throw new RuntimeException("Can't process shema", e);
-        }
+    public static void validateJsonAgainstSchema(JsonSchema schema, JsonNode data) {
         ProcessingReport report;
         try {
             report = schema.validate(data, true);
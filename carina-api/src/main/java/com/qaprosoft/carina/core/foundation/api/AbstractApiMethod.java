@@ -17,6 +17,7 @@ package com.qaprosoft.carina.core.foundation.api;
 
 import static com.jayway.restassured.RestAssured.given;
 
+import java.io.OutputStream;
 import java.io.PrintStream;
 import java.security.KeyManagementException;
 import java.security.NoSuchAlgorithmException;
@@ -44,6 +45,7 @@ import com.jayway.restassured.specification.RequestSpecification;
 import com.qaprosoft.carina.core.foundation.api.http.HttpClient;
 import com.qaprosoft.carina.core.foundation.api.http.HttpMethodType;
 import com.qaprosoft.carina.core.foundation.api.http.HttpResponseStatusType;
+import com.qaprosoft.carina.core.foundation.api.http.PooledHttpClientFactory;
 import com.qaprosoft.carina.core.foundation.api.log.LoggingOutputStream;
 import com.qaprosoft.carina.core.foundation.api.ssl.NullHostnameVerifier;
 import com.qaprosoft.carina.core.foundation.api.ssl.NullX509TrustManager;
@@ -62,11 +64,13 @@ public abstract class AbstractApiMethod extends HttpClient {
     public RequestSpecification request;
     private boolean logRequest = Configuration.getBoolean(Parameter.LOG_ALL_JSON);
     private boolean logResponse = Configuration.getBoolean(Parameter.LOG_ALL_JSON);
+    private OutputStream logOutput;
 
     public AbstractApiMethod() {
         init(getClass());
         bodyContent = new StringBuilder();
         request = given();
+        request.config(PooledHttpClientFactory.configure());
         request.contentType(ContentType.TEXT);
     }
 
@@ -74,6 +78,7 @@ public abstract class AbstractApiMethod extends HttpClient {
         init(getClass());
         bodyContent = new StringBuilder();
         request = given();
+        request.config(PooledHttpClientFactory.configure());
         request.contentType(contentType);
     }
 
@@ -183,7 +188,7 @@ public abstract class AbstractApiMethod extends HttpClient {
 
         PrintStream ps = null;
         if (logRequest || logResponse) {
-            ps = new PrintStream(new LoggingOutputStream(LOGGER, Level.INFO));
+            ps = new PrintStream(logOutput != null ? logOutput : new LoggingOutputStream(LOGGER, Level.INFO));
         }
 
         if (logRequest)
@@ -193,6 +198,10 @@ public abstract class AbstractApiMethod extends HttpClient {
             request.filter(new ResponseLoggingFilter(ps));
         try {
             rs = HttpClient.send(request, methodPath, methodType);
+        } catch (RuntimeException | AssertionError e) {
+            // response is not available for the caller when expectations fail
+            PooledHttpClientFactory.releaseConnection();
+            throw e;
         } finally {
             if (ps != null)
                 ps.close();
@@ -244,6 +253,16 @@ public abstract class AbstractApiMethod extends HttpClient {
         this.logResponse = logResponse;
     }
 
+    /**
+     * Redirects request/response log of the next calls to the stream, e.g. to keep it with the call result.
+     * 
+     * @param logOutput
+     *            stream or null to write log to the logger
+     */
+    public void setLogOutput(OutputStream logOutput) {
+        this.logOutput = logOutput;
+    }
+
     public void ignoreSSLCerts() {
         SSLContext sslContext = null;
         try {
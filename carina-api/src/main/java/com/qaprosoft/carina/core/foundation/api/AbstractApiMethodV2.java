@@ -15,18 +15,26 @@
  *******************************************************************************/
 package com.qaprosoft.carina.core.foundation.api;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.net.URL;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
 import java.util.Properties;
 
 import org.json.JSONException;
 import org.skyscreamer.jsonassert.JSONAssert;
 import org.skyscreamer.jsonassert.JSONCompareMode;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.github.fge.jackson.JsonLoader;
 import com.jayway.restassured.response.Response;
 import com.qaprosoft.apitools.builder.PropertiesProcessorMain;
 import com.qaprosoft.apitools.message.TemplateMessage;
 import com.qaprosoft.apitools.validation.JsonKeywordsComparator;
+import com.qaprosoft.apitools.validation.JsonSchemaRegistry;
+import com.qaprosoft.apitools.validation.JsonStreamValidator;
 import com.qaprosoft.apitools.validation.JsonValidator;
 
 public abstract class AbstractApiMethodV2 extends AbstractApiMethod {
@@ -34,24 +42,13 @@ public abstract class AbstractApiMethodV2 extends AbstractApiMethod {
     private String rqPath;
     private String rsPath;
     private String actualRsBody;
+    private Response actualRs;
 
     public AbstractApiMethodV2(String rqPath, String rsPath, String propertiesPath) {
         super("application/json");
         setHeaders("Accept=*/*");
 
-        URL baseResource = ClassLoader.getSystemResource(propertiesPath);
-        if (baseResource != null) {
-            properties = new Properties();
-            try {
-                properties.load(baseResource.openStream());
-            } catch (IOException e) {
-                throw new RuntimeException("Properties can't be loaded by path: " + propertiesPath, e);
-            }
-            LOGGER.info("Base properties loaded: " + propertiesPath);
-        } else {
-            throw new RuntimeException("Properties can't be found by path: " + propertiesPath);
-        }
-        properties = PropertiesProcessorMain.processProperties(properties);
+        properties = PropertiesProcessorMain.processProperties(propertiesPath);
         this.rqPath = rqPath;
         this.rsPath = rsPath;
     }
@@ -81,6 +78,7 @@ public abstract class AbstractApiMethodV2 extends AbstractApiMethod {
         }
         String rs = super.call();
         actualRsBody = rs;
+        actualRs = null;
         return rs;
     }
 
@@ -93,7 +91,9 @@ public abstract class AbstractApiMethodV2 extends AbstractApiMethod {
             setBodyContent(tm.getMessageText());
         }
         Response rs = super.callAPI();
-        actualRsBody = rs.asString();
+        // body is read on demand so it is not copied into String by streaming validation
+        actualRsBody = null;
+        actualRs = rs;
         return rs;
     }
 
@@ -126,21 +126,9 @@ public abstract class AbstractApiMethodV2 extends AbstractApiMethod {
      *            Use JsonCompareKeywords.ARRAY_CONTAINS.getKey() construction for that
      */
     public void validateResponse(JSONCompareMode mode, String... validationFlags) {
-        if (rsPath == null) {
-            throw new RuntimeException("Please specify rsPath to make Response body validation");
-        }
-        if (properties == null) {
-            properties = new Properties();
-        }
-        if (actualRsBody == null) {
-            throw new RuntimeException("Actual response body is null. Please make API call before validation response");
-        }
-        TemplateMessage tm = new TemplateMessage();
-        tm.setTemplatePath(rsPath);
-        tm.setPropertiesStorage(properties);
-        String expectedRs = tm.getMessageText();
+        String expectedRs = getExpectedRs();
         try {
-            JSONAssert.assertEquals(expectedRs, actualRsBody, new JsonKeywordsComparator(mode, validationFlags));
+            JSONAssert.assertEquals(expectedRs, getActualRsBody(), new JsonKeywordsComparator(mode, validationFlags));
         } catch (JSONException e) {
             throw new RuntimeException(e);
         }
@@ -155,14 +143,83 @@ public abstract class AbstractApiMethodV2 extends AbstractApiMethod {
         validateResponse(JSONCompareMode.NON_EXTENSIBLE, validationFlags);
     }
 
+    /**
+     * Validates JSON response like {@link #validateResponse(JSONCompareMode, String...)} but reads response body by
+     * streaming parser, so it is parsed once and is not kept in memory as String. Use it for large responses together
+     * with setLogResponse(false) because response logging reads the whole body.
+     * 
+     * @param mode
+     *            - determines how to compare 2 JSONs
+     * @param validationFlags
+     *            - used for JSON arrays validation, see {@link #validateResponse(JSONCompareMode, String...)}
+     */
+    public void validateResponseStream(JSONCompareMode mode, String... validationFlags) {
+        String expectedRs = getExpectedRs();
+        try (InputStream actualRs = getActualRsStream()) {
+            new JsonStreamValidator(mode, validationFlags).validate(expectedRs, actualRs);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Validates JSON response against JSON schema and expected JSON reading response body once without conversion to
+     * String. Schema validation needs whole document so response is parsed into JSON tree.
+     * 
+     * @param schemaPath
+     *            - path to JSON schema
+     * @param mode
+     *            - determines how to compare 2 JSONs
+     * @param validationFlags
+     *            - used for JSON arrays validation, see {@link #validateResponse(JSONCompareMode, String...)}
+     */
+    public void validateResponseStream(String schemaPath, JSONCompareMode mode, String... validationFlags) {
+        String expectedRs = getExpectedRs();
+        JsonNode actualRs;
+        try (Reader reader = new InputStreamReader(getActualRsStream(), StandardCharsets.UTF_8)) {
+            actualRs = JsonLoader.fromReader(reader);
+        } catch (IOException e) {
+            throw new RuntimeException("Can't read json from response: " + e.getMessage(), e);
+        }
+        JsonValidator.validateJsonAgainstSchema(JsonSchemaRegistry.getSchema(schemaPath), actualRs);
+        new JsonStreamValidator(mode, validationFlags).validate(expectedRs, actualRs);
+    }
+
     public void validateResponseAgainstJSONSchema(String schemaPath) {
+        JsonValidator.validateJsonAgainstSchema(JsonSchemaRegistry.getSchema(schemaPath), getActualRsBody());
+    }
+
+    private String getExpectedRs() {
+        if (rsPath == null) {
+            throw new RuntimeException("Please specify rsPath to make Response body validation");
+        }
+        if (properties == null) {
+            properties = new Properties();
+        }
+        TemplateMessage tm = new TemplateMessage();
+        tm.setTemplatePath(rsPath);
+        tm.setPropertiesStorage(properties);
+        return tm.getMessageText();
+    }
+
+    private String getActualRsBody() {
+        if (actualRsBody == null && actualRs != null) {
+            actualRsBody = actualRs.asString();
+        }
         if (actualRsBody == null) {
             throw new RuntimeException("Actual response body is null. Please make API call before validation response");
         }
-        TemplateMessage tm = new TemplateMessage();
-        tm.setTemplatePath(schemaPath);
-        String schema = tm.getMessageText();
-        JsonValidator.validateJsonAgainstSchema(schema, actualRsBody);
+        return actualRsBody;
+    }
+
+    private InputStream getActualRsStream() {
+        if (actualRsBody != null) {
+            return new ByteArrayInputStream(actualRsBody.getBytes(StandardCharsets.UTF_8));
+        }
+        if (actualRs == null) {
+            throw new RuntimeException("Actual response body is null. Please make API call before validation response");
+        }
+        return actualRs.asInputStream();
     }
 
     public void setAuth(String jSessionId) {
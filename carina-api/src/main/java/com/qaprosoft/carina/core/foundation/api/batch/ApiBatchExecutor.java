@@ -0,0 +1,154 @@
+/*******************************************************************************
+ * Copyright 2013-2018 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.api.batch;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import org.apache.log4j.Logger;
+
+import com.jayway.restassured.response.Response;
+import com.qaprosoft.carina.core.foundation.api.AbstractApiMethodV2;
+import com.qaprosoft.carina.core.foundation.api.http.PooledHttpClientFactory;
+
+/*
+ * ApiBatchExecutor - sends prepared API methods in parallel using bounded number of threads.
+ * 
+ * Every method is called by callAPI() so expectations (e.g. expectResponseStatus) are verified as usual, optional
+ * validation (e.g. method -> method.validateResponse()) is applied after the call. Failures don't stop the batch:
+ * they are collected into the results together with response, latency and request/response log of every call.
+ * Response body is read into memory before validation so connection is returned to the pool by every call.
+ */
+public class ApiBatchExecutor {
+    private static final Logger LOGGER = Logger.getLogger(ApiBatchExecutor.class);
+
+    private final int threads;
+
+    /**
+     * @param threads
+     *            max number of concurrent calls
+     */
+    public ApiBatchExecutor(int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Number of threads should be positive: " + threads);
+        }
+        this.threads = threads;
+    }
+
+    public <T extends AbstractApiMethodV2> ApiBatchResult<T> execute(List<T> methods) {
+        return execute(methods, null);
+    }
+
+    /**
+     * Calls all methods and waits for their completion.
+     * 
+     * @param methods
+     *            prepared API methods, every instance should be called once
+     * @param validation
+     *            response validation applied after the call or null
+     * @return results in the order of methods
+     */
+    public <T extends AbstractApiMethodV2> ApiBatchResult<T> execute(List<T> methods, Consumer<T> validation) {
+        List<ApiCallResult<T>> results = new ArrayList<ApiCallResult<T>>(methods.size());
+        if (methods.isEmpty()) {
+            return new ApiBatchResult<T>(results, 0);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(threads, methods.size()), new BatchThreadFactory());
+        long start = System.currentTimeMillis();
+        try {
+            List<Future<ApiCallResult<T>>> futures = new ArrayList<Future<ApiCallResult<T>>>(methods.size());
+            for (T method : methods) {
+                futures.add(executor.submit(new Call<T>(method, validation)));
+            }
+            for (Future<ApiCallResult<T>> future : futures) {
+                results.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("API batch execution is interrupted", e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("API batch execution failed", e.getCause());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        ApiBatchResult<T> result = new ApiBatchResult<T>(results, System.currentTimeMillis() - start);
+        LOGGER.info(result);
+        return result;
+    }
+
+    private static class Call<T extends AbstractApiMethodV2> implements Callable<ApiCallResult<T>> {
+        private final T method;
+        private final Consumer<T> validation;
+
+        Call(T method, Consumer<T> validation) {
+            this.method = method;
+            this.validation = validation;
+        }
+
+        @Override
+        public ApiCallResult<T> call() {
+            // log is kept with the result instead of interleaving with other calls
+            ByteArrayOutputStream log = new ByteArrayOutputStream();
+            method.setLogOutput(log);
+            Response response = null;
+            Throwable error = null;
+            long start = System.nanoTime();
+            long end = 0;
+            try {
+                response = method.callAPI();
+                // body is kept with the result, connection is returned to the pool
+                response.asByteArray();
+                end = System.nanoTime();
+                if (validation != null) {
+                    validation.accept(method);
+                }
+            } catch (Throwable e) {
+                error = e;
+            } finally {
+                method.setLogOutput(null);
+                PooledHttpClientFactory.releaseConnection();
+            }
+            // failed call is measured till the failure
+            long duration = ((end != 0 ? end : System.nanoTime()) - start) / 1000000;
+            return new ApiCallResult<T>(method, response, error, duration, new String(log.toByteArray(), StandardCharsets.UTF_8));
+        }
+    }
+
+    private static class BatchThreadFactory implements ThreadFactory {
+        private static final AtomicInteger batchCounter = new AtomicInteger();
+        private final int batch = batchCounter.incrementAndGet();
+        private final AtomicInteger threadCounter = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "api-batch-" + batch + "-" + threadCounter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+/*******************************************************************************
+ * Copyright 2013-2018 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.api.batch;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import com.qaprosoft.carina.core.foundation.api.AbstractApiMethodV2;
+import com.qaprosoft.carina.core.foundation.performance.LatencyHistogram;
+
+/*
+ * ApiBatchResult - results of all calls of the batch with latency statistics.
+ */
+public class ApiBatchResult<T extends AbstractApiMethodV2> {
+    private final List<ApiCallResult<T>> results;
+    private final long duration;
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private long minLatency;
+
+    ApiBatchResult(List<ApiCallResult<T>> results, long duration) {
+        this.results = Collections.unmodifiableList(results);
+        this.duration = duration;
+        for (ApiCallResult<T> result : results) {
+            long callDuration = result.getDuration();
+            minLatency = latency.getCount() == 0 ? callDuration : Math.min(minLatency, callDuration);
+            latency.record(callDuration);
+        }
+    }
+
+    /**
+     * @return results in the order of executed methods
+     */
+    public List<ApiCallResult<T>> getResults() {
+        return results;
+    }
+
+    public List<ApiCallResult<T>> getFailed() {
+        List<ApiCallResult<T>> failed = new ArrayList<ApiCallResult<T>>();
+        for (ApiCallResult<T> result : results) {
+            if (!result.isPassed()) {
+                failed.add(result);
+            }
+        }
+        return failed;
+    }
+
+    public boolean isPassed() {
+        return getFailed().isEmpty();
+    }
+
+    /**
+     * @return wall time of the batch in milliseconds
+     */
+    public long getDuration() {
+        return duration;
+    }
+
+    public long getMinLatency() {
+        return minLatency;
+    }
+
+    public long getMaxLatency() {
+        return latency.getMax();
+    }
+
+    public double getAverageLatency() {
+        return latency.getCount() > 0 ? (double) latency.getTotal() / latency.getCount() : 0;
+    }
+
+    /**
+     * Percentile of call durations with {@link LatencyHistogram} precision.
+     * 
+     * @param percentile
+     *            value in (0, 100], e.g. 95
+     * @return latency in milliseconds
+     */
+    public long getLatencyPercentile(double percentile) {
+        if (percentile <= 0 || percentile > 100) {
+            throw new IllegalArgumentException("Percentile should be in (0, 100]: " + percentile);
+        }
+        return latency.getValueAtPercentile(percentile);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("API batch: %d calls, %d failed in %d ms; latency ms: min=%d, avg=%.1f, p95=%d, max=%d", results.size(),
+                getFailed().size(), duration, getMinLatency(), getAverageLatency(), latency.getP95(), getMaxLatency());
+    }
+}
@@ -0,0 +1,74 @@
+/*******************************************************************************
+ * Copyright 2013-2018 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.api.batch;
+
+import com.jayway.restassured.response.Response;
+import com.qaprosoft.carina.core.foundation.api.AbstractApiMethodV2;
+
+/*
+ * ApiCallResult - result of API method called by ApiBatchExecutor.
+ */
+public class ApiCallResult<T extends AbstractApiMethodV2> {
+    private final T method;
+    private final Response response;
+    private final Throwable error;
+    private final long duration;
+    private final String log;
+
+    ApiCallResult(T method, Response response, Throwable error, long duration, String log) {
+        this.method = method;
+        this.response = response;
+        this.error = error;
+        this.duration = duration;
+        this.log = log;
+    }
+
+    public T getMethod() {
+        return method;
+    }
+
+    /**
+     * @return response or null if request failed
+     */
+    public Response getResponse() {
+        return response;
+    }
+
+    /**
+     * @return exception or assertion error of the call or validation, null if call passed
+     */
+    public Throwable getError() {
+        return error;
+    }
+
+    public boolean isPassed() {
+        return error == null;
+    }
+
+    /**
+     * @return duration of the call and response body reading in milliseconds, validation is not included
+     */
+    public long getDuration() {
+        return duration;
+    }
+
+    /**
+     * @return request/response log, empty if logging is disabled for the method
+     */
+    public String getLog() {
+        return log;
+    }
+}
@@ -19,6 +19,8 @@ import org.apache.log4j.Logger;
 
 import com.jayway.restassured.response.Response;
 import com.jayway.restassured.specification.RequestSpecification;
+import com.qaprosoft.carina.core.foundation.utils.Configuration;
+import com.qaprosoft.carina.core.foundation.utils.Configuration.Parameter;
 import com.qaprosoft.carina.proxy.SystemProxy;
 
 /*
@@ -29,9 +31,12 @@ import com.qaprosoft.carina.proxy.SystemProxy;
 public class HttpClient {
     protected static final Logger LOGGER = Logger.getLogger(HttpClient.class);
 
+    // proxy settings applied to JVM last time
+    private static volatile String appliedProxy;
+
     public static Response send(RequestSpecification request, String methodPath, HttpMethodType methodType) {
         Response response = null;
-        SystemProxy.setupProxy();
+        setupProxy();
         switch (methodType) {
         case HEAD:
             response = request.head(methodPath);
@@ -58,4 +63,20 @@ public class HttpClient {
         return response;
     }
 
+    /**
+     * JVM proxy properties are global so they are set up again only when proxy settings are changed, e.g. by ProxyPool
+     * when browsermob proxy is started.
+     */
+    private static void setupProxy() {
+        String proxy = String.format("%s:%s/%s/%s", Configuration.get(Parameter.PROXY_HOST), Configuration.get(Parameter.PROXY_PORT),
+                Configuration.get(Parameter.PROXY_PROTOCOLS), Configuration.get(Parameter.PROXY_SET_TO_SYSTEM));
+        if (!proxy.equals(appliedProxy)) {
+            synchronized (HttpClient.class) {
+                if (!proxy.equals(appliedProxy)) {
+                    SystemProxy.setupProxy();
+                    appliedProxy = proxy;
+                }
+            }
+        }
+    }
 }
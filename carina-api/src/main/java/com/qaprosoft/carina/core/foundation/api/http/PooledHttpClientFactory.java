@@ -0,0 +1,222 @@
+/*******************************************************************************
+ * Copyright 2013-2018 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.api.http;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.apache.commons.lang3.math.NumberUtils;
+import org.apache.http.HttpConnection;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpRequestInterceptor;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpResponseInterceptor;
+import org.apache.http.conn.ConnectionReleaseTrigger;
+import org.apache.http.pool.PoolStats;
+import org.apache.http.protocol.HttpCoreContext;
+import org.apache.http.util.EntityUtils;
+import org.apache.log4j.Logger;
+
+import com.jayway.restassured.RestAssured;
+import com.jayway.restassured.config.HttpClientConfig;
+import com.jayway.restassured.config.HttpClientConfig.HttpClientFactory;
+import com.jayway.restassured.config.RestAssuredConfig;
+import com.qaprosoft.carina.core.foundation.utils.Configuration;
+import com.qaprosoft.carina.core.foundation.utils.Configuration.Parameter;
+
+/*
+ * PooledHttpClientFactory - creates RestAssured http clients which share one pool of keep-alive connections so
+ * connections and TLS sessions are reused by API calls of all threads. Every call still gets own client instance so
+ * client parameters set by RestAssured (proxy, redirects, cookie policy) are not shared between threads.
+ * 
+ * Pool limits are read once per run from api_connections_per_route and api_connections_total, pool is disabled when
+ * api_connections_per_route=0. Call waits up to api_connection_timeout seconds for a free connection and fails after
+ * that instead of blocking forever when the pool is exhausted.
+ * 
+ * Response body isn't buffered: pooled connection is returned to the pool when the body is read to the end (e.g. by
+ * Response.asString() or streaming validation) or, for the body which is not read, on releaseConnection() which is
+ * called when API method validation or the test method finishes.
+ * 
+ * RestAssured 2.x works with HttpClient 4.2 API only so deprecated classes are referenced by full name: javac 8 reports
+ * deprecated imports even when usage is suppressed.
+ */
+@SuppressWarnings("deprecation")
+public class PooledHttpClientFactory implements HttpClientFactory {
+    private static final Logger LOGGER = Logger.getLogger(PooledHttpClientFactory.class);
+
+    private static final int DEFAULT_CONNECTIONS_PER_ROUTE = 20;
+    private static final int DEFAULT_CONNECTIONS_TOTAL = 100;
+    private static final long IDLE_TIMEOUT = 60;
+    private static final int DEFAULT_CONNECTION_TIMEOUT = 60;
+
+    private static final AtomicLong requests = new AtomicLong();
+    private static final AtomicLong reusedConnections = new AtomicLong();
+
+    private static final HttpRequestInterceptor metricsInterceptor = (request, context) -> {
+        requests.incrementAndGet();
+        HttpConnection connection = (HttpConnection) context.getAttribute(HttpCoreContext.HTTP_CONNECTION);
+        if (connection != null && connection.getMetrics().getRequestCount() > 0) {
+            reusedConnections.incrementAndGet();
+        }
+    };
+
+    // the last response of the thread which may still hold pooled connection
+    private static final ThreadLocal<PendingResponse> pendingResponse = new ThreadLocal<PendingResponse>();
+
+    private static final HttpResponseInterceptor trackingInterceptor = (response, context) -> {
+        HttpEntity entity = response.getEntity();
+        if (entity != null && entity.isStreaming()) {
+            // entity is wrapped into connection release trigger after interceptors so response itself is tracked
+            pendingResponse.set(new PendingResponse(response));
+        } else {
+            pendingResponse.remove();
+        }
+    };
+
+    private static final PooledHttpClientFactory instance = new PooledHttpClientFactory();
+
+    private static volatile org.apache.http.impl.conn.PoolingClientConnectionManager connectionManager;
+
+    private PooledHttpClientFactory() {
+    }
+
+    /**
+     * Applies pooled transport to the request config. Requests which configure SSL themselves (e.g.
+     * AbstractApiMethod.ignoreSSLCerts) replace the whole config and use own connections.
+     * 
+     * @param config RestAssuredConfig
+     * @return RestAssuredConfig with pooled http client or the same config if pool is disabled
+     */
+    public static RestAssuredConfig configure(RestAssuredConfig config) {
+        if (!isEnabled() || config.getSSLConfig().isUserConfigured() || config.getHttpClientConfig().isUserConfigured()) {
+            return config;
+        }
+        return config.httpClient(HttpClientConfig.httpClientConfig().httpClientFactory(instance));
+    }
+
+    /**
+     * Applies pooled transport to the current RestAssured config.
+     * 
+     * @return RestAssuredConfig
+     */
+    public static RestAssuredConfig configure() {
+        return configure(RestAssured.config());
+    }
+
+    public static boolean isEnabled() {
+        return getLimit(Parameter.API_CONNECTIONS_PER_ROUTE, DEFAULT_CONNECTIONS_PER_ROUTE) > 0;
+    }
+
+    /**
+     * Returns connection of the last response of the current thread to the pool discarding not read part of the body.
+     * Used when response can't be used anymore, e.g. response is validated, expectations failed or test method is
+     * finished.
+     */
+    public static void releaseConnection() {
+        PendingResponse response = pendingResponse.get();
+        if (response != null) {
+            pendingResponse.remove();
+            response.release();
+        }
+    }
+
+    @Override
+    public org.apache.http.client.HttpClient createHttpClient() {
+        // the previous response of the thread isn't read anymore
+        releaseConnection();
+        org.apache.http.impl.conn.PoolingClientConnectionManager manager = getConnectionManager();
+        manager.closeExpiredConnections();
+        manager.closeIdleConnections(IDLE_TIMEOUT, TimeUnit.SECONDS);
+        org.apache.http.impl.client.DefaultHttpClient client = new org.apache.http.impl.client.DefaultHttpClient(manager);
+        org.apache.http.client.params.HttpClientParams.setConnectionManagerTimeout(client.getParams(),
+                TimeUnit.SECONDS.toMillis(getLimit(Parameter.API_CONNECTION_TIMEOUT, DEFAULT_CONNECTION_TIMEOUT)));
+        client.addRequestInterceptor(metricsInterceptor);
+        client.addResponseInterceptor(trackingInterceptor);
+        return client;
+    }
+
+    /**
+     * @return number of requests sent through the pool
+     */
+    public static long getRequestCount() {
+        return requests.get();
+    }
+
+    /**
+     * @return number of requests sent through already opened keep-alive connection
+     */
+    public static long getReusedConnectionCount() {
+        return reusedConnections.get();
+    }
+
+    /**
+     * @return leased, available and max connections of the pool or null if pool is not created yet
+     */
+    public static PoolStats getPoolStats() {
+        org.apache.http.impl.conn.PoolingClientConnectionManager manager = connectionManager;
+        return manager != null ? manager.getTotalStats() : null;
+    }
+
+    private static org.apache.http.impl.conn.PoolingClientConnectionManager getConnectionManager() {
+        if (connectionManager == null) {
+            synchronized (PooledHttpClientFactory.class) {
+                if (connectionManager == null) {
+                    // default scheme registry: plain http and https with the default JVM SSL context
+                    org.apache.http.impl.conn.PoolingClientConnectionManager manager = new org.apache.http.impl.conn.PoolingClientConnectionManager();
+                    manager.setDefaultMaxPerRoute(getLimit(Parameter.API_CONNECTIONS_PER_ROUTE, DEFAULT_CONNECTIONS_PER_ROUTE));
+                    manager.setMaxTotal(getLimit(Parameter.API_CONNECTIONS_TOTAL, DEFAULT_CONNECTIONS_TOTAL));
+                    LOGGER.debug(String.format("API connection pool is created: %d per route, %d total", manager.getDefaultMaxPerRoute(),
+                            manager.getMaxTotal()));
+                    connectionManager = manager;
+                }
+            }
+        }
+        return connectionManager;
+    }
+
+    private static int getLimit(Parameter param, int defaultValue) {
+        return NumberUtils.toInt(Configuration.get(param).trim(), defaultValue);
+    }
+
+    private static class PendingResponse {
+        private final HttpResponse response;
+
+        PendingResponse(HttpResponse response) {
+            this.response = response;
+        }
+
+        /**
+         * Reads the rest of the body so keep-alive connection can be reused, connection which is already returned to
+         * the pool (body was read to the end) is not affected.
+         */
+        void release() {
+            HttpEntity entity = response.getEntity();
+            try {
+                EntityUtils.consume(entity);
+            } catch (IOException e) {
+                LOGGER.debug("Unable to read the rest of API response, connection is closed: " + e.getMessage());
+                if (entity instanceof ConnectionReleaseTrigger) {
+                    try {
+                        ((ConnectionReleaseTrigger) entity).abortConnection();
+                    } catch (IOException ex) {
+                        LOGGER.debug("Unable to close API connection: " + ex.getMessage());
+                    }
+                }
+            }
+        }
+    }
+}
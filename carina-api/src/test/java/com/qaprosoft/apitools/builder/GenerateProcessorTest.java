@@ -0,0 +1,62 @@
+/*******************************************************************************
+ * Copyright 2013-2018 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.apitools.builder;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Properties;
+import java.util.TimeZone;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.qaprosoft.apitools.util.GenerationUtil;
+
+public class GenerateProcessorTest {
+    private static final String PROPERTIES = "builder/generate.properties";
+
+    @Test
+    public void testGenerate() {
+        Properties properties = PropertiesProcessorMain.processProperties(PROPERTIES);
+        Assert.assertTrue(properties.getProperty("word").matches("prefix_([a-z]{7})_\\1"), properties.getProperty("word"));
+        Assert.assertTrue(properties.getProperty("number").matches("\\d{5}"), properties.getProperty("number"));
+        SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd");
+        sdf.setTimeZone(TimeZone.getTimeZone(GenerationUtil.DEFAULT_TIME_ZONE));
+        Assert.assertEquals(properties.getProperty("date"), sdf.format(new Date()));
+        Assert.assertEquals(properties.getProperty("plain"), "value");
+    }
+
+    @Test
+    public void testNewValuesAreGenerated() {
+        Properties first = PropertiesProcessorMain.processProperties(PROPERTIES);
+        Properties second = PropertiesProcessorMain.processProperties(PROPERTIES);
+        Assert.assertNotSame(first, second);
+        Assert.assertEquals(second.getProperty("plain"), "value");
+        second.setProperty("plain", "changed");
+        Assert.assertEquals(PropertiesProcessorMain.processProperties(PROPERTIES).getProperty("plain"), "value");
+    }
+
+    @Test
+    public void testProcessProperties() {
+        Properties in = new Properties();
+        in.put("id", "generate_number(3)");
+        in.put("count", 10);
+        Properties out = PropertiesProcessorMain.processProperties(in);
+        Assert.assertTrue(out.getProperty("id").matches("\\d{3}"), out.getProperty("id"));
+        Assert.assertEquals(out.get("count"), 10);
+        Assert.assertEquals(in.get("id"), "generate_number(3)");
+    }
+}
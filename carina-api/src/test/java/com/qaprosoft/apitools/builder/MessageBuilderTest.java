@@ -0,0 +1,87 @@
+/*******************************************************************************
+ * Copyright 2013-2018 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.apitools.builder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+public class MessageBuilderTest {
+    private static final String TEMPLATE = "builder/rq.json";
+
+    @Test
+    public void testBuildStringMessage() {
+        Properties properties = new Properties();
+        properties.put("id", "1");
+        properties.put("name", "first");
+        Assert.assertEquals(MessageBuilder.buildStringMessage(TEMPLATE, properties).trim(), "{\"id\": \"1\", \"name\": \"first\"}");
+    }
+
+    @Test
+    public void testMergedProperties() {
+        Properties defaults = new Properties();
+        defaults.put("id", "1");
+        defaults.put("name", "default");
+        Properties overrides = new Properties();
+        overrides.put("name", "override");
+        Assert.assertEquals(MessageBuilder.buildStringMessage(TEMPLATE, defaults, overrides).trim(),
+                "{\"id\": \"1\", \"name\": \"override\"}");
+    }
+
+    @Test
+    public void testDataModelKeysAndValues() {
+        Properties properties = new Properties();
+        properties.put("id", "1");
+        Assert.assertEquals(MessageBuilder.buildStringMessage("builder/keys.ftl", properties).trim(), "1: id=1; values: 1");
+    }
+
+    @Test
+    public void testTemplateIsCached() {
+        Assert.assertSame(MessageBuilder.getTemplate(TEMPLATE), MessageBuilder.getTemplate(TEMPLATE));
+    }
+
+    @Test
+    public void testConcurrentRendering() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<String>> results = new ArrayList<Future<String>>();
+            for (int i = 0; i < 200; i++) {
+                final String id = String.valueOf(i);
+                results.add(executor.submit(new Callable<String>() {
+                    @Override
+                    public String call() {
+                        Properties properties = new Properties();
+                        properties.put("id", id);
+                        properties.put("name", "name" + id);
+                        return MessageBuilder.buildStringMessage(TEMPLATE, properties).trim();
+                    }
+                }));
+            }
+            for (int i = 0; i < results.size(); i++) {
+                Assert.assertEquals(results.get(i).get(), "{\"id\": \"" + i + "\", \"name\": \"name" + i + "\"}");
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,46 @@
+/*******************************************************************************
+ * Copyright 2013-2018 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.apitools.validation;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.github.fge.jsonschema.main.JsonSchema;
+
+public class JsonSchemaRegistryTest {
+    private static final String SCHEMA = "validation/schema/ref/user.json";
+
+    @Test
+    public void testSchemaIsCached() {
+        JsonSchema schema = JsonSchemaRegistry.getSchema(SCHEMA);
+        Assert.assertSame(JsonSchemaRegistry.getSchema(SCHEMA), schema);
+    }
+
+    @Test
+    public void testRelativeReference() {
+        JsonValidator.validateJsonAgainstSchema(JsonSchemaRegistry.getSchema(SCHEMA),
+                "{\"name\": \"John\", \"address\": {\"city\": \"Minsk\"}}");
+
+        boolean isErrorThrown = false;
+        try {
+            JsonValidator.validateJsonAgainstSchema(JsonSchemaRegistry.getSchema(SCHEMA), "{\"name\": \"John\", \"address\": {}}");
+        } catch (RuntimeException e) {
+            isErrorThrown = true;
+            Assert.assertTrue(e.getMessage().contains("[/address]"), e.getMessage());
+        }
+        Assert.assertTrue(isErrorThrown, "Validation error not thrown");
+    }
+}
@@ -0,0 +1,172 @@
+/*******************************************************************************
+ * Copyright 2013-2018 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.apitools.validation;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+
+import org.apache.commons.io.IOUtils;
+import org.json.JSONException;
+import org.skyscreamer.jsonassert.JSONAssert;
+import org.skyscreamer.jsonassert.JSONCompareMode;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+public class JsonStreamValidatorTest {
+
+    @DataProvider(name = "validations")
+    public Object[][] validations() {
+        String contains = JsonCompareKeywords.ARRAY_CONTAINS.getKey();
+        return new Object[][] {
+                { "array/contains/rs_array_2_items.json", "array/contains/rs_array_many_items.json", JSONCompareMode.STRICT,
+                        new String[] { contains + "content" }, false },
+                { "array/contains/rs_array_2_items.json", "array/contains/rs_array_many_items.json", JSONCompareMode.STRICT, new String[0],
+                        true },
+                { "array/skip/array_exp.json", "array/skip/array_act.json", JSONCompareMode.NON_EXTENSIBLE, new String[0], true },
+                { "array/skip/array_exp.json", "array/skip/array_act_err.json", JSONCompareMode.STRICT, new String[0], false },
+                { "array/duplicate/array_exp.json", "array/duplicate/array_act.json", JSONCompareMode.NON_EXTENSIBLE, new String[0],
+                        true },
+                { "array/duplicate/array_exp.json", "array/duplicate/array_act_err.json", JSONCompareMode.STRICT, new String[0], false },
+                { "array/integer/array_exp.json", "array/integer/array_act.json", JSONCompareMode.NON_EXTENSIBLE, new String[0], true },
+                { "array/integer/array_exp_skip.json", "array/integer/array_act.json", JSONCompareMode.NON_EXTENSIBLE, new String[0],
+                        true },
+                { "array/integer/array_exp.json", "array/integer/array_act_err.json", JSONCompareMode.STRICT, new String[0], true },
+                { "array/integer/array_exp.json", "array/integer/array_act_contains.json", JSONCompareMode.STRICT,
+                        new String[] { contains + "data.ids" }, true },
+                { "array/integer/array_exp.json", "array/integer/array_act_contains_missed.json", JSONCompareMode.STRICT,
+                        new String[] { contains + "data.ids" }, true },
+                { "array/mode/expected.json", "array/mode/actual.json", JSONCompareMode.NON_EXTENSIBLE, new String[0], true },
+                { "array/mode/expected.json", "array/mode/actual.json", JSONCompareMode.STRICT, new String[0], true },
+                { "object/mode/expected.json", "object/mode/actual.json", JSONCompareMode.LENIENT, new String[0], true },
+                { "object/mode/expected.json", "object/mode/actual.json", JSONCompareMode.NON_EXTENSIBLE, new String[0], true } };
+    }
+
+    @Test(dataProvider = "validations")
+    public void testSameResultAsComparator(String expectedPath, String actualPath, JSONCompareMode mode, String[] flags,
+            boolean sameMessage) throws IOException {
+        String expectedRs = read("validation/" + expectedPath);
+        String actualRs = read("validation/" + actualPath);
+
+        String comparatorError = null;
+        try {
+            JSONAssert.assertEquals(expectedRs, actualRs, new JsonKeywordsComparator(mode, flags));
+        } catch (JSONException e) {
+            throw new RuntimeException(e);
+        } catch (AssertionError e) {
+            comparatorError = e.getMessage();
+        }
+
+        String streamError = null;
+        try {
+            new JsonStreamValidator(mode, flags).validate(expectedRs, toStream(actualRs));
+        } catch (AssertionError e) {
+            streamError = e.getMessage();
+        }
+
+        Assert.assertEquals(streamError == null, comparatorError == null, "Validation status differs: " + streamError);
+        if (sameMessage) {
+            Assert.assertEquals(streamError, comparatorError, "Error message not as expected");
+        }
+    }
+
+    @Test
+    public void testKeywords() {
+        String expected = "{\"id\": \"type:Integer\", \"name\": \"regex:^item_\\\\d+$\", \"created\": \"skip\", \"tags\": [\"b\", \"a\"]}";
+        String actual = "{\"tags\": [\"a\", \"b\"], \"created\": {\"date\": [1, 2]}, \"name\": \"item_15\", \"id\": 15}";
+        new JsonStreamValidator(JSONCompareMode.NON_EXTENSIBLE).validate(expected, toStream(actual));
+
+        String actualErr = "{\"tags\": [\"a\", \"b\"], \"created\": null, \"name\": \"item_x\", \"id\": \"15\"}";
+        try {
+            new JsonStreamValidator(JSONCompareMode.NON_EXTENSIBLE).validate(expected, toStream(actualErr));
+            Assert.fail("Assertion Error not thrown");
+        } catch (AssertionError e) {
+            Assert.assertTrue(e.getMessage().contains("Actual value 'item_x' doesn't match to expected regex '^item_\\d+$'"), e.getMessage());
+            Assert.assertTrue(e.getMessage().contains("Value type 'String' doesn't match to expected type 'Integer'"), e.getMessage());
+        }
+    }
+
+    @Test
+    public void testLargeArrayOfObjects() {
+        StringBuilder expected = new StringBuilder("{\"items\": [");
+        expected.append("{\"id\": \"type:Integer\", \"name\": \"regex:^item_\\\\d+$\"}, ");
+        expected.append("{\"id\": 7, \"name\": \"item_7\"}]}");
+        StringBuilder actual = new StringBuilder("{\"items\": [");
+        for (int i = 0; i < 100000; i++) {
+            actual.append(i > 0 ? ", " : "").append("{\"id\": ").append(i).append(", \"name\": \"item_").append(i).append("\"}");
+        }
+        actual.append("]}");
+        String flag = JsonCompareKeywords.ARRAY_CONTAINS.getKey() + "items";
+
+        new JsonStreamValidator(JSONCompareMode.NON_EXTENSIBLE, flag).validate(expected.toString(), toStream(actual.toString()));
+
+        try {
+            new JsonStreamValidator(JSONCompareMode.NON_EXTENSIBLE).validate(expected.toString(), toStream(actual.toString()));
+            Assert.fail("Assertion Error not thrown");
+        } catch (AssertionError e) {
+            Assert.assertTrue(e.getMessage().contains("Arrays length differs. Expected length=2 but actual length=100000"), e.getMessage());
+        }
+
+        String missed = expected.toString().replace("item_7", "item_x");
+        try {
+            new JsonStreamValidator(JSONCompareMode.NON_EXTENSIBLE, flag).validate(missed, toStream(actual.toString()));
+            Assert.fail("Assertion Error not thrown");
+        } catch (AssertionError e) {
+            Assert.assertTrue(e.getMessage().contains("items[1]"), e.getMessage());
+            Assert.assertTrue(e.getMessage().contains("is missed in actual array"), e.getMessage());
+        }
+    }
+
+    @Test
+    public void testLongAugmentingPath() throws InterruptedException {
+        // expected item i matches actual items i and i + 1, the last one matches only the first actual item, so the last
+        // match shifts all previous ones
+        int size = 1000;
+        StringBuilder expected = new StringBuilder("[");
+        StringBuilder actual = new StringBuilder("[");
+        for (int i = 0; i < size; i++) {
+            String regex = i < size - 1 ? String.format("^(%d|%d)$", i, i + 1) : "^0$";
+            expected.append(i > 0 ? ", " : "").append("{\"id\": \"regex:").append(regex).append("\"}");
+            actual.append(i > 0 ? ", " : "").append("{\"id\": \"").append(i).append("\"}");
+        }
+        expected.append("]");
+        actual.append("]");
+
+        // small stack to be sure that matching doesn't depend on the stack size
+        Throwable[] error = new Throwable[1];
+        Thread thread = new Thread(null, () -> {
+            try {
+                new JsonStreamValidator(JSONCompareMode.NON_EXTENSIBLE).validate(expected.toString(), toStream(actual.toString()));
+            } catch (Throwable e) {
+                error[0] = e;
+            }
+        }, "validator", 128 * 1024);
+        thread.start();
+        thread.join();
+        Assert.assertNull(error[0], String.valueOf(error[0]));
+    }
+
+    private static String read(String path) throws IOException {
+        return IOUtils.toString(JsonStreamValidatorTest.class.getClassLoader().getResourceAsStream(path), Charset.forName("UTF-8"));
+    }
+
+    private static InputStream toStream(String json) {
+        return new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -248,4 +248,57 @@ public class JsonValidatorTest {
         }
         Assert.assertTrue(isErrorThrown, "Assertion Error not thrown");
     }
+
+    @Test
+    public void testLargeArrayInReverseOrder() {
+        int size = 5000;
+        StringBuilder expected = new StringBuilder("{\"items\": [");
+        StringBuilder actual = new StringBuilder("{\"items\": [");
+        for (int i = 0; i < size; i++) {
+            expected.append(i > 0 ? "," : "").append(item(i, "\"name" + i + "\""));
+            actual.append(i > 0 ? "," : "").append(item(size - 1 - i, "\"name" + (size - 1 - i) + "\""));
+        }
+        expected.append("]}");
+        actual.append("]}");
+
+        JsonValidator.validateJson(expected.toString(), actual.toString(), JSONCompareMode.STRICT);
+    }
+
+    @Test
+    public void testLargeArrayItemError() {
+        int size = 2000;
+        StringBuilder expected = new StringBuilder("{\"items\": [");
+        StringBuilder actual = new StringBuilder("{\"items\": [");
+        for (int i = 0; i < size; i++) {
+            expected.append(i > 0 ? "," : "").append(item(i, i == 10 ? "\"regex:^name\\\\d+$\"" : "\"name" + i + "\""));
+            actual.append(i > 0 ? "," : "").append(item(size - 1 - i, "\"name" + (size - 1 - i) + (i == 5 ? "-err" : "") + "\""));
+        }
+        expected.append("]}");
+        actual.append("]}");
+
+        boolean isErrorThrown = false;
+        try {
+            JsonValidator.validateJson(expected.toString(), actual.toString(), JSONCompareMode.STRICT);
+        } catch (AssertionError e) {
+            isErrorThrown = true;
+            Assert.assertEquals(normalizeSpace(e.getMessage()),
+                    normalizeSpace("items[" + (size - 6) + "].name Expected: name" + (size - 6) + " got: name" + (size - 6) + "-err"),
+                    "Error message not as expected");
+        }
+        Assert.assertTrue(isErrorThrown, "Assertion Error not thrown");
+    }
+
+    @Test
+    public void testArrayKeywordItemsMatching() {
+        // the first expected item matches both actual items but only the first actual item matches the second one
+        String expected = "{\"items\": [{\"id\": \"skip\", \"name\": \"regex:^n\"}, {\"id\": 1, \"name\": \"type:String\"}]}";
+        String actual = "{\"items\": [{\"id\": 1, \"name\": \"n1\"}, {\"id\": 2, \"name\": \"n2\"}]}";
+
+        JsonValidator.validateJson(expected, actual, JSONCompareMode.NON_EXTENSIBLE);
+        JsonValidator.validateJson(expected, actual, JSONCompareMode.LENIENT);
+    }
+
+    private static String item(int id, String name) {
+        return "{\"id\": " + id + ", \"name\": " + name + ", \"tags\": [\"t" + id + "\", \"common\"]}";
+    }
 }
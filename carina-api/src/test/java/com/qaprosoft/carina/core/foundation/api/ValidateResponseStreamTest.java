@@ -0,0 +1,103 @@
+/*******************************************************************************
+ * Copyright 2013-2018 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.api;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.skyscreamer.jsonassert.JSONCompareMode;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.qaprosoft.carina.core.foundation.api.http.HttpResponseStatusType;
+import com.qaprosoft.carina.core.foundation.api.http.PooledHttpClientFactory;
+import com.qaprosoft.carina.core.foundation.utils.R;
+import com.sun.net.httpserver.HttpServer;
+
+public class ValidateResponseStreamTest {
+    private static final int ITEMS = 1000;
+
+    private HttpServer server;
+    // the rest of the body is sent only after the test allows it
+    private final CountDownLatch sendRest = new CountDownLatch(1);
+    private final AtomicBoolean bodySent = new AtomicBoolean();
+
+    public static class GetItemsMethod extends AbstractApiMethodV2 {
+        public GetItemsMethod(int port) {
+            super(null, "validation/stream/rs_items.json");
+            request.baseUri("http://127.0.0.1").port(port);
+        }
+    }
+
+    @BeforeClass
+    public void startServer() throws IOException {
+        R.API.put(GetItemsMethod.class.getSimpleName(), "GET:/items");
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/items", exchange -> {
+            exchange.getResponseHeaders().add("Content-Type", "application/json");
+            exchange.sendResponseHeaders(200, 0);
+            try (OutputStream out = exchange.getResponseBody()) {
+                StringBuilder items = new StringBuilder("{\"items\": [");
+                for (int i = 0; i < ITEMS; i++) {
+                    items.append(i > 0 ? ", " : "").append("{\"id\": ").append(i).append("}");
+                }
+                out.write(items.toString().getBytes(StandardCharsets.UTF_8));
+                out.flush();
+                try {
+                    sendRest.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                out.write(("], \"count\": " + ITEMS + "}").getBytes(StandardCharsets.UTF_8));
+                bodySent.set(true);
+            }
+        });
+        server.start();
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void stopServer() {
+        sendRest.countDown();
+        server.stop(0);
+    }
+
+    @Test
+    public void testBodyIsNotReadByCall() {
+        GetItemsMethod method = new GetItemsMethod(server.getAddress().getPort());
+        method.setLogRequest(false);
+        method.setLogResponse(false);
+        method.expectResponseStatus(HttpResponseStatusType.OK_200);
+
+        method.callAPI();
+        // callAPI returned before the server sent the whole body, so it was not buffered
+        Assert.assertFalse(bodySent.get(), "Response body is read by callAPI");
+
+        sendRest.countDown();
+        method.validateResponseStream(JSONCompareMode.NON_EXTENSIBLE);
+        Assert.assertTrue(bodySent.get());
+        if (PooledHttpClientFactory.isEnabled()) {
+            // connection is returned to the pool when body is read to the end
+            Assert.assertEquals(PooledHttpClientFactory.getPoolStats().getLeased(), 0);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+/*******************************************************************************
+ * Copyright 2013-2018 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.api.batch;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.qaprosoft.carina.core.foundation.api.AbstractApiMethodV2;
+import com.qaprosoft.carina.core.foundation.api.http.HttpResponseStatusType;
+import com.qaprosoft.carina.core.foundation.utils.R;
+import com.sun.net.httpserver.HttpServer;
+
+public class ApiBatchExecutorTest {
+    private HttpServer server;
+
+    public static class GetItemMethod extends AbstractApiMethodV2 {
+        public GetItemMethod(int port, String id) {
+            super(null, null);
+            replaceUrlPlaceholder("id", id);
+            request.baseUri("http://127.0.0.1").port(port);
+        }
+    }
+
+    @BeforeClass
+    public void startServer() throws IOException {
+        R.API.put(GetItemMethod.class.getSimpleName(), "GET:/items/${id}");
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/items", exchange -> {
+            String id = exchange.getRequestURI().getPath().substring("/items/".length());
+            byte[] body = ("{\"id\": \"" + id + "\"}").getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(id.startsWith("missing") ? 404 : 200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    public void testExecute() {
+        int port = server.getAddress().getPort();
+        List<GetItemMethod> methods = new ArrayList<GetItemMethod>();
+        for (int i = 0; i < 20; i++) {
+            GetItemMethod method = new GetItemMethod(port, i == 7 ? "missing" + i : String.valueOf(i));
+            method.expectResponseStatus(HttpResponseStatusType.OK_200);
+            methods.add(method);
+        }
+
+        ApiBatchResult<GetItemMethod> result = new ApiBatchExecutor(4).execute(methods,
+                method -> Assert.assertTrue(method.getRequest() != null));
+
+        Assert.assertEquals(result.getResults().size(), 20);
+        Assert.assertFalse(result.isPassed());
+        Assert.assertEquals(result.getFailed().size(), 1);
+        Assert.assertSame(result.getFailed().get(0).getMethod(), methods.get(7));
+        Assert.assertTrue(result.getFailed().get(0).getError() instanceof AssertionError);
+        for (int i = 0; i < 20; i++) {
+            ApiCallResult<GetItemMethod> call = result.getResults().get(i);
+            Assert.assertSame(call.getMethod(), methods.get(i));
+            if (i != 7) {
+                Assert.assertEquals(call.getResponse().jsonPath().getString("id"), String.valueOf(i));
+            }
+        }
+        Assert.assertTrue(result.getMinLatency() <= result.getLatencyPercentile(50));
+        Assert.assertTrue(result.getLatencyPercentile(50) <= result.getMaxLatency());
+        Assert.assertEquals(result.getLatencyPercentile(100), result.getMaxLatency());
+    }
+}
@@ -0,0 +1,147 @@
+/*******************************************************************************
+ * Copyright 2013-2018 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.api.http;
+
+import static com.jayway.restassured.RestAssured.given;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.jayway.restassured.config.RestAssuredConfig;
+import com.jayway.restassured.config.SSLConfig;
+import com.qaprosoft.carina.core.foundation.api.AbstractApiMethodV2;
+import com.qaprosoft.carina.core.foundation.utils.R;
+import com.sun.net.httpserver.HttpServer;
+
+public class PooledHttpClientFactoryTest {
+    private HttpServer server;
+    private String url;
+
+    public static class PingMethod extends AbstractApiMethodV2 {
+        public PingMethod(int port) {
+            super(null, null);
+            request.baseUri("http://127.0.0.1").port(port);
+        }
+    }
+
+    @BeforeClass
+    public void startServer() throws IOException {
+        R.API.put(PingMethod.class.getSimpleName(), "GET:/ping");
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/ping", exchange -> {
+            byte[] body = "pong".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        });
+        server.start();
+        url = "http://127.0.0.1:" + server.getAddress().getPort() + "/ping";
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void stopServer() {
+        server.stop(0);
+    }
+
+    @Test
+    public void testConnectionReuse() {
+        RestAssuredConfig config = PooledHttpClientFactory.configure(RestAssuredConfig.config());
+        long requests = PooledHttpClientFactory.getRequestCount();
+        long reused = PooledHttpClientFactory.getReusedConnectionCount();
+
+        for (int i = 0; i < 3; i++) {
+            Assert.assertEquals(given().config(config).get(url).asString(), "pong");
+        }
+
+        Assert.assertEquals(PooledHttpClientFactory.getRequestCount() - requests, 3);
+        // the first request may also reuse connection kept alive by another test
+        Assert.assertTrue(PooledHttpClientFactory.getReusedConnectionCount() - reused >= 2);
+        Assert.assertEquals(PooledHttpClientFactory.getPoolStats().getLeased(), 0);
+    }
+
+    @Test
+    public void testConnectionIsReleasedOnFailedExpectation() {
+        PingMethod method = new PingMethod(server.getAddress().getPort());
+        method.expectResponseStatus(HttpResponseStatusType.NOT_FOUND_404);
+        try {
+            method.callAPI();
+            Assert.fail("Expectation error is not thrown");
+        } catch (AssertionError e) {
+            // expected
+        }
+        Assert.assertEquals(PooledHttpClientFactory.getPoolStats().getLeased(), 0);
+    }
+
+    @Test
+    public void testNotReadResponseIsReleased() {
+        RestAssuredConfig config = PooledHttpClientFactory.configure(RestAssuredConfig.config());
+        Assert.assertEquals(given().config(config).get(url).getStatusCode(), 200);
+        PooledHttpClientFactory.releaseConnection();
+        Assert.assertEquals(PooledHttpClientFactory.getPoolStats().getLeased(), 0);
+    }
+
+    @Test
+    public void testProxyIsUpdatedOnConfigChange() {
+        String[] params = { "proxy_host", "proxy_port", "proxy_protocols", "proxy_set_to_system" };
+        String[] values = new String[params.length];
+        for (int i = 0; i < params.length; i++) {
+            values[i] = R.CONFIG.get(params[i]);
+        }
+        String ftpHost = System.getProperty("ftp.proxyHost");
+        String ftpPort = System.getProperty("ftp.proxyPort");
+        try {
+            R.CONFIG.put("proxy_host", "127.0.0.1");
+            R.CONFIG.put("proxy_port", "1111");
+            R.CONFIG.put("proxy_protocols", "ftp");
+            R.CONFIG.put("proxy_set_to_system", "true");
+            HttpClient.send(given().config(PooledHttpClientFactory.configure()), url, HttpMethodType.GET).asString();
+            Assert.assertEquals(System.getProperty("ftp.proxyPort"), "1111");
+
+            // e.g. browsermob proxy is started on another port
+            R.CONFIG.put("proxy_port", "2222");
+            HttpClient.send(given().config(PooledHttpClientFactory.configure()), url, HttpMethodType.GET).asString();
+            Assert.assertEquals(System.getProperty("ftp.proxyPort"), "2222");
+        } finally {
+            for (int i = 0; i < params.length; i++) {
+                R.CONFIG.put(params[i], values[i]);
+            }
+            restoreProperty("ftp.proxyHost", ftpHost);
+            restoreProperty("ftp.proxyPort", ftpPort);
+        }
+    }
+
+    private static void restoreProperty(String key, String value) {
+        if (value == null) {
+            System.clearProperty(key);
+        } else {
+            System.setProperty(key, value);
+        }
+    }
+
+    @Test
+    public void testUserSSLConfigIsNotPooled() {
+        RestAssuredConfig config = RestAssuredConfig.config().sslConfig(SSLConfig.sslConfig().allowAllHostnames());
+        Assert.assertSame(PooledHttpClientFactory.configure(config), config);
+    }
+}
@@ -0,0 +1 @@
+${.data_model?size}: <#list .data_model?keys as key>${key}=${.data_model[key]}</#list>; values: <#list .data_model?values as value>${value}</#list>
\ No newline at end of file
@@ -160,5 +160,6 @@ public class SpecialKeywords {
     public static final String STF_ENABLED = "STF_ENABLED";
     public static final String STF_URL = "STF_URL";
     public static final String STF_TOKEN = "STF_TOKEN";
+    public static final String STF_CACHE_TIMEOUT = "STF_CACHE_TIMEOUT";
     
 }
@@ -23,6 +23,7 @@ import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.Enumeration;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.regex.Matcher;
@@ -526,6 +527,20 @@ public abstract class AbstractTest // extends DriverHelper
         return objects;
     }
 
+    /**
+     * Single thread data provider which reads rows of streaming data sources (CSV) on demand so huge data sets
+     * don't have to be loaded into memory before the test start.
+     *
+     * @param testMethod ITestNGMethod
+     * @param context ITestContext
+     * @return Iterator of test arguments
+     */
+    @DataProvider(name = "StreamingDataProvider")
+    public Iterator<Object[]> createDataStream(final ITestNGMethod testMethod, ITestContext context) {
+        Annotation[] annotations = testMethod.getConstructorOrMethod().getMethod().getDeclaredAnnotations();
+        return DataProviderFactory.getLazyDataProvider(annotations, context, testMethod);
+    }
+
     /**
      * Pause for specified timeout.
      *
@@ -35,7 +35,10 @@ import org.testng.IRetryAnalyzer;
 import org.testng.ITestContext;
 import org.testng.ITestResult;
 
+import com.qaprosoft.carina.core.foundation.api.http.PooledHttpClientFactory;
 import com.qaprosoft.carina.core.foundation.commons.SpecialKeywords;
+import com.qaprosoft.carina.core.foundation.dataprovider.core.DataProviderFactory;
+import com.qaprosoft.carina.core.foundation.dataprovider.core.FailedRowsRegistry;
 import com.qaprosoft.carina.core.foundation.dataprovider.parser.DSBean;
 import com.qaprosoft.carina.core.foundation.jira.Jira;
 import com.qaprosoft.carina.core.foundation.report.Artifacts;
@@ -199,10 +202,14 @@ public class AbstractTestListener extends TestArgsListener {
     }
 
     private void afterConfiguration(ITestResult result) {
+        PooledHttpClientFactory.releaseConnection();
         TestNamingUtil.releaseTestInfoByThread();
     }
 
     private void afterTest(ITestResult result) {
+        // API response which body wasn't read keeps pooled connection till the end of test method
+        PooledHttpClientFactory.releaseConnection();
+
         // register configuration step as test artifact
         String test = TestNamingUtil.getCanonicalTestName(result);
 
@@ -340,6 +347,9 @@ public class AbstractTestListener extends TestArgsListener {
             failRetryItem(result, Messager.RETRY_RETRY_FAILED, count, maxCount);
         } else {
             failItem(result, Messager.TEST_FAILED);
+            if (result.getParameters().length > 0) {
+                FailedRowsRegistry.registerFailure(result.getMethod(), result.getParameters());
+            }
             afterTest(result);
         }
 
@@ -365,6 +375,10 @@ public class AbstractTestListener extends TestArgsListener {
         }
 
         skipItem(result, Messager.TEST_SKIPPED);
+        // rows skipped because of failed dependencies or configuration should be executed on rerun as well
+        if (result.getParameters().length > 0) {
+            FailedRowsRegistry.registerFailure(result.getMethod(), result.getParameters());
+        }
         afterTest(result);
         super.onTestSkipped(result);
     }
@@ -372,6 +386,8 @@ public class AbstractTestListener extends TestArgsListener {
     @Override
     public void onFinish(ITestContext context) {
         removeIncorrectlyFailedTests(context);
+        FailedRowsRegistry.save();
+        DataProviderFactory.closeLazyDataProviders(context);
         super.onFinish(context);
     }
 
@@ -0,0 +1,87 @@
+/*******************************************************************************
+ * Copyright 2013-2018 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.dataprovider.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Proxy;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.testng.Assert;
+import org.testng.ITestNGMethod;
+import org.testng.annotations.Test;
+
+public class FailedRowsRegistryTest {
+
+    @Test
+    public void testFingerprint() {
+        Object[] row = new Object[] { "user", 1, Collections.singletonMap("key", "value") };
+        Object[] copy = new Object[] { "user", 1, Collections.singletonMap("key", "value") };
+        Assert.assertEquals(FailedRowsRegistry.getFingerprint(row), FailedRowsRegistry.getFingerprint(copy));
+        Assert.assertNotEquals(FailedRowsRegistry.getFingerprint(row), FailedRowsRegistry.getFingerprint(new Object[] { "user", 2 }));
+    }
+
+    @Test
+    public void testSaveAndLoad() throws IOException {
+        ITestNGMethod failed = mockMethod("testFailed");
+        Object[] row1 = new Object[] { "a", "1" };
+        Object[] row2 = new Object[] { "b", "2" };
+
+        FailedRowsRegistry.registerFailure(failed, row1);
+        FailedRowsRegistry.registerFailure(failed, row2);
+        FailedRowsRegistry.registerFailure(failed, row1);
+
+        File file = File.createTempFile("failed_rows", ".properties");
+        file.deleteOnExit();
+        FailedRowsRegistry.save(file);
+
+        Map<String, Set<String>> rows = FailedRowsRegistry.load(file);
+        String prefix = getClass().getName() + ".";
+        Assert.assertEquals(rows.get(prefix + "testFailed"),
+                new HashSet<String>(Arrays.asList(FailedRowsRegistry.getFingerprint(row1), FailedRowsRegistry.getFingerprint(row2))));
+        Assert.assertNull(rows.get(prefix + "testPassed"), "Method without failures should be executed completely on rerun");
+        Assert.assertNull(rows.get(prefix + "testNotExecuted"));
+    }
+
+    @Test
+    public void testLoadMissingFile() {
+        Assert.assertTrue(FailedRowsRegistry.load(new File("not_existing_failed_rows.properties")).isEmpty());
+        Assert.assertTrue(FailedRowsRegistry.load(null).isEmpty());
+    }
+
+    @Test
+    public void testNoPreviousRunByDefault() {
+        Assert.assertNull(FailedRowsRegistry.getPreviousFailures(mockMethod("testFailed")));
+    }
+
+    private ITestNGMethod mockMethod(final String name) {
+        return (ITestNGMethod) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[] { ITestNGMethod.class },
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                    case "getRealClass":
+                        return FailedRowsRegistryTest.class;
+                    case "getMethodName":
+                        return name;
+                    default:
+                        throw new UnsupportedOperationException(method.getName());
+                    }
+                });
+    }
+}
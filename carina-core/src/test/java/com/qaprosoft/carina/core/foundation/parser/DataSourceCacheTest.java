@@ -0,0 +1,112 @@
+/*******************************************************************************
+ * Copyright 2013-2018 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.parser;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.io.FileUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.qaprosoft.carina.core.foundation.dataprovider.parser.DataSourceCache;
+import com.qaprosoft.carina.core.foundation.utils.R;
+
+public class DataSourceCacheTest {
+    private static final String[][] ROWS = { { "id", "name", "link" }, null, { "1", "\u00fc\u00df", null }, {} };
+
+    private File dir;
+    private String cacheDir;
+
+    @BeforeClass
+    public void init() throws IOException {
+        dir = Files.createTempDirectory("ds_cache").toFile();
+        cacheDir = R.CONFIG.get("data_provider_cache_dir");
+        R.CONFIG.put("data_provider_cache_dir", new File(dir, "cache").getAbsolutePath());
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void restore() throws IOException {
+        // init could be skipped
+        if (cacheDir != null) {
+            R.CONFIG.put("data_provider_cache_dir", cacheDir);
+        }
+        if (dir != null) {
+            FileUtils.deleteDirectory(dir);
+        }
+    }
+
+    @Test
+    public void testTableIsLoadedFromCache() throws IOException {
+        File source = createSource("source.csv", "v1");
+        AtomicInteger parsed = new AtomicInteger();
+
+        DataSourceCache.Table table = DataSourceCache.get(source, "csv", () -> parse(parsed));
+        Assert.assertEquals(parsed.get(), 1);
+
+        DataSourceCache.Table cached = DataSourceCache.get(source, "csv", () -> parse(parsed));
+        Assert.assertEquals(parsed.get(), 1, "Source shouldn't be parsed again");
+        Assert.assertEquals(cached.getName(), table.getName());
+        Assert.assertEquals(cached.getRows(), ROWS);
+    }
+
+    @Test
+    public void testCacheIsInvalidated() throws IOException {
+        File source = createSource("changed.csv", "v1");
+        AtomicInteger parsed = new AtomicInteger();
+
+        DataSourceCache.get(source, "csv", () -> parse(parsed));
+        DataSourceCache.get(source, "xls!sheet", () -> parse(parsed));
+        Assert.assertEquals(parsed.get(), 2, "Table should be cached per variant");
+
+        createSource("changed.csv", "v2");
+        DataSourceCache.get(source, "csv", () -> parse(parsed));
+        Assert.assertEquals(parsed.get(), 3, "Changed source should be parsed again");
+        DataSourceCache.get(source, "csv", () -> parse(parsed));
+        Assert.assertEquals(parsed.get(), 3);
+    }
+
+    @Test
+    public void testNullTableIsNotCached() throws IOException {
+        File source = createSource("missing_sheet.xlsx", "v1");
+        AtomicInteger parsed = new AtomicInteger();
+        Assert.assertNull(DataSourceCache.get(source, "xls!missing", () -> {
+            parsed.incrementAndGet();
+            return null;
+        }));
+        Assert.assertNull(DataSourceCache.get(source, "xls!missing", () -> {
+            parsed.incrementAndGet();
+            return null;
+        }));
+        Assert.assertEquals(parsed.get(), 2);
+    }
+
+    private File createSource(String name, String content) throws IOException {
+        File source = new File(dir, name);
+        FileUtils.write(source, content, StandardCharsets.UTF_8);
+        return source;
+    }
+
+    private static DataSourceCache.Table parse(AtomicInteger counter) {
+        counter.incrementAndGet();
+        return new DataSourceCache.Table("source", ROWS);
+    }
+}
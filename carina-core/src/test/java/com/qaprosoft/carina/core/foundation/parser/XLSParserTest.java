@@ -0,0 +1,108 @@
+/*******************************************************************************
+ * Copyright 2013-2018 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.parser;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+
+import org.apache.poi.ss.usermodel.FormulaEvaluator;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.testng.Assert;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import com.qaprosoft.carina.core.foundation.dataprovider.parser.XLSCache;
+import com.qaprosoft.carina.core.foundation.dataprovider.parser.XLSParser;
+import com.qaprosoft.carina.core.foundation.dataprovider.parser.XLSSheetData;
+import com.qaprosoft.carina.core.foundation.dataprovider.parser.XLSTable;
+import com.qaprosoft.carina.core.foundation.exception.InvalidArgsException;
+
+public class XLSParserTest {
+
+    @DataProvider(name = "files")
+    public Object[][] files() {
+        return new Object[][] { { "xlsx_data/DataTest.xlsx" }, { "xlsx_data/DataTest.xls" } };
+    }
+
+    @Test(dataProvider = "files")
+    public void testSheetDataEqualsWorkbookValues(String path) {
+        Workbook wb = XLSCache.getWorkbook(path);
+        FormulaEvaluator evaluator = wb.getCreationHelper().createFormulaEvaluator();
+        for (int s = 0; s < wb.getNumberOfSheets(); s++) {
+            Sheet sheet = wb.getSheetAt(s);
+            XLSSheetData data = XLSCache.getSheet(path, sheet.getSheetName());
+            Assert.assertEquals(data.getRowCount(), sheet.getLastRowNum() + 1);
+            for (int i = 0; i < data.getRowCount(); i++) {
+                Row row = sheet.getRow(i);
+                Assert.assertEquals(data.hasRow(i), row != null);
+                for (int j = 0; row != null && j < row.getLastCellNum(); j++) {
+                    Assert.assertEquals(data.getValue(i, j), XLSParser.getCellValue(row.getCell(j), evaluator), sheet.getSheetName() + " " + i
+                            + ":" + j);
+                }
+            }
+        }
+    }
+
+    @Test(dataProvider = "files")
+    public void testParseSpreadSheet(String path) {
+        XLSTable table = XLSParser.parseSpreadSheet(path, "Data");
+        Assert.assertEquals(table.getHeaders(), Arrays.asList("key", "value", "number", "price", "date", "flag", "formula", "execute"));
+        Assert.assertEquals(table.getDataRows().size(), 6);
+
+        Map<String, String> row = table.getDataRows().get(0);
+        Assert.assertEquals(row.get("key"), "key1");
+        Assert.assertEquals(row.get("value"), "value 1");
+        Assert.assertEquals(row.get("number"), "10");
+        Assert.assertEquals(row.get("price"), "1.50");
+        Assert.assertEquals(row.get("date"), "2018-01-01");
+        Assert.assertEquals(row.get("flag"), "false");
+        Assert.assertEquals(row.get("formula"), "20");
+
+        // missing cells are empty
+        Assert.assertEquals(table.getDataRows().get(3).get("execute"), "");
+        Assert.assertEquals(table.getDataRows().get(5).get("number"), "");
+
+        XLSTable filtered = XLSParser.parseSpreadSheet(path, "Data", "execute", "Y");
+        Assert.assertEquals(filtered.getDataRows().size(), 2);
+        Assert.assertEquals(filtered.getDataRows().get(1).get("key"), "key2");
+    }
+
+    @Test(dataProvider = "files")
+    public void testParseValue(String path) {
+        Assert.assertEquals(XLSParser.parseValue(path, "Data", "key1"), "value 1");
+        Assert.assertEquals(XLSParser.parseValue(path, "data", "key6"), "value 6");
+        Assert.assertEquals(XLSParser.parseValue("save", path, Locale.GERMANY), "Speichern");
+        Assert.assertEquals(XLSParser.parseValue("title", path, Locale.US), "Title");
+    }
+
+    @Test(expectedExceptions = InvalidArgsException.class)
+    public void testMissingKey() {
+        XLSParser.parseValue("xlsx_data/DataTest.xlsx", "Data", "key4");
+    }
+
+    @Test(expectedExceptions = InvalidArgsException.class)
+    public void testMissingSheet() {
+        XLSParser.parseSpreadSheet("xlsx_data/DataTest.xlsx", "Missing");
+    }
+
+    @Test(expectedExceptions = RuntimeException.class, expectedExceptionsMessageRegExp = "Can't find locale 'FR'.*")
+    public void testMissingLocale() {
+        XLSParser.parseValue("save", "xlsx_data/DataTest.xlsx", Locale.FRANCE);
+    }
+}
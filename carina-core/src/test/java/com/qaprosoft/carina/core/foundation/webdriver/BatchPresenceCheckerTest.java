@@ -0,0 +1,146 @@
+/*******************************************************************************
+ * Copyright 2013-2018 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.webdriver;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.SearchContext;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.WebElement;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.qaprosoft.carina.core.foundation.webdriver.decorator.ExtendedWebElement;
+
+public class BatchPresenceCheckerTest {
+
+    @Test
+    public void testSingleScriptCallPerCheck() {
+        WebDriver driver = mockDriver();
+        when(((JavascriptExecutor) driver).executeScript(anyString(), any())).thenReturn(Arrays.asList(true, false, true));
+
+        BatchPresenceChecker checker = new BatchPresenceChecker(driver, new ExtendedWebElement(By.id("login"), "login", driver),
+                new ExtendedWebElement(By.xpath("//div[@class='a: b']"), "div", driver),
+                new ExtendedWebElement(By.cssSelector("#password"), "password", driver));
+
+        Assert.assertEquals(checker.check(true), new boolean[] { true, false, true });
+        verify((JavascriptExecutor) driver, times(1)).executeScript(anyString(), eq(Arrays.asList(Arrays.asList("id", "login"),
+                Arrays.asList("xpath", "//div[@class='a: b']"), Arrays.asList("cssSelector", "#password"))));
+        verify(driver, never()).findElements(any(By.class));
+    }
+
+    @Test
+    public void testWaitForAny() {
+        WebDriver driver = mockDriver();
+        when(((JavascriptExecutor) driver).executeScript(anyString(), any())).thenReturn(Arrays.asList(false, true));
+
+        BatchPresenceChecker checker = new BatchPresenceChecker(driver, new ExtendedWebElement(By.name("q"), "q", driver),
+                new ExtendedWebElement(By.className("logo"), "logo", driver));
+
+        Assert.assertEquals(checker.waitForAny(1), 1);
+        verify((JavascriptExecutor) driver, times(1)).executeScript(anyString(), any());
+    }
+
+    @Test
+    public void testWaitForAllTimeout() {
+        WebDriver driver = mockDriver();
+        when(((JavascriptExecutor) driver).executeScript(anyString(), any())).thenReturn(Arrays.asList(true, false));
+
+        BatchPresenceChecker checker = new BatchPresenceChecker(driver, new ExtendedWebElement(By.id("a"), "a", driver),
+                new ExtendedWebElement(By.id("b"), "b", driver));
+
+        long start = System.currentTimeMillis();
+        Assert.assertEquals(checker.waitForAll(1), new boolean[] { true, false });
+        long duration = System.currentTimeMillis() - start;
+        Assert.assertTrue(duration >= 1000 && duration < 5000, "Unexpected wait duration: " + duration);
+    }
+
+    @Test
+    public void testFallbackWhenScriptIsNotSupported() {
+        WebDriver driver = mockDriver();
+        when(((JavascriptExecutor) driver).executeScript(anyString(), any())).thenThrow(new WebDriverException("Method is not implemented"));
+        WebElement visible = mock(WebElement.class);
+        when(visible.isDisplayed()).thenReturn(true);
+        when(driver.findElements(By.id("present"))).thenReturn(Arrays.asList(visible));
+
+        BatchPresenceChecker checker = new BatchPresenceChecker(driver, new ExtendedWebElement(By.id("missing"), "missing", driver),
+                new ExtendedWebElement(By.id("present"), "present", driver));
+
+        Assert.assertEquals(checker.check(true), new boolean[] { false, true });
+        Assert.assertEquals(checker.check(true), new boolean[] { false, true });
+        // script isn't repeated after the first failure
+        verify((JavascriptExecutor) driver, times(1)).executeScript(anyString(), any());
+    }
+
+    @Test
+    public void testFallbackOnUnexpectedScriptResult() {
+        WebDriver driver = mockDriver();
+        when(((JavascriptExecutor) driver).executeScript(anyString(), any())).thenReturn(Arrays.asList(true));
+        WebElement visible = mock(WebElement.class);
+        when(visible.isDisplayed()).thenReturn(true);
+        when(driver.findElements(By.id("present"))).thenReturn(Arrays.asList(visible));
+
+        BatchPresenceChecker checker = new BatchPresenceChecker(driver, new ExtendedWebElement(By.id("missing"), "missing", driver),
+                new ExtendedWebElement(By.id("present"), "present", driver));
+
+        Assert.assertEquals(checker.check(true), new boolean[] { false, true });
+        verify((JavascriptExecutor) driver, times(1)).executeScript(anyString(), any());
+    }
+
+    @Test
+    public void testUnsupportedLocatorIsCheckedSeparately() {
+        WebDriver driver = mockDriver();
+        when(((JavascriptExecutor) driver).executeScript(anyString(), any())).thenReturn(Arrays.asList(true));
+        WebElement visible = mock(WebElement.class);
+        when(visible.isDisplayed()).thenReturn(true);
+        By custom = new By() {
+            @Override
+            public List<WebElement> findElements(SearchContext context) {
+                return context.findElements(By.id("custom"));
+            }
+
+            @Override
+            public String toString() {
+                return "By.id: custom";
+            }
+        };
+        when(driver.findElements(By.id("custom"))).thenReturn(Arrays.asList(visible));
+
+        BatchPresenceChecker checker = new BatchPresenceChecker(driver, new ExtendedWebElement(By.id("a"), "a", driver),
+                new ExtendedWebElement(custom, "custom", driver));
+
+        Assert.assertEquals(checker.check(true), new boolean[] { true, true });
+        verify((JavascriptExecutor) driver, times(1)).executeScript(anyString(), eq(Arrays.asList(Arrays.asList("id", "a"))));
+    }
+
+    private static WebDriver mockDriver() {
+        return mock(WebDriver.class, withSettings().extraInterfaces(JavascriptExecutor.class));
+    }
+}
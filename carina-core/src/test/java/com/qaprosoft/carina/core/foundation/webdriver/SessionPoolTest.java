@@ -0,0 +1,171 @@
+/*******************************************************************************
+ * Copyright 2013-2018 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.webdriver;
+
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.openqa.selenium.HasCapabilities;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.remote.DesiredCapabilities;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.qaprosoft.carina.core.foundation.utils.R;
+
+public class SessionPoolTest {
+    private static final String HOST = "http://localhost:4444/wd/hub";
+
+    // created sessions per driver name, background provisioning of the previous test may still be in progress
+    private final Map<String, List<WebDriver>> created = new ConcurrentHashMap<String, List<WebDriver>>();
+    // background provisioning fails while true
+    private volatile boolean provisioningFails;
+
+    private String poolSize;
+    private SessionPool.SessionFactory factory;
+
+    @BeforeClass
+    public void init() {
+        poolSize = R.CONFIG.get("session_pool_size");
+        R.CONFIG.put("session_pool_size", "1");
+        factory = SessionPool.factory;
+        SessionPool.factory = (name, capabilities, seleniumHost) -> {
+            if (provisioningFails && Thread.currentThread().getName().startsWith("session-provisioner")) {
+                throw new WebDriverException("Grid is not available");
+            }
+            WebDriver drv = mockDriver();
+            when(((HasCapabilities) drv).getCapabilities()).thenReturn(capabilities);
+            created(name).add(drv);
+            return drv;
+        };
+    }
+
+    @AfterMethod(alwaysRun = true)
+    public void cleanup() {
+        SessionPool.shutdown();
+        created.clear();
+        provisioningFails = false;
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void restore() {
+        // init could be skipped
+        if (factory != null) {
+            SessionPool.factory = factory;
+        }
+        if (poolSize != null) {
+            R.CONFIG.put("session_pool_size", poolSize);
+        }
+    }
+
+    @Test
+    public void testWarmSessionIsLeased() {
+        WebDriver first = SessionPool.lease("warm", DesiredCapabilities.chrome(), HOST);
+        Assert.assertSame(first, created("warm").get(0));
+        waitForIdle("warm", DesiredCapabilities.chrome(), 1);
+
+        WebDriver second = SessionPool.lease("warm", DesiredCapabilities.chrome(), HOST);
+        Assert.assertSame(second, created("warm").get(1), "Provisioned session is not leased");
+
+        // pool is already refilled so returned session is quit
+        waitForIdle("warm", DesiredCapabilities.chrome(), 1);
+        Assert.assertTrue(SessionPool.release(first));
+        verify(first).quit();
+        Assert.assertFalse(SessionPool.release(mockDriver()), "Not pooled session is released");
+    }
+
+    @Test
+    public void testReleasedSessionIsReused() {
+        provisioningFails = true;
+        WebDriver drv = SessionPool.lease("reuse", DesiredCapabilities.chrome(), HOST);
+        Assert.assertTrue(SessionPool.release(drv));
+        verify(drv, never()).quit();
+        verify(drv.manage()).deleteAllCookies();
+        verify(drv).get("about:blank");
+
+        Assert.assertSame(SessionPool.lease("reuse", DesiredCapabilities.chrome(), HOST), drv);
+        Assert.assertEquals(created("reuse").size(), 1);
+    }
+
+    @Test
+    public void testCapabilitiesMismatch() {
+        SessionPool.lease("caps", DesiredCapabilities.chrome(), HOST);
+        waitForIdle("caps", DesiredCapabilities.chrome(), 1);
+
+        WebDriver firefox = SessionPool.lease("caps", DesiredCapabilities.firefox(), HOST);
+        Assert.assertEquals(((HasCapabilities) firefox).getCapabilities().getBrowserName(), "firefox",
+                "Session with other capabilities is leased");
+        Assert.assertEquals(SessionPool.getIdleCount("caps", DesiredCapabilities.chrome(), HOST), 1);
+    }
+
+    @Test
+    public void testDeadSessionIsEvicted() {
+        SessionPool.lease("dead", DesiredCapabilities.chrome(), HOST);
+        waitForIdle("dead", DesiredCapabilities.chrome(), 1);
+        WebDriver dead = created("dead").get(1);
+        when(dead.getWindowHandle()).thenThrow(new WebDriverException("Session timed out or not found"));
+
+        WebDriver drv = SessionPool.lease("dead", DesiredCapabilities.chrome(), HOST);
+        Assert.assertNotSame(drv, dead);
+        Assert.assertSame(drv, created("dead").get(2));
+        verify(dead).quit();
+    }
+
+    private List<WebDriver> created(String name) {
+        return created.computeIfAbsent(name, k -> Collections.synchronizedList(new ArrayList<WebDriver>()));
+    }
+
+    private static void waitForIdle(String name, DesiredCapabilities capabilities, int count) {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (SessionPool.getIdleCount(name, capabilities, HOST) < count) {
+            if (System.currentTimeMillis() > deadline) {
+                Assert.fail("Session is not provisioned in background");
+            }
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                Assert.fail("Interrupted");
+            }
+        }
+    }
+
+    private static WebDriver mockDriver() {
+        WebDriver drv = mock(WebDriver.class, withSettings().extraInterfaces(JavascriptExecutor.class, HasCapabilities.class));
+        when(drv.getWindowHandle()).thenReturn("main");
+        when(drv.getWindowHandles()).thenReturn(Collections.singleton("main"));
+        WebDriver.TargetLocator locator = mock(WebDriver.TargetLocator.class);
+        when(locator.window(anyString())).thenReturn(drv);
+        when(drv.switchTo()).thenReturn(locator);
+        when(drv.manage()).thenReturn(mock(WebDriver.Options.class));
+        return drv;
+    }
+}
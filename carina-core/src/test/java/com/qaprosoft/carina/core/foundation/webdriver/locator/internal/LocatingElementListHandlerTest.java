@@ -0,0 +1,146 @@
+/*******************************************************************************
+ * Copyright 2013-2018 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.webdriver.locator.internal;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.openqa.selenium.By;
+import org.openqa.selenium.StaleElementReferenceException;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebElement;
+import org.openqa.selenium.support.pagefactory.ElementLocator;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.qaprosoft.carina.core.foundation.webdriver.decorator.ExtendedWebElement;
+
+public class LocatingElementListHandlerTest {
+    private static final By BY = By.cssSelector("tr");
+
+    @Test
+    public void testElementsAreWrappedWithoutText() {
+        WebElement first = mockElement("first");
+        WebElement second = mockElement("second");
+        ElementLocator locator = mock(ElementLocator.class);
+        when(locator.findElements()).thenReturn(Arrays.asList(first, second));
+
+        List<ExtendedWebElement> list = proxy(locator);
+        Assert.assertEquals(list.size(), 2);
+        ExtendedWebElement element = list.get(1);
+        Assert.assertSame(list.get(1), element);
+
+        // one findElements per list call and no getText calls
+        verify(locator, times(3)).findElements();
+        verify(first, never()).getText();
+        verify(second, never()).getText();
+
+        Assert.assertEquals(element.getName(), "second");
+        Assert.assertEquals(element.getName(), "second");
+        verify(second, times(1)).getText();
+    }
+
+    @Test
+    public void testGrowingList() {
+        WebElement first = mockElement("first");
+        WebElement added = mockElement("added");
+        ElementLocator locator = mock(ElementLocator.class);
+        when(locator.findElements()).thenReturn(Arrays.asList(first)).thenReturn(Arrays.asList(first, added));
+
+        List<ExtendedWebElement> list = proxy(locator);
+        ExtendedWebElement element = list.get(0);
+        List<ExtendedWebElement> rows = new ArrayList<ExtendedWebElement>(list);
+        Assert.assertEquals(rows.size(), 2);
+        Assert.assertSame(rows.get(0), element);
+        Assert.assertEquals(rows.get(1).getName(), "added");
+    }
+
+    @Test
+    public void testShrinkingList() {
+        WebElement first = mockElement("first");
+        WebElement removed = mockElement("removed");
+        WebElement last = mockElement("last");
+        ElementLocator locator = mock(ElementLocator.class);
+        when(locator.findElements()).thenReturn(Arrays.asList(first, removed, last)).thenReturn(Arrays.asList(first, last));
+
+        List<ExtendedWebElement> list = proxy(locator);
+        List<ExtendedWebElement> before = new ArrayList<ExtendedWebElement>(list);
+        Assert.assertEquals(before.size(), 3);
+        List<ExtendedWebElement> after = new ArrayList<ExtendedWebElement>(list);
+        Assert.assertEquals(after.size(), 2);
+        Assert.assertSame(after.get(0), before.get(0));
+        Assert.assertSame(after.get(1), before.get(2));
+        Assert.assertEquals(after.get(1).getName(), "last");
+    }
+
+    @Test
+    public void testEmptyListIsLocatedAgain() {
+        WebElement row = mockElement("row");
+        ElementLocator locator = mock(ElementLocator.class);
+        when(locator.findElements()).thenReturn(Collections.<WebElement> emptyList()).thenReturn(Arrays.asList(row));
+
+        List<ExtendedWebElement> list = proxy(locator);
+        Assert.assertTrue(list.isEmpty());
+        Assert.assertEquals(list.size(), 1);
+        verify(locator, times(2)).findElements();
+    }
+
+    @Test
+    public void testNameIsUpdatedForReusedElement() {
+        WebElement row = mock(WebElement.class);
+        when(row.getText()).thenReturn("first").thenReturn("changed");
+        ElementLocator locator = mock(ElementLocator.class);
+        when(locator.findElements()).thenReturn(Arrays.asList(row));
+
+        List<ExtendedWebElement> list = proxy(locator);
+        ExtendedWebElement element = list.get(0);
+        Assert.assertEquals(element.getName(), "first");
+        Assert.assertSame(list.get(0), element);
+        Assert.assertEquals(element.getName(), "changed");
+    }
+
+    @Test
+    public void testNameIsKeptWhenTextIsNotAvailable() {
+        WebElement element = mock(WebElement.class);
+        when(element.getText()).thenThrow(new StaleElementReferenceException("element is not attached to the page document"));
+        ElementLocator locator = mock(ElementLocator.class);
+        when(locator.findElements()).thenReturn(Arrays.asList(element));
+
+        Assert.assertEquals(proxy(locator).get(0).getName(), "rows");
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<ExtendedWebElement> proxy(ElementLocator locator) {
+        LocatingElementListHandler handler = new LocatingElementListHandler(mock(WebDriver.class), locator, "rows", BY);
+        return (List<ExtendedWebElement>) Proxy.newProxyInstance(LocatingElementListHandlerTest.class.getClassLoader(),
+                new Class[] { List.class }, handler);
+    }
+
+    private static WebElement mockElement(String text) {
+        WebElement element = mock(WebElement.class);
+        when(element.getText()).thenReturn(text);
+        return element;
+    }
+}
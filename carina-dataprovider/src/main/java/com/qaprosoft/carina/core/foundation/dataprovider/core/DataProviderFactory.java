@@ -15,6 +15,8 @@
  *******************************************************************************/
 package com.qaprosoft.carina.core.foundation.dataprovider.core;
 
+import java.io.Closeable;
+import java.io.IOException;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Method;
@@ -38,6 +40,9 @@ public class DataProviderFactory {
 
     protected static final Logger LOGGER = Logger.getLogger(DataProviderFactory.class);
 
+    // test context attribute with lazy data providers which may still keep data source open
+    private static final String LAZY_DATA_PROVIDERS = "lazy_data_providers";
+
     private DataProviderFactory() {
     }
 
@@ -56,30 +61,10 @@ public class DataProviderFactory {
 
         for (Annotation annotation : annotations) {
             try {
-                Class<? extends Annotation> type = annotation.annotationType();
-
-                String providerClass = "";
-
-                for (Method method : type.getDeclaredMethods()) {
-                    if (method.getName().equalsIgnoreCase("classname")) {
-                        providerClass = (String) method.invoke(annotation);
-                        break;
-                    }
-                }
-
-                if (providerClass.isEmpty())
+                Object object = createProvider(annotation);
+                if (object == null)
                     continue;
 
-                Class<?> clazz;
-                Object object = null;
-                try {
-                    clazz = Class.forName(providerClass);
-                    Constructor<?> ctor = clazz.getConstructor();
-                    object = ctor.newInstance();
-                } catch (Exception e) {
-                    e.printStackTrace();
-                }
-
                 BaseDataProvider activeProvider = (BaseDataProvider) object;
                 if (object instanceof com.qaprosoft.carina.core.foundation.dataprovider.core.impl.BaseDataProvider) {
                     provider = ArrayUtils.addAll(provider, activeProvider.getDataProvider(annotation, context, m));
@@ -120,6 +105,148 @@ public class DataProviderFactory {
         return provider;
     }
 
+    /**
+     * Returns data provider rows as iterator. Streaming providers (CSV) read and convert data source rows only when
+     * TestNG requests the next invocation. Rows of doNotRunTestNames tests are excluded. Grouped data sources
+     * (groupColumn) are read completely as grouping requires all rows.
+     *
+     * @param annotations - test method annotations
+     * @param context - ITestContext
+     * @param m - ITestNGMethod
+     * @return Iterator of test arguments
+     */
+    public static Iterator<Object[]> getLazyDataProvider(Annotation[] annotations, ITestContext context, ITestNGMethod m) {
+        BaseDataProvider mainProvider = null;
+        List<String> doNotRunTests = Collections.synchronizedList(new ArrayList<>());
+        List<Iterator<Object[]>> iterators = new ArrayList<Iterator<Object[]>>();
+
+        for (Annotation annotation : annotations) {
+            try {
+                Object object = createProvider(annotation);
+                if (object instanceof BaseDataProvider) {
+                    BaseDataProvider activeProvider = (BaseDataProvider) object;
+                    if (mainProvider == null) {
+                        mainProvider = activeProvider;
+                    } else {
+                        // all providers register rows attributes in the same maps as rows are read lazily
+                        activeProvider.shareArgsMaps(mainProvider);
+                    }
+                    Iterator<Object[]> iterator = activeProvider.getLazyDataProvider(annotation, context, m);
+                    if (iterator instanceof Closeable) {
+                        getLazyDataProviders(context).add((Closeable) iterator);
+                    }
+                    iterators.add(iterator);
+                    doNotRunTests.addAll(activeProvider.getDoNotRunRowsIDs());
+                }
+            } catch (Exception e) {
+                e.printStackTrace();
+                // do nothing
+            }
+        }
+
+        Iterator<Object[]> provider = new Iterator<Object[]>() {
+            private int current = 0;
+
+            @Override
+            public boolean hasNext() {
+                while (current < iterators.size() && !iterators.get(current).hasNext()) {
+                    current++;
+                }
+                return current < iterators.size();
+            }
+
+            @Override
+            public Object[] next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return iterators.get(current).next();
+            }
+        };
+
+        if (!GroupByMapper.getInstanceInt().isEmpty() || !GroupByMapper.getInstanceStrings().isEmpty()) {
+            List<Object[]> rows = new ArrayList<Object[]>();
+            provider.forEachRemaining(rows::add);
+            provider = Arrays.asList(getGroupedList(rows.toArray(new Object[rows.size()][]))).iterator();
+        }
+
+        if (mainProvider != null) {
+            context.setAttribute(SpecialKeywords.TEST_NAME_ARGS_MAP, mainProvider.getTestNameArgsMap());
+            context.setAttribute(SpecialKeywords.CANONICAL_TEST_NAME_ARGS_MAP, mainProvider.getCanonicalTestNameArgsMap());
+            context.setAttribute(SpecialKeywords.TEST_METHOD_NAME_ARGS_MAP, mainProvider.getTestMethodNameArgsMap());
+            context.setAttribute(SpecialKeywords.TEST_METHOD_OWNER_ARGS_MAP, mainProvider.getTestMethodOwnerArgsMap());
+            context.setAttribute(SpecialKeywords.JIRA_ARGS_MAP, mainProvider.getJiraArgsMap());
+            context.setAttribute(SpecialKeywords.TESTRAIL_ARGS_MAP, mainProvider.getTestRailsArgsMap());
+            context.setAttribute(SpecialKeywords.BUG_ARGS_MAP, mainProvider.getBugArgsMap());
+        }
+        context.setAttribute(SpecialKeywords.DO_NOT_RUN_TESTS, doNotRunTests);
+
+        // clear group by settings
+        GroupByMapper.getInstanceInt().clear();
+        GroupByMapper.getInstanceStrings().clear();
+
+        return provider;
+    }
+
+    /**
+     * Closes data sources of lazy data providers which were not read to the end, e.g. TestNG stopped iteration because
+     * of failed configuration.
+     *
+     * @param context - ITestContext
+     */
+    public static void closeLazyDataProviders(ITestContext context) {
+        List<Closeable> providers = getLazyDataProviders(context);
+        synchronized (providers) {
+            for (Closeable provider : providers) {
+                try {
+                    provider.close();
+                } catch (IOException e) {
+                    LOGGER.debug("Unable to close data provider.", e);
+                }
+            }
+            providers.clear();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Closeable> getLazyDataProviders(ITestContext context) {
+        synchronized (context) {
+            Object providers = context.getAttribute(LAZY_DATA_PROVIDERS);
+            if (providers == null) {
+                providers = Collections.synchronizedList(new ArrayList<Closeable>());
+                context.setAttribute(LAZY_DATA_PROVIDERS, providers);
+            }
+            return (List<Closeable>) providers;
+        }
+    }
+
+    private static Object createProvider(Annotation annotation) throws Exception {
+        Class<? extends Annotation> type = annotation.annotationType();
+
+        String providerClass = "";
+
+        for (Method method : type.getDeclaredMethods()) {
+            if (method.getName().equalsIgnoreCase("classname")) {
+                providerClass = (String) method.invoke(annotation);
+                break;
+            }
+        }
+
+        if (providerClass.isEmpty())
+            return null;
+
+        Class<?> clazz;
+        Object object = null;
+        try {
+            clazz = Class.forName(providerClass);
+            Constructor<?> ctor = clazz.getConstructor();
+            object = ctor.newInstance();
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        return object;
+    }
+
     private static Object[][] getGroupedList(Object[][] provider) {
         Object[][] finalProvider;
         if (GroupByMapper.isHashMapped()) {
@@ -140,22 +267,48 @@ public class DataProviderFactory {
         return finalProvider;
     }
 
+    /**
+     * Rebuilds data provider for rerun: rows marked as "do not run" are removed and when failed rows of the previous run
+     * are known (see {@link FailedRowsRegistry}) only those rows are kept. Rows are filtered in a single pass by
+     * fingerprint of their arguments.
+     *
+     * @param annotations - test method annotations
+     * @param context - test context
+     * @param m - test method
+     * @return Object[][] rows to execute
+     */
     @SuppressWarnings("unchecked")
     public static Object[][] getNeedRerunDataProvider(Annotation[] annotations, ITestContext context, ITestNGMethod m) {
         Object[][] dp = getDataProvider(annotations, context, m);
+
         List<String> doNotRunRowIDs = (List<String>) context.getAttribute(SpecialKeywords.DO_NOT_RUN_TESTS);
+        Set<String> doNotRun = doNotRunRowIDs != null ? new HashSet<String>(doNotRunRowIDs) : Collections.<String> emptySet();
         Map<String, String> testNameArgsMap = (Map<String, String>) context.getAttribute(SpecialKeywords.CANONICAL_TEST_NAME_ARGS_MAP);
-        if (!doNotRunRowIDs.isEmpty()) {
-            for (int i = dp.length - 1; i >= 0; i--) {
-                String testUniqueName = testNameArgsMap.get(testNameArgsMap.keySet().toArray()[i]);
-                if (testUniqueName != null) {
-                    if (doNotRunRowIDs.contains(testUniqueName)) {
-                        dp = ArrayUtils.remove(dp, i);
-                    }
-                }
+        Set<String> failedRows = FailedRowsRegistry.getPreviousFailures(m);
+        if (doNotRun.isEmpty() && failedRows == null) {
+            return dp;
+        }
+
+        List<Object[]> rows = new ArrayList<Object[]>(dp.length);
+        for (Object[] row : dp) {
+            String fingerprint = FailedRowsRegistry.getFingerprint(row);
+            if (failedRows != null && !failedRows.contains(fingerprint)) {
+                continue;
+            }
+            String testUniqueName = testNameArgsMap != null ? testNameArgsMap.get(fingerprint) : null;
+            if (testUniqueName != null && doNotRun.contains(testUniqueName)) {
+                continue;
+            }
+            rows.add(row);
+        }
+        if (failedRows != null) {
+            LOGGER.info(String.format("%d of %d rows are selected for rerun of %s", rows.size(), dp.length, m.getMethodName()));
+            if (rows.size() < failedRows.size()) {
+                LOGGER.warn(String.format("%d failed rows of %s are not found in data provider, probably rows contain generated values",
+                        failedRows.size() - rows.size(), m.getMethodName()));
             }
         }
-        return dp;
+        return rows.toArray(new Object[rows.size()][]);
     }
 
 }
@@ -0,0 +1,152 @@
+/*******************************************************************************
+ * Copyright 2013-2018 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.dataprovider.core;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.log4j.Logger;
+import org.testng.ITestNGMethod;
+
+import com.qaprosoft.carina.core.foundation.utils.Configuration;
+import com.qaprosoft.carina.core.foundation.utils.Configuration.Parameter;
+
+/**
+ * Registry of failed data provider rows used to rerun only failed rows of data-driven tests. Row is identified by
+ * fingerprint of its arguments (the same Arrays.hashCode key that is used by args maps of data providers).
+ *
+ * When data_provider_rerun_file is specified rows recorded by the previous run are loaded from this file on start and
+ * failed or skipped rows of the current run are saved into it, so every next run executes only rows failed in the previous
+ * one. Methods without failures are not saved, so they are executed completely as well as methods which were not
+ * executed in the previous run. Fingerprints of rows with generated
+ * values (e.g. UUID) are different in every run so such rows can't be selected.
+ */
+public final class FailedRowsRegistry {
+    private static final Logger LOGGER = Logger.getLogger(FailedRowsRegistry.class);
+
+    // fingerprints of failed rows by test method
+    private static final Map<String, Set<String>> failedRows = new ConcurrentHashMap<String, Set<String>>();
+
+    private static final Map<String, Set<String>> previousFailedRows = load(getFile());
+
+    private FailedRowsRegistry() {
+    }
+
+    public static String getFingerprint(Object[] row) {
+        return String.valueOf(Arrays.hashCode(row));
+    }
+
+    /**
+     * Registers failed or skipped row of the method.
+     *
+     * @param method
+     *            - test method
+     * @param row
+     *            - test arguments
+     */
+    public static void registerFailure(ITestNGMethod method, Object[] row) {
+        getRows(getMethodKey(method)).add(getFingerprint(row));
+    }
+
+    /**
+     * Fingerprints of rows failed in the previous run.
+     *
+     * @param method
+     *            - test method
+     * @return fingerprints or null if all rows should be executed
+     */
+    public static Set<String> getPreviousFailures(ITestNGMethod method) {
+        return previousFailedRows.get(getMethodKey(method));
+    }
+
+    /**
+     * Saves failed rows of the current run into data_provider_rerun_file if it is specified.
+     */
+    public static synchronized void save() {
+        File file = getFile();
+        if (file != null) {
+            save(file);
+        }
+    }
+
+    static void save(File file) {
+        Properties properties = new Properties();
+        for (Map.Entry<String, Set<String>> entry : failedRows.entrySet()) {
+            synchronized (entry.getValue()) {
+                properties.setProperty(entry.getKey(), StringUtils.join(entry.getValue(), ","));
+            }
+        }
+        try (OutputStream out = new FileOutputStream(file)) {
+            properties.store(out, "Failed data provider rows");
+        } catch (IOException e) {
+            LOGGER.error("Unable to save failed data provider rows into " + file.getAbsolutePath(), e);
+        }
+    }
+
+    static Map<String, Set<String>> load(File file) {
+        if (file == null || !file.exists()) {
+            return Collections.emptyMap();
+        }
+        Properties properties = new Properties();
+        try (InputStream in = new FileInputStream(file)) {
+            properties.load(in);
+        } catch (IOException e) {
+            LOGGER.error("Unable to load failed data provider rows from " + file.getAbsolutePath(), e);
+            return Collections.emptyMap();
+        }
+        Map<String, Set<String>> rows = new ConcurrentHashMap<String, Set<String>>();
+        for (String method : properties.stringPropertyNames()) {
+            String value = properties.getProperty(method);
+            Set<String> fingerprints = new HashSet<String>();
+            if (!value.isEmpty()) {
+                fingerprints.addAll(Arrays.asList(value.split(",")));
+            }
+            rows.put(method, fingerprints);
+        }
+        LOGGER.info("Failed data provider rows of " + rows.size() + " methods are loaded from " + file.getAbsolutePath());
+        return rows;
+    }
+
+    private static Set<String> getRows(String method) {
+        Set<String> rows = failedRows.get(method);
+        if (rows == null) {
+            failedRows.putIfAbsent(method, Collections.synchronizedSet(new HashSet<String>()));
+            rows = failedRows.get(method);
+        }
+        return rows;
+    }
+
+    private static String getMethodKey(ITestNGMethod method) {
+        return method.getRealClass().getName() + "." + method.getMethodName();
+    }
+
+    private static File getFile() {
+        String path = Configuration.get(Parameter.DATA_PROVIDER_RERUN_FILE);
+        return path.isEmpty() ? null : new File(path);
+    }
+}
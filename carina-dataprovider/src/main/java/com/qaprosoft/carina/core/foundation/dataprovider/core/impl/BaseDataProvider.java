@@ -16,8 +16,11 @@
 package com.qaprosoft.carina.core.foundation.dataprovider.core.impl;
 
 import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 
@@ -50,6 +53,46 @@ public abstract class BaseDataProvider {
 
     public abstract Object[][] getDataProvider(Annotation annotation, ITestContext context, ITestNGMethod testMethod);
 
+    /**
+     * Returns data provider rows as iterator excluding rows of doNotRunTestNames tests. Test names and other row
+     * attributes are registered in args maps not later than the row is returned by iterator.
+     * Default implementation reads the whole data source, providers supporting streaming override it.
+     *
+     * @param annotation - data source annotation
+     * @param context - ITestContext
+     * @param testMethod - ITestNGMethod
+     * @return Iterator of test arguments
+     */
+    public Iterator<Object[]> getLazyDataProvider(Annotation annotation, ITestContext context, ITestNGMethod testMethod) {
+        Object[][] rows = getDataProvider(annotation, context, testMethod);
+        if (doNotRunTestNames == null || doNotRunTestNames.isEmpty()) {
+            return Arrays.asList(rows).iterator();
+        }
+        List<Object[]> filtered = new ArrayList<Object[]>(rows.length);
+        for (Object[] row : rows) {
+            String canonicalTestName = canonicalTestNameArgsMap.get(String.valueOf(Arrays.hashCode(row)));
+            if (canonicalTestName == null || !doNotRunTestNames.contains(canonicalTestName)) {
+                filtered.add(row);
+            }
+        }
+        return filtered.iterator();
+    }
+
+    /**
+     * Makes this provider to register test names and other row attributes in args maps of another provider.
+     *
+     * @param provider - provider which args maps are used
+     */
+    public void shareArgsMaps(BaseDataProvider provider) {
+        this.testNameArgsMap = provider.testNameArgsMap;
+        this.testMethodNameArgsMap = provider.testMethodNameArgsMap;
+        this.canonicalTestNameArgsMap = provider.canonicalTestNameArgsMap;
+        this.testMethodOwnerArgsMap = provider.testMethodOwnerArgsMap;
+        this.jiraArgsMap = provider.jiraArgsMap;
+        this.testRailsArgsMap = provider.testRailsArgsMap;
+        this.bugArgsMap = provider.bugArgsMap;
+    }
+
     protected static Object getStaticParam(String name, ITestContext context, DSBean dsBean) {
         return ParameterGenerator.process(dsBean
                 .getTestParams().get(name));
@@ -15,6 +15,7 @@
  *******************************************************************************/
 package com.qaprosoft.carina.core.foundation.dataprovider.core.impl;
 
+import java.io.Closeable;
 import java.io.FileReader;
 import java.io.IOException;
 import java.lang.annotation.Annotation;
@@ -27,6 +28,7 @@ import org.testng.ITestNGMethod;
 import com.qaprosoft.carina.core.foundation.dataprovider.annotations.CsvDataSourceParameters;
 import com.qaprosoft.carina.core.foundation.dataprovider.core.groupping.GroupByMapper;
 import com.qaprosoft.carina.core.foundation.dataprovider.parser.DSBean;
+import com.qaprosoft.carina.core.foundation.dataprovider.parser.DataSourceCache;
 import com.qaprosoft.carina.core.foundation.utils.ParameterGenerator;
 import com.qaprosoft.carina.core.foundation.utils.naming.TestNamingUtil;
 
@@ -48,21 +50,51 @@ public class CsvDataProvider extends BaseDataProvider {
     private String testMethodOwnerColumn;
     private String bugColumn;
 
-    @SuppressWarnings("unchecked")
+    private List<String> headers;
+    private DSBean dsBean;
+
     @Override
     public Object[][] getDataProvider(Annotation annotation, ITestContext context, ITestNGMethod testMethod) {
-        CsvDataSourceParameters parameters = (CsvDataSourceParameters) annotation;
-        doNotRunTestNames = Arrays.asList(parameters.doNotRunTestNames());
+        List<Object[]> rows = new ArrayList<Object[]>();
+        try (CsvLines lines = open((CsvDataSourceParameters) annotation, context)) {
+            while (lines.hasNext()) {
+                String[] line = lines.next();
+                if (isExecutable(line)) {
+                    rows.add(createRow(line, context, testMethod, false));
+                }
+            }
+        }
+        return rows.toArray(new Object[rows.size()][]);
+    }
 
-        DSBean dsBean = new DSBean(parameters, context.getCurrentXmlTest().getAllParameters());
+    /**
+     * Streams data source rows: each line is read, filtered by executeColumn/executeValue and doNotRunTestNames and
+     * converted to test arguments only when TestNG requests the next invocation, so memory usage doesn't depend on
+     * data source size (except parsed table loaded from DataSourceCache). CSV file is closed when the last row is read,
+     * when reading fails or when returned iterator is closed, e.g. by
+     * {@link com.qaprosoft.carina.core.foundation.dataprovider.core.DataProviderFactory#closeLazyDataProviders(ITestContext)}
+     * if TestNG stopped iteration earlier.
+     */
+    @Override
+    public Iterator<Object[]> getLazyDataProvider(Annotation annotation, ITestContext context, ITestNGMethod testMethod) {
+        return new LazyRows(open((CsvDataSourceParameters) annotation, context), context, testMethod);
+    }
 
-        char separator, quote;
+    /**
+     * Reads data source settings and CSV header.
+     *
+     * @return data lines of CSV source
+     */
+    private CsvLines open(CsvDataSourceParameters parameters, ITestContext context) {
+        doNotRunTestNames = Arrays.asList(parameters.doNotRunTestNames());
+
+        dsBean = new DSBean(parameters, context.getCurrentXmlTest().getAllParameters());
 
         executeColumn = dsBean.getExecuteColumn();
         executeValue = dsBean.getExecuteValue();
 
-        separator = parameters.separator();
-        quote = parameters.quote();
+        char separator = parameters.separator();
+        char quote = parameters.quote();
 
         jiraColumn = parameters.jiraColumn();
         testRailColumn = parameters.testRailColumn();
@@ -70,8 +102,8 @@ public class CsvDataProvider extends BaseDataProvider {
         testMethodOwnerColumn = parameters.testMethodOwnerColumn();
         bugColumn = parameters.bugColumn();
 
-        List<String> argsList = dsBean.getArgs();
-        List<String> staticArgsList = dsBean.getStaticArgs();
+        argsList = dsBean.getArgs();
+        staticArgsList = dsBean.getStaticArgs();
 
         String groupByParameter = parameters.groupColumn();
         if (!groupByParameter.isEmpty()) {
@@ -82,40 +114,90 @@ public class CsvDataProvider extends BaseDataProvider {
         if (parameters.dsArgs().isEmpty()) {
             GroupByMapper.setIsHashMapped(true);
         }
-        CSVReader reader;
-        List<String[]> list = new ArrayList<String[]>();
 
-        try {
-            String csvFile = ClassLoader.getSystemResource(dsBean.getDsFile()).getFile();
-            reader = new CSVReader(new FileReader(csvFile), separator, quote);
-            list = reader.readAll();
-        } catch (IOException e) {
-            LOGGER.error("Unable to read data from CSV DataProvider", e.getCause());
-            e.printStackTrace();
+        String[] header = null;
+        CsvLines lines = null;
+        String csvFile = ClassLoader.getSystemResource(dsBean.getDsFile()).getFile();
+        if (DataSourceCache.isEnabled()) {
+            DataSourceCache.Table table = DataSourceCache.get(DataSourceCache.getResourceFile(dsBean.getDsFile()),
+                    "csv!" + separator + quote, () -> readTable(csvFile, separator, quote));
+            if (table != null && table.getRows().length > 0) {
+                String[][] rows = table.getRows();
+                header = rows[0];
+                lines = new CsvLines(Arrays.asList(rows).subList(1, rows.length).iterator());
+            }
+        } else {
+            CSVReader reader = null;
+            try {
+                reader = new CSVReader(new FileReader(csvFile), separator, quote);
+                header = reader.readNext();
+                lines = new CsvLines(reader);
+            } catch (IOException e) {
+                closeQuietly(reader);
+                LOGGER.error("Unable to read data from CSV DataProvider", e.getCause());
+                e.printStackTrace();
+            }
         }
 
-        if (list.size() == 0) {
+        if (header == null) {
+            if (lines != null) {
+                lines.close();
+            }
             throw new RuntimeException("Unable to retrieve data from CSV DataProvider! Verify separator and quote settings.");
         }
-        List<String> headers = Arrays.asList((String[]) list.get(0));
+        headers = Arrays.asList(header);
 
         // handle empty argsList inside initMapper
         mapper = initMapper(argsList, headers);
-        list.remove(0);
+        return lines;
+    }
 
-        // exclude those lines which don't satisfy executeColumn/executeValue filter
-        Iterator<String[]> iter = list.iterator();
-        while (iter.hasNext()) {
-            int index = mapper.get(executeColumn);
+    /**
+     * Reads the whole CSV source for {@link DataSourceCache}.
+     */
+    @SuppressWarnings("unchecked")
+    private static DataSourceCache.Table readTable(String csvFile, char separator, char quote) {
+        CSVReader reader = null;
+        try {
+            reader = new CSVReader(new FileReader(csvFile), separator, quote);
+            List<String[]> lines = reader.readAll();
+            return new DataSourceCache.Table(csvFile, lines.toArray(new String[lines.size()][]));
+        } catch (IOException e) {
+            LOGGER.error("Unable to read data from CSV DataProvider", e);
+            return null;
+        } finally {
+            closeQuietly(reader);
+        }
+    }
 
-            String[] line = iter.next();
-            if (!line[index].equalsIgnoreCase(executeValue)) {
-                iter.remove();
+    /**
+     * Exclude those lines which don't satisfy executeColumn/executeValue filter.
+     */
+    private boolean isExecutable(String[] line) {
+        return line[mapper.get(executeColumn)].equalsIgnoreCase(executeValue);
+    }
+
+    /**
+     * Converts CSV line to test arguments and registers test name, owner, jira, bug and testrail values for it.
+     *
+     * @param line - CSV line
+     * @param context - ITestContext
+     * @param testMethod - ITestNGMethod
+     * @param skipDoNotRun - return null for tests listed in doNotRunTestNames
+     * @return test arguments or null if test is skipped
+     */
+    private Object[] createRow(String[] line, ITestContext context, ITestNGMethod testMethod, boolean skipDoNotRun) {
+        String testName = context.getName();
+
+        // processed values of all used columns
+        Map<String, String> csvRow = new HashMap<String, String>();
+        for (Map.Entry<String, Integer> column : mapper.entrySet()) {
+            if (column.getValue() != -1) {
+                Object value = ParameterGenerator.process(line[column.getValue()]);
+                csvRow.put(column.getKey(), value != null ? value.toString() : null);
             }
         }
 
-        int listSize = list.size();
-
         int width = 0;
         if (argsList.size() == 0) {
             // first element is dynamic HashMap<String, String>
@@ -124,74 +206,180 @@ public class CsvDataProvider extends BaseDataProvider {
             width = argsList.size() + staticArgsList.size();
         }
 
-        Object[][] args = new Object[listSize][width];
-        int rowIndex = 0;
-        for (String[] strings : list) {
-            String testName = context.getName();
+        Object[] args = new Object[width];
+        int i = 0;
+        if (argsList.size() == 0) {
+            // read all csv data into the single HashMap<String, String> object
+            HashMap<String, String> dynamicAttrs = new HashMap<String, String>();
+            for (String header : headers) {
+                dynamicAttrs.put(header, csvRow.get(header));
+            }
+            args[0] = dynamicAttrs;
+            i++;
+        } else {
+            for (String arg : argsList) {
+                args[i] = csvRow.get(arg);
+                i++;
+            }
+        }
 
-            int i = 0;
-            if (argsList.size() == 0) {
-                // read all csv data into the single HashMap<String, String> object
-                HashMap<String, String> dynamicAttrs = new HashMap<String, String>();
+        for (int j = 0; j < staticArgsList.size(); j++) {
+            args[i + j] = getStaticParam(staticArgsList.get(j), context, dsBean);
+        }
 
-                for (String header : headers) {
-                    int index = mapper.get(header);
-                    if (ParameterGenerator.process(strings[index]) != null) {
-                        dynamicAttrs.put(header, ParameterGenerator.process(strings[index]).toString());
-                    } else {
-                        dynamicAttrs.put(header, null);
-                    }
+        // update testName adding UID values from DataSource arguments if any
+        testName = dsBean.setDataSorceUUID(testName, line, mapper); // provide whole line from data provider for UUID generation
 
-                    args[rowIndex][0] = dynamicAttrs;
-                }
+        String canonicalTestName = TestNamingUtil.appendTestMethodName(testName, testMethod);
+        if (skipDoNotRun && doNotRunTestNames.contains(canonicalTestName)) {
+            LOGGER.debug("Skipped data provider row for test: " + canonicalTestName);
+            return null;
+        }
 
-                i++;
-            } else {
-                for (String arg : argsList) {
-                    int index = mapper.get(arg);
-                    if (ParameterGenerator.process(strings[index]) != null) {
-                        args[rowIndex][i] = ParameterGenerator.process(strings[index]).toString();
-                    } else {
-                        args[rowIndex][i] = null;
-                    }
-                    i++;
-                }
-            }
+        // provide organized args to generate valid hash
+        String hashCode = String.valueOf(Arrays.hashCode(args));
+
+        canonicalTestNameArgsMap.put(hashCode, canonicalTestName);
+        if (testMethodColumn.isEmpty()) {
+            testNameArgsMap.put(hashCode, testName);
+        } else {
+            // add testName value from csv datasource to special hashMap
+            addValueToSpecialMap(testNameArgsMap, testMethodColumn, hashCode, csvRow);
+            addValueToSpecialMap(testMethodNameArgsMap, testMethodColumn, hashCode, csvRow);
+        }
+
+        // add testMethoOwner from xls datasource to special hashMap
+        addValueToSpecialMap(testMethodOwnerArgsMap, testMethodOwnerColumn, hashCode, csvRow);
+
+        // add jira ticket from xls datasource to special hashMap
+        addValueToSpecialMap(jiraArgsMap, jiraColumn, hashCode, csvRow);
 
-            for (int j = 0; j < staticArgsList.size(); j++) {
-                args[rowIndex][i + j] = getStaticParam(staticArgsList.get(j), context, dsBean);
+        // add bug id from csv datasource to special hashMap
+        addValueToSpecialMap(bugArgsMap, bugColumn, hashCode, csvRow);
+
+        // add testrails cases from xls datasource to special hashMap
+        addValueToSpecialMap(testRailsArgsMap, testRailColumn, hashCode, csvRow);
+
+        return args;
+    }
+
+    private static void closeQuietly(CSVReader reader) {
+        try {
+            if (reader != null) {
+                reader.close();
             }
+        } catch (IOException e) {
+            LOGGER.debug("Unable to close CSV DataProvider reader.", e);
+        }
+    }
 
-            // update testName adding UID values from DataSource arguments if any
-            testName = dsBean.setDataSorceUUID(testName, strings, mapper); // provide whole line from data provider for UUID generation
+    /**
+     * Data lines of CSV source read one by one from the file (reader is closed after the last line or on failure) or
+     * taken from the table loaded by {@link DataSourceCache}.
+     */
+    private static class CsvLines implements Iterator<String[]>, Closeable {
+        private final CSVReader reader;
+        private final Iterator<String[]> cachedLines;
+        private String[] next;
+        private boolean finished;
+
+        CsvLines(CSVReader reader) {
+            this.reader = reader;
+            this.cachedLines = null;
+        }
 
-            HashMap<String, String> csvRow = (HashMap<String, String>) args[rowIndex][0];
+        CsvLines(Iterator<String[]> cachedLines) {
+            this.reader = null;
+            this.cachedLines = cachedLines;
+        }
 
-            canonicalTestNameArgsMap.put(String.valueOf(Arrays.hashCode(args[rowIndex])), TestNamingUtil.appendTestMethodName(testName, testMethod));
-            if (testMethodColumn.isEmpty()) {
-                testNameArgsMap.put(String.valueOf(Arrays.hashCode(args[rowIndex])), testName); // provide organized args to generate valid hash
-            } else {
-                // add testName value from csv datasource to special hashMap
-                addValueToSpecialMap(testNameArgsMap, testMethodColumn, String.valueOf(Arrays.hashCode(args[rowIndex])), csvRow);
-                addValueToSpecialMap(testMethodNameArgsMap, testMethodColumn, String.valueOf(Arrays.hashCode(args[rowIndex])), csvRow);
+        @Override
+        public boolean hasNext() {
+            if (cachedLines != null) {
+                return cachedLines.hasNext();
+            }
+            if (next == null && !finished) {
+                try {
+                    next = reader.readNext();
+                } catch (IOException e) {
+                    close();
+                    throw new RuntimeException("Unable to read data from CSV DataProvider!", e);
+                }
+                if (next == null) {
+                    close();
+                }
             }
+            return next != null;
+        }
 
-            // add testMethoOwner from xls datasource to special hashMap
-            addValueToSpecialMap(testMethodOwnerArgsMap, testMethodOwnerColumn, String.valueOf(Arrays.hashCode(args[rowIndex])), csvRow);
+        @Override
+        public String[] next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            if (cachedLines != null) {
+                return cachedLines.next();
+            }
+            String[] line = next;
+            next = null;
+            return line;
+        }
 
-            // add jira ticket from xls datasource to special hashMap
-            addValueToSpecialMap(jiraArgsMap, jiraColumn, String.valueOf(Arrays.hashCode(args[rowIndex])), csvRow);
+        @Override
+        public void close() {
+            finished = true;
+            closeQuietly(reader);
+        }
+    }
 
-            // add bug id from csv datasource to special hashMap
-            addValueToSpecialMap(bugArgsMap, bugColumn, String.valueOf(Arrays.hashCode(args[rowIndex])), csvRow);
+    /**
+     * Test arguments converted from CSV lines on demand. Lines are closed when conversion of a line fails.
+     */
+    private class LazyRows implements Iterator<Object[]>, Closeable {
+        private final CsvLines lines;
+        private final ITestContext context;
+        private final ITestNGMethod testMethod;
+        private Object[] next;
+
+        LazyRows(CsvLines lines, ITestContext context, ITestNGMethod testMethod) {
+            this.lines = lines;
+            this.context = context;
+            this.testMethod = testMethod;
+        }
 
-            // add testrails cases from xls datasource to special hashMap
-            addValueToSpecialMap(testRailsArgsMap, testRailColumn, String.valueOf(Arrays.hashCode(args[rowIndex])), csvRow);
+        @Override
+        public boolean hasNext() {
+            boolean success = false;
+            try {
+                while (next == null && lines.hasNext()) {
+                    String[] line = lines.next();
+                    if (isExecutable(line)) {
+                        next = createRow(line, context, testMethod, true);
+                    }
+                }
+                success = true;
+            } finally {
+                if (!success) {
+                    lines.close();
+                }
+            }
+            return next != null;
+        }
 
-            rowIndex++;
+        @Override
+        public Object[] next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            Object[] row = next;
+            next = null;
+            return row;
         }
 
-        return args;
+        @Override
+        public void close() {
+            lines.close();
+        }
     }
 
     /*
@@ -0,0 +1,247 @@
+/*******************************************************************************
+ * Copyright 2013-2018 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.dataprovider.parser;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+
+import org.apache.log4j.Logger;
+
+import com.qaprosoft.carina.core.foundation.utils.Configuration;
+import com.qaprosoft.carina.core.foundation.utils.Configuration.Parameter;
+
+/**
+ * On-disk cache of parsed data source tables shared between runs and parallel JVMs. Enabled by data_provider_cache_dir
+ * parameter.
+ *
+ * Every table is stored in a separate binary file named by hash of the source path and the parse settings (variant).
+ * File header contains length and CRC32 checksum of the source so cached table is used only while source content is
+ * the same, otherwise source is parsed again and the cache file is replaced. Cache files are written into temporary
+ * files and moved so concurrent JVMs never read partially written table. Cached tables are read by memory mapping.
+ *
+ * Format: magic, version, source length, source checksum, variant, table name, row count and for every row cell count
+ * (-1 for missing row) followed by cells as UTF-8 length (-1 for null) and bytes.
+ */
+public final class DataSourceCache {
+    private static final Logger LOGGER = Logger.getLogger(DataSourceCache.class);
+
+    private static final int MAGIC = 0x43445343;
+    private static final int VERSION = 1;
+
+    private DataSourceCache() {
+    }
+
+    /**
+     * Parsed data source table.
+     */
+    public static final class Table {
+        private final String name;
+        private final String[][] rows;
+
+        public Table(String name, String[][] rows) {
+            this.name = name;
+            this.rows = rows;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        /**
+         * @return cell values by rows, missing rows are null
+         */
+        public String[][] getRows() {
+            return rows;
+        }
+    }
+
+    public static boolean isEnabled() {
+        return !Configuration.get(Parameter.DATA_PROVIDER_CACHE_DIR).isEmpty();
+    }
+
+    /**
+     * Returns table of the data source from the cache or parses the source and caches the result. Loader is called
+     * directly if the cache is disabled or the source is not a plain file.
+     *
+     * @param source
+     *            - data source file or null
+     * @param variant
+     *            - parse settings affecting the result, e.g. sheet name or separator
+     * @param loader
+     *            - parser of the source, null result is not cached
+     * @return Table
+     */
+    public static Table get(File source, String variant, Supplier<Table> loader) {
+        if (source == null || !source.isFile() || !isEnabled()) {
+            return loader.get();
+        }
+        File dir = new File(Configuration.get(Parameter.DATA_PROVIDER_CACHE_DIR));
+        File file = new File(dir, String.format("%08x_%08x.bin", source.getAbsolutePath().hashCode(), variant.hashCode()));
+        long checksum;
+        try {
+            checksum = checksum(source);
+        } catch (IOException e) {
+            LOGGER.warn("Unable to calculate checksum of " + source.getAbsolutePath(), e);
+            return loader.get();
+        }
+
+        if (file.exists()) {
+            try {
+                Table table = read(file, source.length(), checksum, variant);
+                if (table != null) {
+                    LOGGER.debug("Data source table is loaded from cache: " + file.getAbsolutePath());
+                    return table;
+                }
+            } catch (IOException | RuntimeException e) {
+                LOGGER.warn("Unable to read data source cache " + file.getAbsolutePath(), e);
+            }
+        }
+
+        Table table = loader.get();
+        if (table != null) {
+            try {
+                write(dir, file, source.length(), checksum, variant, table);
+            } catch (IOException e) {
+                LOGGER.warn("Unable to write data source cache " + file.getAbsolutePath(), e);
+            }
+        }
+        return table;
+    }
+
+    /**
+     * @param classpath
+     *            - classpath of the resource
+     * @return resource file or null if resource is missing or located in archive
+     */
+    public static File getResourceFile(String classpath) {
+        URL url = ClassLoader.getSystemResource(classpath);
+        if (url == null || !"file".equals(url.getProtocol())) {
+            return null;
+        }
+        try {
+            return new File(url.toURI());
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    static long checksum(File source) throws IOException {
+        CRC32 crc = new CRC32();
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream is = new FileInputStream(source)) {
+            int read;
+            while ((read = is.read(buffer)) != -1) {
+                crc.update(buffer, 0, read);
+            }
+        }
+        return crc.getValue();
+    }
+
+    private static Table read(File file, long length, long checksum, String variant) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION || buffer.getLong() != length || buffer.getLong() != checksum
+                || !variant.equals(readString(buffer))) {
+            return null;
+        }
+        String name = readString(buffer);
+        String[][] rows = new String[buffer.getInt()][];
+        for (int i = 0; i < rows.length; i++) {
+            int cells = buffer.getInt();
+            if (cells >= 0) {
+                rows[i] = new String[cells];
+                for (int j = 0; j < cells; j++) {
+                    rows[i][j] = readString(buffer);
+                }
+            }
+        }
+        return new Table(name, rows);
+    }
+
+    private static void write(File dir, File file, long length, long checksum, String variant, Table table) throws IOException {
+        if (!dir.isDirectory() && !dir.mkdirs() && !dir.isDirectory()) {
+            throw new IOException("Unable to create directory " + dir.getAbsolutePath());
+        }
+        File tmp = File.createTempFile(file.getName(), ".tmp", dir);
+        try {
+            try (OutputStream os = new BufferedOutputStream(new FileOutputStream(tmp));
+                    DataOutputStream out = new DataOutputStream(os)) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(length);
+                out.writeLong(checksum);
+                writeString(out, variant);
+                writeString(out, table.getName());
+                String[][] rows = table.getRows();
+                out.writeInt(rows.length);
+                for (String[] row : rows) {
+                    out.writeInt(row != null ? row.length : -1);
+                    if (row != null) {
+                        for (String cell : row) {
+                            writeString(out, cell);
+                        }
+                    }
+                }
+            }
+            try {
+                Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException e) {
+                Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+            }
+        } finally {
+            Files.deleteIfExists(tmp.toPath());
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+        } else {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
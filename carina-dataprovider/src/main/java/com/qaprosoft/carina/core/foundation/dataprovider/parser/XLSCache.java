@@ -16,15 +16,33 @@
 package com.qaprosoft.carina.core.foundation.dataprovider.parser;
 
 import java.io.InputStream;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.Map.Entry;
+import java.util.WeakHashMap;
 
+import org.apache.commons.lang3.math.NumberUtils;
 import org.apache.poi.ss.usermodel.Workbook;
 import org.apache.poi.ss.usermodel.WorkbookFactory;
 
+import com.qaprosoft.carina.core.foundation.utils.Configuration;
+import com.qaprosoft.carina.core.foundation.utils.Configuration.Parameter;
+
+/**
+ * Cache of loaded spreadsheets. Sheets are kept as {@link XLSSheetData}, POI workbooks are loaded only for cell links
+ * resolution. Both caches keep at most xls_cache_size least recently used items. Parsed sheets are also stored in
+ * {@link DataSourceCache} when data_provider_cache_dir is specified.
+ */
 public class XLSCache {
-    private static Map<String, Workbook> xlsCache = new HashMap<String, Workbook>();
+    private static final int DEFAULT_CACHE_SIZE = 20;
+
+    private static final int cacheSize = getCacheSize();
+
+    private static Map<String, Workbook> xlsCache = new LruMap<Workbook>();
+
+    // workbook paths are kept while workbook is used even if it is evicted from the cache
+    private static Map<Workbook, String> xlsPaths = new WeakHashMap<Workbook, String>();
+
+    private static Map<String, XLSSheetData> sheetCache = new LruMap<XLSSheetData>();
 
     public static synchronized Workbook getWorkbook(String xlsPath) {
         if (!xlsCache.keySet().contains(xlsPath)) {
@@ -42,15 +60,68 @@ public class XLSCache {
                 throw new RuntimeException("Can't read xls: " + xlsPath);
             }
             xlsCache.put(xlsPath, wb);
+            xlsPaths.put(wb, xlsPath);
         }
         return xlsCache.get(xlsPath);
     }
 
     public static synchronized String getWorkbookPath(Workbook book) {
-        for (Entry<String, Workbook> entry : xlsCache.entrySet()) {
-            if (entry.getValue() == book)
-                return entry.getKey();
+        return xlsPaths.get(book);
+    }
+
+    /**
+     * Returns compact copy of the sheet loading it if needed. Sheets of different documents are loaded in parallel.
+     *
+     * @param xlsPath
+     *            - classpath of xls/xlsx document
+     * @param sheetName
+     *            - sheet name (case insensitive) or null for the first sheet
+     * @return sheet data or null if sheet doesn't exist
+     */
+    public static XLSSheetData getSheet(String xlsPath, String sheetName) {
+        String key = xlsPath + "!" + (sheetName != null ? sheetName : "");
+        XLSSheetData sheet;
+        synchronized (sheetCache) {
+            sheet = sheetCache.get(key);
+        }
+        if (sheet == null) {
+            sheet = readSheet(xlsPath, sheetName);
+            if (sheet != null) {
+                synchronized (sheetCache) {
+                    sheetCache.put(key, sheet);
+                }
+            }
+        }
+        return sheet;
+    }
+
+    private static XLSSheetData readSheet(String xlsPath, String sheetName) {
+        if (!DataSourceCache.isEnabled()) {
+            return XLSSheetReader.read(xlsPath, sheetName);
+        }
+        String variant = "xls!" + (sheetName != null ? sheetName.toLowerCase() : "");
+        DataSourceCache.Table table = DataSourceCache.get(DataSourceCache.getResourceFile(xlsPath), variant, () -> {
+            XLSSheetData data = XLSSheetReader.read(xlsPath, sheetName);
+            return data != null ? new DataSourceCache.Table(data.getName(), data.getRows()) : null;
+        });
+        return table != null ? new XLSSheetData(table.getName(), table.getRows()) : null;
+    }
+
+    private static int getCacheSize() {
+        int size = NumberUtils.toInt(Configuration.get(Parameter.XLS_CACHE_SIZE), DEFAULT_CACHE_SIZE);
+        return size > 0 ? size : DEFAULT_CACHE_SIZE;
+    }
+
+    private static class LruMap<T> extends LinkedHashMap<String, T> {
+        private static final long serialVersionUID = 1L;
+
+        LruMap() {
+            super(16, 0.75f, true);
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, T> eldest) {
+            return size() > cacheSize;
         }
-        return null;
     }
 }
@@ -16,7 +16,6 @@
 package com.qaprosoft.carina.core.foundation.dataprovider.parser;
 
 import java.io.File;
-import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Locale;
@@ -41,75 +40,39 @@ public class XLSParser {
     }
 
     public static String parseValue(String locatorKey, String xlsPath, Locale locale) {
-        String value = null;
+        XLSSheetData sheet = XLSCache.getSheet(xlsPath, null);
 
-        Workbook wb = XLSCache.getWorkbook(xlsPath);
-        Sheet sheet = wb.getSheetAt(0);
-
-        List<String> locales = getLocales(sheet);
-        if (!locales.contains(locale.getCountry())) {
+        // the first column contains locator keys
+        int cellN = -1;
+        for (int i = 1; i < sheet.getHeaders().size() && cellN < 0; i++) {
+            if (locale.getCountry().equals(sheet.getHeaders().get(i))) {
+                cellN = i;
+            }
+        }
+        if (cellN < 0) {
             throw new RuntimeException("Can't find locale '" + locale.getCountry() + "' in xls '" + xlsPath + "'!");
         }
-        int cellN = locales.indexOf(locale.getCountry()) + 1;
 
-        List<String> locatorKeys = getLocatorKeys(sheet);
-        if (!locatorKeys.contains(locatorKey)) {
+        int rowN = sheet.findRow(locatorKey);
+        if (rowN < 0) {
             throw new RuntimeException("Can't find locatorKey '" + locatorKey + "' in xls '" + xlsPath + "'!");
         }
-        int rowN = locatorKeys.indexOf(locatorKey) + 1;
-
-        try {
-            value = getCellValue(sheet.getRow(rowN).getCell(cellN));
-        } catch (Exception e) {
-            throw new RuntimeException("Can't find value for locatorKey '" + locatorKey + "' with locale '" + locale.getCountry()
-                    + "' in xls '" + xlsPath + "'!");
-        }
 
-        return value;
-    }
-
-    private static List<String> getLocales(Sheet sheet) {
-        List<String> locales = new ArrayList<String>();
-        int lastCell = sheet.getRow(0).getLastCellNum();
-        for (int i = 1; i < lastCell; i++) {
-            locales.add(getCellValue(sheet.getRow(0).getCell(i)));
-        }
-        return locales;
-    }
-
-    private static List<String> getLocatorKeys(Sheet sheet) {
-        List<String> locatorKeys = new ArrayList<String>();
-        int lastRow = sheet.getLastRowNum();
-        for (int i = 1; i <= lastRow; i++) {
-            locatorKeys.add(getCellValue(sheet.getRow(i).getCell(0)));
-        }
-        return locatorKeys;
+        return sheet.getValue(rowN, cellN);
     }
 
     public static String parseValue(String xls, String sheetName, String key) {
-        String value = null;
-
-        Workbook wb = XLSCache.getWorkbook(xls);
-
-        Sheet sheet = wb.getSheet(sheetName);
+        XLSSheetData sheet = XLSCache.getSheet(xls, sheetName);
         if (sheet == null) {
             throw new InvalidArgsException(String.format("No sheet: '%s' in excel file: '%s'!", sheetName, xls));
         }
 
-        boolean isKeyFound = false;
-        for (int i = 1; i <= sheet.getLastRowNum(); i++) {
-            if (key.equals(getCellValue(sheet.getRow(i).getCell(0)))) {
-                value = getCellValue(sheet.getRow(i).getCell(1));
-                isKeyFound = true;
-                break;
-            }
-        }
-
-        if (!isKeyFound) {
+        int rowN = sheet.findRow(key);
+        if (rowN < 0) {
             throw new InvalidArgsException(String.format("No key: '%s' on sheet '%s' in excel file: '%s'!", key, sheetName, xls));
         }
 
-        return value;
+        return sheet.getValue(rowN, 1);
     }
 
     public static XLSTable parseSpreadSheet(String xls, String sheetName) {
@@ -124,13 +87,29 @@ public class XLSParser {
             dataTable = new XLSTable();
         }
 
+        XLSSheetData sheetData = XLSCache.getSheet(xls, sheetName);
+        if (sheetData == null) {
+            throw new InvalidArgsException(String.format("No sheet: '%s' in excel file: '%s'!", sheetName, xls));
+        }
+
+        if (!hasCellLinks(sheetData.getHeaders())) {
+            try {
+                dataTable.setHeaders(sheetData.getHeaders());
+                for (int i = 1; i < sheetData.getRowCount(); i++) {
+                    if (sheetData.hasRow(i)) {
+                        dataTable.addDataRow(sheetData, i);
+                    }
+                }
+            } catch (Exception e) {
+                LOGGER.error(e.getMessage(), e);
+            }
+            return dataTable;
+        }
+
+        // cell links are resolved using workbook model
         Workbook wb = XLSCache.getWorkbook(xls);
         evaluator = wb.getCreationHelper().createFormulaEvaluator();
-
         Sheet sheet = wb.getSheet(sheetName);
-        if (sheet == null) {
-            throw new InvalidArgsException(String.format("No sheet: '%s' in excel file: '%s'!", sheetName, xls));
-        }
 
         try {
             for (int i = 0; i <= sheet.getLastRowNum(); i++) {
@@ -146,7 +125,20 @@ public class XLSParser {
         return dataTable;
     }
 
+    private static boolean hasCellLinks(List<String> headers) {
+        for (String header : headers) {
+            if (header != null && header.startsWith(XLSTable.FK_PREFIX)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     public static String getCellValue(Cell cell) {
+        return getCellValue(cell, evaluator);
+    }
+
+    public static String getCellValue(Cell cell, FormulaEvaluator evaluator) {
         if (cell == null)
             return "";
 
@@ -0,0 +1,102 @@
+/*******************************************************************************
+ * Copyright 2013-2018 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.dataprovider.parser;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact read-only copy of a spreadsheet. Cell values are kept as formatted strings (like
+ * {@link XLSParser#getCellValue(org.apache.poi.ss.usermodel.Cell)} returns them) so workbook model is not kept in
+ * memory. Data rows are indexed by value of the first (key) column.
+ */
+public class XLSSheetData {
+    private final String name;
+    private final String[][] rows;
+    private final List<String> headers;
+    private final Map<String, Integer> keyIndex;
+
+    /**
+     * @param name
+     *            - sheet name
+     * @param rows
+     *            - cell values by rows, first row contains headers, missing rows are null
+     */
+    XLSSheetData(String name, String[][] rows) {
+        this.name = name;
+        this.rows = rows;
+        this.headers = Collections.unmodifiableList(Arrays.asList(rows.length > 0 && rows[0] != null ? rows[0] : new String[0]));
+        this.keyIndex = new HashMap<String, Integer>();
+        for (int i = 1; i < rows.length; i++) {
+            if (rows[i] != null && !keyIndex.containsKey(getValue(i, 0))) {
+                keyIndex.put(getValue(i, 0), i);
+            }
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    String[][] getRows() {
+        return rows;
+    }
+
+    public List<String> getHeaders() {
+        return headers;
+    }
+
+    /**
+     * @return number of rows including header row
+     */
+    public int getRowCount() {
+        return rows.length;
+    }
+
+    public boolean hasRow(int rowIndex) {
+        return rowIndex >= 0 && rowIndex < rows.length && rows[rowIndex] != null;
+    }
+
+    /**
+     * @param rowIndex
+     *            - zero based row index
+     * @param cellIndex
+     *            - zero based cell index
+     * @return formatted value, empty string for missing cell or null for unsupported cell value
+     */
+    public String getValue(int rowIndex, int cellIndex) {
+        String[] row = rows[rowIndex];
+        if (row == null || cellIndex >= row.length) {
+            return "";
+        }
+        return row[cellIndex];
+    }
+
+    /**
+     * Finds the first data row by value of the first column.
+     *
+     * @param key
+     *            - value of the first column
+     * @return row index or -1 if key is not found
+     */
+    public int findRow(String key) {
+        Integer index = keyIndex.get(key);
+        return index != null ? index : -1;
+    }
+}
@@ -0,0 +1,239 @@
+/*******************************************************************************
+ * Copyright 2013-2018 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.dataprovider.parser;
+
+import java.io.BufferedInputStream;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import javax.xml.parsers.SAXParserFactory;
+
+import org.apache.poi.POIXMLDocument;
+import org.apache.poi.openxml4j.opc.OPCPackage;
+import org.apache.poi.ss.usermodel.BuiltinFormats;
+import org.apache.poi.ss.usermodel.DataFormatter;
+import org.apache.poi.ss.usermodel.FormulaEvaluator;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.ss.usermodel.Workbook;
+import org.apache.poi.ss.usermodel.WorkbookFactory;
+import org.apache.poi.xssf.eventusermodel.ReadOnlySharedStringsTable;
+import org.apache.poi.xssf.eventusermodel.XSSFReader;
+import org.apache.poi.xssf.model.StylesTable;
+import org.apache.poi.xssf.usermodel.XSSFCellStyle;
+import org.xml.sax.Attributes;
+import org.xml.sax.InputSource;
+import org.xml.sax.XMLReader;
+import org.xml.sax.helpers.DefaultHandler;
+
+/**
+ * Reads one sheet into {@link XLSSheetData}. XLSX sheets are read by SAX parser so only shared strings and styles are
+ * loaded besides cell values, formula cells are represented by results cached in the document. XLS documents are
+ * loaded by POI user model and released after copying.
+ */
+final class XLSSheetReader {
+
+    private XLSSheetReader() {
+    }
+
+    /**
+     * @param xlsPath
+     *            - classpath of xls/xlsx document
+     * @param sheetName
+     *            - sheet name (case insensitive) or null for the first sheet
+     * @return sheet data or null if sheet doesn't exist
+     */
+    static XLSSheetData read(String xlsPath, String sheetName) {
+        try {
+            InputStream resource = ClassLoader.getSystemResourceAsStream(xlsPath);
+            if (resource == null) {
+                throw new RuntimeException("Can't read xls: " + xlsPath);
+            }
+            try (InputStream is = new BufferedInputStream(resource)) {
+                if (POIXMLDocument.hasOOXMLHeader(is)) {
+                    OPCPackage pkg = OPCPackage.open(is);
+                    try {
+                        return readXLSX(pkg, sheetName);
+                    } finally {
+                        pkg.revert();
+                    }
+                }
+                return readXLS(WorkbookFactory.create(is), sheetName);
+            }
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException("Can't read xls: " + xlsPath, e);
+        }
+    }
+
+    private static XLSSheetData readXLSX(OPCPackage pkg, String sheetName) throws Exception {
+        XSSFReader reader = new XSSFReader(pkg);
+        XSSFReader.SheetIterator sheets = (XSSFReader.SheetIterator) reader.getSheetsData();
+        while (sheets.hasNext()) {
+            try (InputStream sheet = sheets.next()) {
+                String name = sheets.getSheetName();
+                if (sheetName == null || sheetName.equalsIgnoreCase(name)) {
+                    SheetHandler handler = new SheetHandler(new ReadOnlySharedStringsTable(pkg), reader.getStylesTable());
+                    SAXParserFactory factory = SAXParserFactory.newInstance();
+                    factory.setNamespaceAware(true);
+                    XMLReader parser = factory.newSAXParser().getXMLReader();
+                    parser.setContentHandler(handler);
+                    parser.parse(new InputSource(sheet));
+                    return new XLSSheetData(name, handler.getRows());
+                }
+            }
+        }
+        return null;
+    }
+
+    private static XLSSheetData readXLS(Workbook wb, String sheetName) {
+        Sheet sheet = sheetName == null ? wb.getSheetAt(0) : wb.getSheet(sheetName);
+        if (sheet == null) {
+            return null;
+        }
+        FormulaEvaluator evaluator = wb.getCreationHelper().createFormulaEvaluator();
+        String[][] rows = new String[sheet.getLastRowNum() + 1][];
+        for (int i = 0; i < rows.length; i++) {
+            Row row = sheet.getRow(i);
+            if (row != null) {
+                rows[i] = new String[Math.max(row.getLastCellNum(), 0)];
+                for (int j = 0; j < rows[i].length; j++) {
+                    rows[i][j] = XLSParser.getCellValue(row.getCell(j), evaluator);
+                }
+            }
+        }
+        return new XLSSheetData(sheet.getSheetName(), rows);
+    }
+
+    /**
+     * Collects values of sheet cells converting them the same way as {@link XLSParser#getCellValue} does.
+     */
+    private static class SheetHandler extends DefaultHandler {
+        private final ReadOnlySharedStringsTable strings;
+        private final StylesTable styles;
+        private final DataFormatter formatter = new DataFormatter();
+        private final List<String[]> rows = new ArrayList<String[]>();
+        private final StringBuilder text = new StringBuilder();
+
+        private List<String> cells;
+        private int rowIndex = -1;
+        private int cellIndex;
+        private String type;
+        private String style;
+        private String value;
+        private String formula;
+        private boolean collect;
+
+        SheetHandler(ReadOnlySharedStringsTable strings, StylesTable styles) {
+            this.strings = strings;
+            this.styles = styles;
+        }
+
+        String[][] getRows() {
+            return rows.toArray(new String[rows.size()][]);
+        }
+
+        @Override
+        public void startElement(String uri, String localName, String qName, Attributes attributes) {
+            if ("row".equals(localName)) {
+                String r = attributes.getValue("r");
+                rowIndex = r != null ? Integer.parseInt(r) - 1 : rowIndex + 1;
+                cells = new ArrayList<String>();
+                cellIndex = -1;
+            } else if ("c".equals(localName)) {
+                String r = attributes.getValue("r");
+                cellIndex = r != null ? getCellIndex(r) : cellIndex + 1;
+                type = attributes.getValue("t");
+                style = attributes.getValue("s");
+                value = null;
+                formula = null;
+            } else if ("v".equals(localName) || "f".equals(localName) || "t".equals(localName)) {
+                collect = true;
+                text.setLength(0);
+            }
+        }
+
+        @Override
+        public void characters(char[] ch, int start, int length) {
+            if (collect) {
+                text.append(ch, start, length);
+            }
+        }
+
+        @Override
+        public void endElement(String uri, String localName, String qName) {
+            if ("v".equals(localName)) {
+                value = text.toString();
+                collect = false;
+            } else if ("t".equals(localName)) {
+                // inline string may consist of several runs
+                value = value == null ? text.toString() : value + text;
+                collect = false;
+            } else if ("f".equals(localName)) {
+                formula = text.toString();
+                collect = false;
+            } else if ("c".equals(localName)) {
+                while (cells.size() <= cellIndex) {
+                    cells.add("");
+                }
+                cells.set(cellIndex, getCellValue());
+            } else if ("row".equals(localName)) {
+                while (rows.size() < rowIndex) {
+                    rows.add(null);
+                }
+                rows.add(cells.toArray(new String[cells.size()]));
+            }
+        }
+
+        private String getCellValue() {
+            if (formula != null && formula.contains("[") && formula.contains("]")) {
+                return null;
+            }
+            if ("s".equals(type)) {
+                return strings.getEntryAt(Integer.parseInt(value)).trim();
+            } else if ("inlineStr".equals(type) || "str".equals(type)) {
+                return value != null ? value.trim() : "";
+            } else if ("b".equals(type)) {
+                return String.valueOf("1".equals(value));
+            } else if ("e".equals(type)) {
+                return formula != null ? value : null;
+            } else if (value == null || value.isEmpty()) {
+                return "";
+            }
+            int formatIndex = 0;
+            String formatString = null;
+            if (style != null && styles != null) {
+                XSSFCellStyle cellStyle = styles.getStyleAt(Integer.parseInt(style));
+                formatIndex = cellStyle.getDataFormat();
+                formatString = cellStyle.getDataFormatString();
+            }
+            if (formatString == null) {
+                formatString = BuiltinFormats.getBuiltinFormat(formatIndex);
+            }
+            return formatter.formatRawCellContents(Double.parseDouble(value), formatIndex, formatString).trim();
+        }
+
+        private static int getCellIndex(String reference) {
+            int index = 0;
+            for (int i = 0; i < reference.length() && Character.isLetter(reference.charAt(i)); i++) {
+                index = index * 26 + (reference.charAt(i) - 'A' + 1);
+            }
+            return index - 1;
+        }
+    }
+}
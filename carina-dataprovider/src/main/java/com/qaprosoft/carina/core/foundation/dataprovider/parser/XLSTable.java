@@ -25,7 +25,7 @@ import org.apache.poi.ss.usermodel.Workbook;
 
 public class XLSTable {
     private static final Logger LOGGER = Logger.getLogger(XLSTable.class);
-    private final static String FK_PREFIX = "FK_LINK_";
+    final static String FK_PREFIX = "FK_LINK_";
 
     private List<String> headers;
     private List<Map<String, String>> dataRows;
@@ -50,6 +50,33 @@ public class XLSTable {
         }
     }
 
+    public void setHeaders(List<String> headers) {
+        this.headers.clear();
+        this.headers.addAll(headers);
+    }
+
+    /**
+     * Adds data row from loaded sheet, cell links are not resolved.
+     *
+     * @param sheet
+     *            - loaded sheet
+     * @param rowIndex
+     *            - index of the row in the sheet
+     */
+    public void addDataRow(XLSSheetData sheet, int rowIndex) {
+        if (executeColumn != null && executeValue != null && headers.contains(executeColumn)) {
+            if (!executeValue.equalsIgnoreCase(sheet.getValue(rowIndex, headers.indexOf(executeColumn)))) {
+                return;
+            }
+        }
+
+        Map<String, String> dataMap = new HashMap<String, String>();
+        for (int i = 0; i < headers.size(); i++) {
+            dataMap.put(headers.get(i), sheet.getValue(rowIndex, i));
+        }
+        dataRows.add(dataMap);
+    }
+
     public void addDataRow(Row row, Workbook wb, Sheet sheet) {
         if (row == null) {
             // don't add any data row if it is null. It seems like there is empty row in xls file
@@ -0,0 +1,238 @@
+/*******************************************************************************
+ * Copyright 2013-2018 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.grid;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+/**
+ * Immutable matcher compiled from mobile capabilities requested by Selenium client. All requested values are parsed
+ * once (version ranges, device name/UDID lists) so matching against node capabilities doesn't use regular expressions
+ * and allocates nothing except parsing of node platform version.
+ *
+ * Supported capabilities:
+ * platformName, deviceType - case insensitive value;
+ * platformVersion - exact version (7.0), list (6.1,7.0), limited (6.1.1-7.0) or unlimited (6.0+) interval;
+ * deviceName (or devicePool which overrides it), udid - comma separated list of values.
+ * ANY, * or empty value matches any node. Constraint is skipped when node doesn't declare the capability.
+ */
+final class MobileCapabilityFilter {
+    static final String PLATFORM_NAME = "platformName";
+    static final String PLATFORM_VERSION = "platformVersion";
+    static final String DEVICE_NAME = "deviceName";
+    static final String DEVICE_TYPE = "deviceType";
+    static final String DEVICE_POOL = "devicePool";
+    static final String UDID = "udid";
+
+    private static final Pattern RANGE_VERSION = Pattern.compile("(\\d+\\.){0,}(\\d+)-(\\d+\\.){0,}(\\d+)$");
+    private static final Pattern MIN_VERSION = Pattern.compile("(\\d+\\.){0,}(\\d+)\\+$");
+    private static final Pattern MULTIPLE_VERSIONS = Pattern.compile("(\\d+\\.){0,}(\\d+,)+(\\d+\\.){0,}(\\d+)$");
+    private static final Pattern EXACT_VERSION = Pattern.compile("(\\d+\\.){0,}(\\d+)$");
+
+    private final String[] keys;
+    private final Predicate<String>[] constraints;
+
+    @SuppressWarnings("unchecked")
+    private MobileCapabilityFilter(List<String> keys, List<Predicate<String>> constraints) {
+        this.keys = keys.toArray(new String[keys.size()]);
+        this.constraints = constraints.toArray(new Predicate[constraints.size()]);
+    }
+
+    /**
+     * Compiles requested capabilities. Requested map is not modified.
+     *
+     * @param requestedCapability
+     *            - capabilities requested by Selenium client
+     * @return compiled matcher
+     */
+    static MobileCapabilityFilter compile(Map<String, Object> requestedCapability) {
+        List<String> keys = new ArrayList<>();
+        List<Predicate<String>> constraints = new ArrayList<>();
+        for (Map.Entry<String, Object> entry : requestedCapability.entrySet()) {
+            String key = entry.getKey();
+            if (DEVICE_NAME.equals(key) && requestedCapability.containsKey(DEVICE_POOL)) {
+                // If devicePool is found in requested capabilities then more likely deviceName=ANY for QPS_GGR usage
+                continue;
+            }
+            String expectedValue = entry.getValue() != null ? entry.getValue().toString() : null;
+            if ("ANY".equalsIgnoreCase(expectedValue) || "".equals(expectedValue) || "*".equals(expectedValue)) {
+                continue;
+            }
+
+            Predicate<String> constraint;
+            switch (key) {
+            case PLATFORM_NAME:
+            case DEVICE_TYPE:
+                constraint = actual -> actual.equalsIgnoreCase(expectedValue);
+                break;
+            case PLATFORM_VERSION:
+                constraint = compileVersion(expectedValue);
+                break;
+            case DEVICE_POOL:
+                key = DEVICE_NAME;
+                constraint = compileList(expectedValue);
+                break;
+            case DEVICE_NAME:
+            case UDID:
+                constraint = compileList(expectedValue);
+                break;
+            default:
+                constraint = null;
+                break;
+            }
+            if (constraint != null) {
+                keys.add(key);
+                constraints.add(constraint);
+            }
+        }
+        return new MobileCapabilityFilter(keys, constraints);
+    }
+
+    /**
+     * Verifies matching with node capabilities.
+     *
+     * @param nodeCapability
+     *            - Selenium node capabilities
+     * @return match results
+     */
+    boolean matches(Map<String, Object> nodeCapability) {
+        for (int i = 0; i < keys.length; i++) {
+            Object actualValue = nodeCapability.get(keys[i]);
+            if (actualValue != null && !constraints[i].test(actualValue.toString())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static Predicate<String> compileList(String expectedValue) {
+        if (expectedValue == null) {
+            return actual -> false;
+        }
+        Set<String> values = new HashSet<>(Arrays.asList(expectedValue.split(",")));
+        return values::contains;
+    }
+
+    private static Predicate<String> compileVersion(String expectedValue) {
+        if (expectedValue == null) {
+            return actual -> false;
+        }
+        // Limited interval: 6.1.1-7.0
+        if (RANGE_VERSION.matcher(expectedValue).matches()) {
+            int[] min = parseVersion(expectedValue.split("-")[0]);
+            int[] max = parseVersion(expectedValue.split("-")[1]);
+            return actual -> {
+                int[] version = parseVersion(actual);
+                return compareVersions(version, min) >= 0 && compareVersions(version, max) <= 0;
+            };
+        }
+        // Unlimited interval: 6.0+
+        if (MIN_VERSION.matcher(expectedValue).matches()) {
+            int[] min = parseVersion(expectedValue.replace("+", ""));
+            return actual -> compareVersions(parseVersion(actual), min) >= 0;
+        }
+        // Multiple versions: 6.1,7.0
+        if (MULTIPLE_VERSIONS.matcher(expectedValue).matches()) {
+            String[] items = expectedValue.split(",");
+            int[][] versions = new int[items.length][];
+            for (int i = 0; i < items.length; i++) {
+                versions[i] = parseVersion(items[i]);
+            }
+            return actual -> {
+                int[] version = parseVersion(actual);
+                for (int[] expected : versions) {
+                    if (compareVersions(expected, version) == 0) {
+                        return true;
+                    }
+                }
+                return false;
+            };
+        }
+        // Exact version: 7.0
+        if (EXACT_VERSION.matcher(expectedValue).matches()) {
+            int[] expected = parseVersion(expectedValue);
+            return actual -> compareVersions(expected, parseVersion(actual)) == 0;
+        }
+        return actual -> false;
+    }
+
+    /**
+     * Parses dot separated version without regular expressions.
+     *
+     * @param value
+     *            - version, e.g. 7.1.1
+     * @return version numbers or null if value is not a numeric version
+     */
+    static int[] parseVersion(String value) {
+        if (value == null || value.isEmpty()) {
+            return null;
+        }
+        int parts = 1;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '.') {
+                if (i == 0 || i == value.length() - 1 || value.charAt(i - 1) == '.') {
+                    return null;
+                }
+                parts++;
+            } else if (c < '0' || c > '9') {
+                return null;
+            }
+        }
+        int[] version = new int[parts];
+        int part = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '.') {
+                part++;
+            } else {
+                version[part] = version[part] * 10 + (c - '0');
+            }
+        }
+        return version;
+    }
+
+    /**
+     * Compares versions, shorter version is lower if it is a prefix of the longer one (7.0 &lt; 7.0.1). Not parsed
+     * versions are considered equal to any version.
+     *
+     * @param v1
+     *            - version numbers
+     * @param v2
+     *            - version numbers
+     * @return comparison result
+     */
+    static int compareVersions(int[] v1, int[] v2) {
+        int result = 0;
+        if (v1 != null && v2 != null) {
+            int minL = Math.min(v1.length, v2.length);
+            for (int i = 0; i < minL; i++) {
+                result = v1[i] - v2[i];
+                if (result != 0) {
+                    return result;
+                }
+            }
+            result = v1.length - v2.length;
+        }
+        return result;
+    }
+}
@@ -15,25 +15,32 @@
  *******************************************************************************/
 package com.qaprosoft.carina.grid;
 
-import java.util.Arrays;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
-import org.apache.commons.lang3.StringUtils;
 import org.openqa.grid.internal.utils.DefaultCapabilityMatcher;
 
 /**
  * Custom selenium capability matcher for mobile grid.
  * {@link https://nishantverma.gitbooks.io/appium-for-android/understanding_desired_capabilities.html}
  * 
+ * Requested mobile capabilities are compiled once into {@link MobileCapabilityFilter} and cached, so the same request
+ * is evaluated against all node slots without re-parsing.
+ * 
  * @author Alex Khursevich (alex@qaprosoft.com)
  */
 public class MobileCapabilityMatcher extends DefaultCapabilityMatcher {
-    private static final String PLATFORM_NAME = "platformName";
-    private static final String PLATFORM_VERSION = "platformVersion";
-    private static final String DEVICE_NAME = "deviceName";
-    private static final String DEVICE_TYPE = "deviceType";
-    private static final String DEVICE_POOL = "devicePool";
-    private static final String UDID = "udid";
+    private static final String PLATFORM_NAME = MobileCapabilityFilter.PLATFORM_NAME;
+    private static final String PLATFORM_VERSION = MobileCapabilityFilter.PLATFORM_VERSION;
+    private static final String DEVICE_NAME = MobileCapabilityFilter.DEVICE_NAME;
+    private static final String DEVICE_POOL = MobileCapabilityFilter.DEVICE_POOL;
+    private static final String UDID = MobileCapabilityFilter.UDID;
+
+    // max amount of compiled requests, cache is cleared when it is exceeded
+    private static final int MAX_CACHED_FILTERS = 1024;
+
+    private final Map<Map<String, Object>, MobileCapabilityFilter> filters = new ConcurrentHashMap<>();
 
     @Override
     public boolean matches(Map<String, Object> nodeCapability, Map<String, Object> requestedCapability) {
@@ -41,7 +48,7 @@ public class MobileCapabilityMatcher extends DefaultCapabilityMatcher {
                 || requestedCapability.containsKey(DEVICE_NAME) || requestedCapability.containsKey(UDID)
                 || requestedCapability.containsKey(DEVICE_POOL)) {
             // Mobile-based capabilities
-            return extensionCapabilityCheck(nodeCapability, requestedCapability);
+            return getFilter(requestedCapability).matches(nodeCapability);
         } else {
             // Browser-based capabilities
             return super.matches(nodeCapability, requestedCapability);
@@ -49,116 +56,30 @@ public class MobileCapabilityMatcher extends DefaultCapabilityMatcher {
     }
 
     /**
-     * Verifies matching between requested and actual node capabilities.
+     * Returns compiled matcher for requested capabilities. Cache is keyed by the copy of requested capabilities so
+     * later modifications of the request don't affect it.
      * 
-     * @param nodeCapability
-     *            - Selenium node capabilities
      * @param requestedCapability
      *            - capabilities requested by Selenium client
-     * @return match results
+     * @return compiled matcher
      */
-    private boolean extensionCapabilityCheck(Map<String, Object> nodeCapability,
-            Map<String, Object> requestedCapability) {
-    	
-    		// If devicePool is found in requested capabilities then more likely deviceName=ANY for QPS_GGR usage
-    		if(requestedCapability.containsKey(DEVICE_POOL)) {
-    			requestedCapability.put(DEVICE_NAME, requestedCapability.get(DEVICE_POOL));
-		}
-    	
-        for (String key : requestedCapability.keySet()) {
-            String expectedValue = requestedCapability.get(key) != null ? requestedCapability.get(key).toString()
-                    : null;
-
-            String actualValue = (nodeCapability.containsKey(key) && nodeCapability.get(key) != null)
-                    ? nodeCapability.get(key).toString()
-                    : null;
-
-            if (!("ANY".equalsIgnoreCase(expectedValue) || "".equals(expectedValue) || "*".equals(expectedValue))) {
-                switch (key) {
-                case PLATFORM_NAME:
-                    if (actualValue != null && !StringUtils.equalsIgnoreCase(actualValue, expectedValue)) {
-                        return false;
-                    }
-                    break;
-                case PLATFORM_VERSION:
-                    if (actualValue != null) {
-                        // Limited interval: 6.1.1-7.0
-                        if (expectedValue.matches("(\\d+\\.){0,}(\\d+)-(\\d+\\.){0,}(\\d+)$")) {
-                            PlatformVersion actPV = new PlatformVersion(actualValue);
-                            PlatformVersion minPV = new PlatformVersion(expectedValue.split("-")[0]);
-                            PlatformVersion maxPV = new PlatformVersion(expectedValue.split("-")[1]);
-
-                            if (actPV.compareTo(minPV) < 0 || actPV.compareTo(maxPV) > 0) {
-                                return false;
-                            }
-                        }
-                        // Unlimited interval: 6.0+
-                        else if (expectedValue.matches("(\\d+\\.){0,}(\\d+)\\+$")) {
-                            PlatformVersion actPV = new PlatformVersion(actualValue);
-                            PlatformVersion minPV = new PlatformVersion(expectedValue.replace("+", ""));
-
-                            if (actPV.compareTo(minPV) < 0) {
-                                return false;
-                            }
-                        }
-                        // Multiple versions: 6.1,7.0
-                        else if (expectedValue.matches("(\\d+\\.){0,}(\\d+,)+(\\d+\\.){0,}(\\d+)$")) {
-                            boolean matches = false;
-                            for (String version : expectedValue.split(",")) {
-                                if (new PlatformVersion(version).compareTo(new PlatformVersion(actualValue)) == 0) {
-                                    matches = true;
-                                    break;
-                                }
-                            }
-                            if (!matches) {
-                                return false;
-                            }
-                        }
-                        // Exact version: 7.0
-                        else if (expectedValue.matches("(\\d+\\.){0,}(\\d+)$")) {
-                            if (new PlatformVersion(expectedValue).compareTo(new PlatformVersion(actualValue)) != 0) {
-                                return false;
-                            }
-                        } else {
-                            return false;
-                        }
-                    }
-                    break;
-                case DEVICE_NAME:
-                    if (actualValue != null && !Arrays.asList(expectedValue.split(",")).contains(actualValue)) {
-                        return false;
-                    }
-                    break;
-                case DEVICE_TYPE:
-                    if (actualValue != null && !StringUtils.equalsIgnoreCase(actualValue, expectedValue)) {
-                        return false;
-                    }
-                    break;
-                case UDID:
-                    if (actualValue != null && !Arrays.asList(expectedValue.split(",")).contains(actualValue)) {
-                        return false;
-                    }
-                    break;
-                default:
-                    break;
-                }
+    MobileCapabilityFilter getFilter(Map<String, Object> requestedCapability) {
+        MobileCapabilityFilter filter = filters.get(requestedCapability);
+        if (filter == null) {
+            filter = MobileCapabilityFilter.compile(requestedCapability);
+            if (filters.size() >= MAX_CACHED_FILTERS) {
+                filters.clear();
             }
+            filters.put(new HashMap<>(requestedCapability), filter);
         }
-
-        return true;
+        return filter;
     }
 
     public class PlatformVersion implements Comparable<PlatformVersion> {
         private int[] version;
 
         public PlatformVersion(String v) {
-            if (v != null && v.matches("(\\d+\\.){0,}(\\d+)$")) {
-                String[] digits = v.split("\\.");
-                this.version = new int[digits.length];
-                for (int i = 0; i < digits.length; i++) {
-                    this.version[i] = Integer.valueOf(digits[i]);
-                }
-            }
+            this.version = MobileCapabilityFilter.parseVersion(v);
         }
 
         public int[] getVersion() {
@@ -171,25 +92,7 @@ public class MobileCapabilityMatcher extends DefaultCapabilityMatcher {
 
         @Override
         public int compareTo(PlatformVersion pv) {
-            int result = 0;
-            if (pv != null && pv.getVersion() != null && this.version != null) {
-                int minL = Math.min(this.version.length, pv.getVersion().length);
-                int maxL = Math.max(this.version.length, pv.getVersion().length);
-
-                for (int i = 0; i < minL; i++) {
-                    result = this.version[i] - pv.getVersion()[i];
-                    if (result != 0) {
-                        break;
-                    }
-                }
-
-                if (result == 0 && this.version.length == minL && minL != maxL) {
-                    result = -1;
-                } else if (result == 0 && this.version.length == maxL && minL != maxL) {
-                    result = 1;
-                }
-            }
-            return result;
+            return pv != null ? MobileCapabilityFilter.compareVersions(this.version, pv.getVersion()) : 0;
         }
     }
 }
\ No newline at end of file
@@ -84,6 +84,13 @@ public class MobileRemoteProxy extends DefaultRemoteProxy {
     public void beforeSession(TestSession session) {
         super.beforeSession(session);
         
+        // If devicePool is found in requested capabilities then more likely deviceName=ANY for QPS_GGR usage.
+        // Capability matcher doesn't modify request so device name is overridden only for the created session.
+        Map<String, Object> requestedCapabilities = session.getRequestedCapabilities();
+        if (requestedCapabilities.containsKey("devicePool")) {
+            requestedCapabilities.put("deviceName", requestedCapabilities.get("devicePool"));
+        }
+        
         String udid = String.valueOf(session.getSlot().getCapabilities().get("udid"));
         if (STF.isSTFRequired(session.getSlot().getCapabilities(), session.getRequestedCapabilities())) {
             STF.reserveDevice(udid);
@@ -15,8 +15,13 @@
  *******************************************************************************/
 package com.qaprosoft.carina.grid.integration;
 
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Logger;
 
 import org.apache.commons.lang3.StringUtils;
@@ -38,10 +43,22 @@ public class STF {
 
     private static final Long STF_TIMEOUT = 3600L;
 
+    // default lifetime of devices state snapshot in seconds
+    private static final long STF_CACHE_TIMEOUT = 5L;
+
     private static boolean running = false;
 
     private STFClient client;
 
+    // devices state snapshot indexed by serial, all slots of the hub are matched against it
+    private volatile Map<String, STFDevice> devices = Collections.emptyMap();
+    private volatile long devicesTimestamp = 0;
+    private final long cacheTimeout = TimeUnit.SECONDS.toMillis(getCacheTimeout());
+    private final ReentrantLock refreshLock = new ReentrantLock();
+
+    // devices reserved by this hub, snapshot may not reflect it until the next refresh
+    private final Set<String> reserved = ConcurrentHashMap.newKeySet();
+
     public final static STF INSTANCE = new STF();
 
     private STF() {
@@ -51,7 +68,7 @@ public class STF {
         LOGGER.info("Credentials for STF: " + serviceURL + " / " + authToken);
         if (!StringUtils.isEmpty(serviceURL) && !StringUtils.isEmpty(authToken)) {
             this.client = new STFClient(serviceURL, authToken);
-            if (this.client.getAllDevices().getStatus() == 200) {
+            if (refreshDevices()) {
                 running = true;
                 LOGGER.info("STF connection established");
             } else {
@@ -68,7 +85,8 @@ public class STF {
     }
 
     /**
-     * Checks availability status in STF.
+     * Checks availability status in STF. Status is taken from devices snapshot which is refreshed at most once per
+     * STF_CACHE_TIMEOUT seconds (5 by default), devices reserved by this hub are treated as busy till return.
      * 
      * @param udid
      *            - device UDID
@@ -76,22 +94,10 @@ public class STF {
      */
     public static boolean isDeviceAvailable(String udid) {
         boolean available = false;
-        if (isRunning()) {
-            try {
-                Response<Devices> rs = INSTANCE.client.getAllDevices();
-                if (rs.getStatus() == 200) {
-                    for (STFDevice device : rs.getObject().getDevices()) {
-                        if (udid.equals(device.getSerial())) {
-                            available = device.getPresent() && device.getReady() && !device.getUsing()
-                                    && device.getOwner() == null;
-                            break;
-                        }
-                    }
-                } else {
-                    LOGGER.info("Unable to get devices status HTTP status: " + rs.getStatus());
-                }
-            } catch (Exception e) {
-                LOGGER.info("Unable to get devices status HTTP status via udid: " + udid);
+        if (isRunning() && !INSTANCE.reserved.contains(udid)) {
+            STFDevice device = INSTANCE.getDevices().get(udid);
+            if (device != null) {
+                available = device.getPresent() && device.getReady() && !device.getUsing() && device.getOwner() == null;
             }
         }
         return available;
@@ -129,6 +135,7 @@ public class STF {
     public static boolean reserveDevice(String udid) {
         boolean status = INSTANCE.client.reserveDevice(udid, TimeUnit.SECONDS.toMillis(STF_TIMEOUT));
         if (status) {
+            INSTANCE.reserved.add(udid);
             status = INSTANCE.client.remoteConnectDevice(udid).getStatus() == 200;
         }
         return status;
@@ -144,7 +151,59 @@ public class STF {
     public static boolean returnDevice(String udid) {
         // it seems like return and remote disconnect guarantee that device becomes free
         // asap
-        return INSTANCE.client.remoteDisconnectDevice(udid) && INSTANCE.client.returnDevice(udid);
+        try {
+            return INSTANCE.client.remoteDisconnectDevice(udid) && INSTANCE.client.returnDevice(udid);
+        } finally {
+            INSTANCE.reserved.remove(udid);
+        }
+    }
+
+    /**
+     * Returns devices snapshot refreshing it when it is outdated. Only one thread performs refresh, others keep using
+     * previous snapshot meanwhile.
+     * 
+     * @return devices indexed by serial
+     */
+    private Map<String, STFDevice> getDevices() {
+        if (System.currentTimeMillis() - devicesTimestamp > cacheTimeout) {
+            if (refreshLock.tryLock()) {
+                try {
+                    if (System.currentTimeMillis() - devicesTimestamp > cacheTimeout) {
+                        refreshDevices();
+                    }
+                } finally {
+                    refreshLock.unlock();
+                }
+            }
+        }
+        return devices;
+    }
+
+    private boolean refreshDevices() {
+        Map<String, STFDevice> snapshot = new HashMap<String, STFDevice>();
+        boolean status = false;
+        try {
+            Response<Devices> rs = client.getAllDevices();
+            if (rs.getStatus() == 200) {
+                for (STFDevice device : rs.getObject().getDevices()) {
+                    snapshot.put(device.getSerial(), device);
+                }
+                status = true;
+            } else {
+                LOGGER.info("Unable to get devices status HTTP status: " + rs.getStatus());
+            }
+        } catch (Exception e) {
+            LOGGER.info("Unable to get devices status: " + e.getMessage());
+        }
+        // failed refresh makes devices unavailable till the next attempt
+        devices = snapshot;
+        devicesTimestamp = System.currentTimeMillis();
+        return status;
+    }
+
+    private static long getCacheTimeout() {
+        String timeout = System.getProperty(SpecialKeywords.STF_CACHE_TIMEOUT);
+        return StringUtils.isNumeric(timeout) && !timeout.isEmpty() ? Long.parseLong(timeout) : STF_CACHE_TIMEOUT;
     }
 
     /**
@@ -0,0 +1,105 @@
+/*******************************************************************************
+ * Copyright 2013-2018 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.grid;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Evaluates one session request against all slots of the hub like registry does on new session request.
+ * Run: mvn test-compile exec:java -Dexec.mainClass=com.qaprosoft.carina.grid.MobileCapabilityMatcherBenchmark
+ * -Dexec.classpathScope=test
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MobileCapabilityMatcherBenchmark {
+    private static final String[] VERSIONS = { "5.1", "6.0.1", "7.0", "7.1.1", "8.0", "8.1", "9" };
+
+    @Param({ "300" })
+    private int slots;
+
+    @Param({ "6.0-8.0", "7.0+", "6.0.1,8.1", "7.1.1" })
+    private String platformVersion;
+
+    private final MobileCapabilityMatcher matcher = new MobileCapabilityMatcher();
+    private final List<Map<String, Object>> nodes = new ArrayList<>();
+    private Map<String, Object> request;
+
+    @Setup
+    public void setup() {
+        for (int i = 0; i < slots; i++) {
+            Map<String, Object> node = new HashMap<>();
+            node.put("platformName", i % 5 == 0 ? "iOS" : "ANDROID");
+            node.put("platformVersion", VERSIONS[i % VERSIONS.length]);
+            node.put("deviceName", "Device_" + i);
+            node.put("deviceType", i % 3 == 0 ? "tablet" : "phone");
+            node.put("udid", "udid" + i);
+            nodes.add(node);
+        }
+
+        request = new HashMap<>();
+        request.put("platformName", "Android");
+        request.put("platformVersion", platformVersion);
+        request.put("deviceType", "phone");
+        StringBuilder devices = new StringBuilder();
+        for (int i = 0; i < slots; i += 2) {
+            devices.append("Device_").append(i).append(',');
+        }
+        request.put("deviceName", devices.toString());
+    }
+
+    @Benchmark
+    public void matchCached(Blackhole bh) {
+        for (Map<String, Object> node : nodes) {
+            bh.consume(matcher.matches(node, request));
+        }
+    }
+
+    @Benchmark
+    public void matchCompiledPerSlot(Blackhole bh) {
+        // worst case: request is compiled for every slot
+        for (Map<String, Object> node : nodes) {
+            bh.consume(MobileCapabilityFilter.compile(request).matches(node));
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(MobileCapabilityMatcherBenchmark.class.getSimpleName()).build()).run();
+    }
+}
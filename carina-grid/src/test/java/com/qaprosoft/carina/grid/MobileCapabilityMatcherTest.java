@@ -28,6 +28,7 @@ public class MobileCapabilityMatcherTest {
     private static final String PLATFORM_VERSION = "platformVersion";
     private static final String DEVICE_NAME = "deviceName";
     private static final String UDID = "udid";
+    private static final String DEVICE_POOL = "devicePool";
 
     @Test
     public void testPlatformName() {
@@ -156,4 +157,44 @@ public class MobileCapabilityMatcherTest {
 
         Assert.assertTrue(matcher.matches(nodeCapability, requestedCapability));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testDevicePool() {
+        Map<String, Object> nodeCapability = new HashMap<>();
+        nodeCapability.put(DEVICE_NAME, "Samsung_Galaxy_S6");
+
+        Map<String, Object> requestedCapability = new HashMap<>();
+        requestedCapability.put(DEVICE_NAME, "ANY");
+        requestedCapability.put(DEVICE_POOL, "Samsung_Galaxy_S6,Samsung_Galaxy_S7");
+
+        Assert.assertTrue(matcher.matches(nodeCapability, requestedCapability));
+        Assert.assertEquals(requestedCapability.get(DEVICE_NAME), "ANY", "Requested capabilities shouldn't be modified");
+        nodeCapability.put(DEVICE_NAME, "Nexus_5");
+        Assert.assertFalse(matcher.matches(nodeCapability, requestedCapability));
+    }
+
+    @Test
+    public void testCompiledRequestReuse() {
+        Map<String, Object> requestedCapability = new HashMap<>();
+        requestedCapability.put(PLATFORM_VERSION, "7.0+");
+
+        MobileCapabilityFilter filter = matcher.getFilter(requestedCapability);
+        Assert.assertSame(matcher.getFilter(new HashMap<>(requestedCapability)), filter);
+
+        requestedCapability.put(PLATFORM_VERSION, "6.0");
+        Assert.assertNotSame(matcher.getFilter(requestedCapability), filter);
+    }
+
+    @Test
+    public void testInvalidVersion() {
+        Map<String, Object> nodeCapability = new HashMap<>();
+        nodeCapability.put(PLATFORM_VERSION, "7.0");
+
+        Map<String, Object> requestedCapability = new HashMap<>();
+        requestedCapability.put(PLATFORM_VERSION, "7.x");
+
+        Assert.assertFalse(matcher.matches(nodeCapability, requestedCapability));
+        Assert.assertNull(MobileCapabilityFilter.parseVersion("7..0"));
+        Assert.assertEquals(MobileCapabilityFilter.parseVersion("10.3.1"), new int[] { 10, 3, 1 });
+    }
+}
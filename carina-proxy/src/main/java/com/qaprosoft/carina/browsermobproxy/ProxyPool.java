@@ -15,12 +15,20 @@
  *******************************************************************************/
 package com.qaprosoft.carina.browsermobproxy;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
 
 import org.apache.log4j.Logger;
 import org.testng.Assert;
 
+import com.qaprosoft.carina.browsermobproxy.har.HarRecorder;
+import com.qaprosoft.carina.browsermobproxy.har.HarRecorderDispatcher;
+import com.qaprosoft.carina.core.foundation.report.ReportContext;
 import com.qaprosoft.carina.core.foundation.utils.Configuration;
 import com.qaprosoft.carina.core.foundation.utils.Configuration.Parameter;
 import com.qaprosoft.carina.core.foundation.utils.NetworkUtil;
@@ -101,6 +109,23 @@ public final class ProxyPool {
     // ------------------------- BOWSERMOB PROXY ---------------------
     
     private static final ConcurrentHashMap<Long, BrowserMobProxy> proxies = new ConcurrentHashMap<Long, BrowserMobProxy>();
+
+    // ------------------------- SHARED BOWSERMOB PROXY ---------------------
+    // browsermob_shared=true: started servers are leased by test threads and returned into the pool instead of being
+    // stopped, so the number of servers equals the number of concurrent sessions and startup cost is paid once
+
+    private static final ConcurrentHashMap<Long, SharedProxy> leases = new ConcurrentHashMap<Long, SharedProxy>();
+
+    private static final List<SharedProxy> idleProxies = new ArrayList<SharedProxy>();
+
+    // ------------------------- HAR RECORDING ---------------------
+
+    public static final String HAR_FILE_NAME = "network.har.ndjson";
+
+    private static final ConcurrentHashMap<Long, HarRecorder> recorders = new ConcurrentHashMap<Long, HarRecorder>();
+
+    // the only HAR filter factory of every proxy server, recorders are attached to it for the time of recording
+    private static final ConcurrentHashMap<BrowserMobProxy, HarRecorderDispatcher> harDispatchers = new ConcurrentHashMap<BrowserMobProxy, HarRecorderDispatcher>();
     
     // TODO: investigate possibility to return interface to support JettyProxy
     /**
@@ -120,23 +145,30 @@ public final class ProxyPool {
         }
         // integrate browserMob proxy if required here
         BrowserMobProxy proxy = null;
-        long threadId = Thread.currentThread().getId();
-        if (proxies.containsKey(threadId)) {
-            proxy = proxies.get(threadId);
-        } 
-        
-        // case when proxy was already instantiatead but port doesn't correspond to current device
-        if (null == proxy || proxy.getPort() != proxyPort) {
-            proxy = ProxyPool.createProxy();
-            proxies.put(Thread.currentThread().getId(), proxy);
-        }
-        
-        if (!proxy.isStarted()) {
-            LOGGER.info("Starting BrowserMob proxy...");
-            killProcessByPort(proxyPort);
-            proxy.start(proxyPort);
+        if (Configuration.getBoolean(Parameter.BROWSERMOB_SHARED)) {
+            proxy = leaseProxy(proxyPort).getProxy();
         } else {
-            LOGGER.info("BrowserMob proxy is already started on port " + proxy.getPort());
+            long threadId = Thread.currentThread().getId();
+            if (proxies.containsKey(threadId)) {
+                proxy = proxies.get(threadId);
+            } 
+            
+            // case when proxy was already instantiatead but port doesn't correspond to current device
+            if (null == proxy || proxy.getPort() != proxyPort) {
+                if (proxy != null) {
+                    harDispatchers.remove(proxy);
+                }
+                proxy = ProxyPool.createProxy();
+                proxies.put(Thread.currentThread().getId(), proxy);
+            }
+            
+            if (!proxy.isStarted()) {
+                LOGGER.info("Starting BrowserMob proxy...");
+                killProcessByPort(proxyPort);
+                proxy.start(proxyPort);
+            } else {
+                LOGGER.info("BrowserMob proxy is already started on port " + proxy.getPort());
+            }
         }
 
         Integer port = proxy.getPort();
@@ -162,6 +194,11 @@ public final class ProxyPool {
      */
     public static void stopProxy() {
         long threadId = Thread.currentThread().getId();
+        stopHarRecording(threadId);
+        if (leases.containsKey(threadId)) {
+            releaseProxy(threadId);
+            return;
+        }
         stopProxyByThread(threadId);
     }
     
@@ -169,9 +206,83 @@ public final class ProxyPool {
      * Stop all proxies if possible
      */
     public static void stopAllProxies() {
+        for (Long threadId : Collections.list(recorders.keys())) {
+            stopHarRecording(threadId);
+        }
         for (Long threadId : Collections.list(proxies.keys())) {
             stopProxyByThread(threadId);
         }
+        for (Long threadId : Collections.list(leases.keys())) {
+            releaseProxy(threadId);
+        }
+        synchronized (idleProxies) {
+            for (SharedProxy proxy : idleProxies) {
+                LOGGER.info("Stopping shared BrowserMob proxy on port " + proxy.getPort());
+                harDispatchers.remove(proxy.getServer());
+                proxy.stop();
+            }
+            idleProxies.clear();
+        }
+    }
+
+    /**
+     * Lease started shared proxy for current thread. Proxy is started if there is no idle one.
+     * 
+     * @param proxyPort
+     *            required port or 0 for any
+     * @return SharedProxy
+     */
+    private static SharedProxy leaseProxy(int proxyPort) {
+        long threadId = Thread.currentThread().getId();
+        SharedProxy lease = leases.get(threadId);
+        if (lease != null) {
+            if (proxyPort == 0 || lease.getPort() == proxyPort) {
+                LOGGER.info("BrowserMob proxy is already leased on port " + lease.getPort());
+                return lease;
+            }
+            // port doesn't correspond to current device
+            releaseProxy(threadId);
+            lease = null;
+        }
+
+        synchronized (idleProxies) {
+            Iterator<SharedProxy> iterator = idleProxies.iterator();
+            while (iterator.hasNext()) {
+                SharedProxy proxy = iterator.next();
+                if (proxyPort == 0 || proxy.getPort() == proxyPort) {
+                    iterator.remove();
+                    lease = proxy;
+                    break;
+                }
+            }
+        }
+
+        if (lease == null) {
+            LOGGER.info("Starting shared BrowserMob proxy...");
+            BrowserMobProxy server = createProxy();
+            server.start(proxyPort);
+            lease = new SharedProxy(server);
+        }
+        leases.put(threadId, lease);
+        LOGGER.info("BrowserMob proxy on port " + lease.getPort() + " is leased by thread: " + threadId);
+        return lease;
+    }
+
+    /**
+     * Return shared proxy leased by thread into the pool dropping all session settings.
+     * 
+     * @param threadId
+     */
+    private static void releaseProxy(long threadId) {
+        SharedProxy lease = leases.remove(threadId);
+        if (lease != null) {
+            lease.reset();
+            synchronized (idleProxies) {
+                // the last released proxy is leased first
+                idleProxies.add(0, lease);
+            }
+            LOGGER.info("BrowserMob proxy on port " + lease.getPort() + " is released by thread: " + threadId);
+        }
     }
     
     /**
@@ -198,6 +309,7 @@ public final class ProxyPool {
                 } else {
                     LOGGER.info("Stopping BrowserMob proxy skipped as it is not started.");
                 }
+                harDispatchers.remove(proxy);
             }
             proxies.remove(threadId);
         }
@@ -213,7 +325,9 @@ public final class ProxyPool {
     public static BrowserMobProxy getProxy() {
         BrowserMobProxy proxy = null;
         long threadId = Thread.currentThread().getId();
-        if (proxies.containsKey(threadId)) {
+        if (leases.containsKey(threadId)) {
+            proxy = leases.get(threadId).getProxy();
+        } else if (proxies.containsKey(threadId)) {
             proxy = proxies.get(threadId);
         } else {
             Assert.fail("There is not registered BrowserMobProxy for thread: " + threadId);
@@ -221,6 +335,78 @@ public final class ProxyPool {
         return proxy;
     }
     
+    /**
+     * Start recording of network calls passed through the proxy of current thread into the test directory. Calls are
+     * appended to the file one by one instead of keeping HAR in memory, response bodies are truncated according to
+     * browsermob_har_body_limit and browsermob_har_body_timeout. Previous recording of the thread is stopped.
+     * 
+     * @return HarRecorder to query recorded calls
+     */
+    public static HarRecorder startHarRecording() {
+        long threadId = Thread.currentThread().getId();
+        stopHarRecording(threadId);
+
+        File file = new File(ReportContext.getTestDir(), HAR_FILE_NAME);
+        HarRecorder recorder;
+        try {
+            recorder = new HarRecorder(file, Configuration.getInt(Parameter.BROWSERMOB_HAR_BODY_LIMIT),
+                    Configuration.getLong(Parameter.BROWSERMOB_HAR_BODY_TIMEOUT));
+        } catch (IOException e) {
+            throw new RuntimeException("Unable to create HAR file: " + file.getAbsolutePath(), e);
+        }
+        getHarDispatcher(threadId).setRecorder(recorder);
+        recorders.put(threadId, recorder);
+        LOGGER.info("Network calls are recorded into " + file.getAbsolutePath());
+        return recorder;
+    }
+
+    /**
+     * get HAR recorder of current thread
+     * 
+     * @return HarRecorder or null if recording isn't started
+     */
+    public static HarRecorder getHarRecorder() {
+        return recorders.get(Thread.currentThread().getId());
+    }
+
+    /**
+     * Stop recording of network calls of current thread. It is stopped automatically on proxy stop.
+     */
+    public static void stopHarRecording() {
+        stopHarRecording(Thread.currentThread().getId());
+    }
+
+    private static void stopHarRecording(long threadId) {
+        HarRecorder recorder = recorders.remove(threadId);
+        if (recorder != null) {
+            for (HarRecorderDispatcher dispatcher : harDispatchers.values()) {
+                dispatcher.removeRecorder(recorder);
+            }
+            recorder.release();
+            LOGGER.debug("Network calls recording is stopped: " + recorder.getFile().getAbsolutePath());
+        }
+    }
+
+    private static HarRecorderDispatcher getHarDispatcher(long threadId) {
+        return harDispatchers.computeIfAbsent(getServer(threadId), server -> {
+            HarRecorderDispatcher dispatcher = new HarRecorderDispatcher();
+            server.addFirstHttpFilterFactory(dispatcher);
+            return dispatcher;
+        });
+    }
+
+    /**
+     * get proxy server of the thread. Unlike {@link #getProxy()} it returns the server itself instead of the session view
+     * for shared proxy, filter factories added via session view are dropped on release.
+     * 
+     * @param threadId
+     * @return BrowserMobProxy
+     */
+    static BrowserMobProxy getServer(long threadId) {
+        SharedProxy lease = leases.get(threadId);
+        return lease != null ? lease.getServer() : getProxy();
+    }
+
     /**
      * return true if proxy is already registered
      * 
@@ -229,7 +415,7 @@ public final class ProxyPool {
      */
     public static boolean isProxyRegistered() {
         long threadId = Thread.currentThread().getId();
-        return proxies.containsKey(threadId);
+        return proxies.containsKey(threadId) || leases.containsKey(threadId);
     }
 
     /**
@@ -244,7 +430,7 @@ public final class ProxyPool {
         if (proxies.containsKey(threadId)) {
             LOGGER.warn("Existing proxy is detected and will be overriten");
             // No sense to stop as it is not supported
-            proxies.remove(threadId);
+            harDispatchers.remove(proxies.remove(threadId));
         }
         
         LOGGER.info("Register custom proxy with thread: " + threadId);
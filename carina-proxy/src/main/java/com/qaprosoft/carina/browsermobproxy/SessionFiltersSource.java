@@ -0,0 +1,243 @@
+/*******************************************************************************
+ * Copyright 2013-2018 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.browsermobproxy;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import org.littleshoot.proxy.HttpFilters;
+import org.littleshoot.proxy.HttpFiltersSource;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.HttpObject;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponse;
+
+/**
+ * Filter factory registered in shared proxy server only once. It forwards calls to filter factories added by the
+ * current session, so the filter chain of the long-living server doesn't grow with every lease (BrowserMob doesn't allow
+ * to remove filter factories). Filters of several factories are called in the order of adding like BrowserMob does for
+ * own filter chain.
+ */
+class SessionFiltersSource implements HttpFiltersSource {
+    private final List<HttpFiltersSource> sources = new CopyOnWriteArrayList<HttpFiltersSource>();
+
+    void add(HttpFiltersSource source) {
+        sources.add(source);
+    }
+
+    void addFirst(HttpFiltersSource source) {
+        sources.add(0, source);
+    }
+
+    /**
+     * Drops filter factories of the previous session.
+     */
+    void clear() {
+        sources.clear();
+    }
+
+    @Override
+    public HttpFilters filterRequest(HttpRequest originalRequest, ChannelHandlerContext ctx) {
+        List<HttpFilters> filters = new ArrayList<HttpFilters>();
+        for (HttpFiltersSource source : sources) {
+            HttpFilters filter = source.filterRequest(originalRequest, ctx);
+            if (filter != null) {
+                filters.add(filter);
+            }
+        }
+        if (filters.isEmpty()) {
+            return null;
+        }
+        return filters.size() == 1 ? filters.get(0) : new FiltersChain(filters);
+    }
+
+    @Override
+    public int getMaximumRequestBufferSizeInBytes() {
+        int size = 0;
+        for (HttpFiltersSource source : sources) {
+            size = Math.max(size, source.getMaximumRequestBufferSizeInBytes());
+        }
+        return size;
+    }
+
+    @Override
+    public int getMaximumResponseBufferSizeInBytes() {
+        int size = 0;
+        for (HttpFiltersSource source : sources) {
+            size = Math.max(size, source.getMaximumResponseBufferSizeInBytes());
+        }
+        return size;
+    }
+
+    /**
+     * Filters of one request created by several session factories.
+     */
+    private static class FiltersChain implements HttpFilters {
+        private final List<HttpFilters> filters;
+
+        FiltersChain(List<HttpFilters> filters) {
+            this.filters = filters;
+        }
+
+        @Override
+        public HttpResponse clientToProxyRequest(HttpObject httpObject) {
+            for (HttpFilters filter : filters) {
+                HttpResponse response = filter.clientToProxyRequest(httpObject);
+                if (response != null) {
+                    return response;
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public HttpResponse proxyToServerRequest(HttpObject httpObject) {
+            for (HttpFilters filter : filters) {
+                HttpResponse response = filter.proxyToServerRequest(httpObject);
+                if (response != null) {
+                    return response;
+                }
+            }
+            return null;
+        }
+
+        @Override
+        public void proxyToServerRequestSending() {
+            for (HttpFilters filter : filters) {
+                filter.proxyToServerRequestSending();
+            }
+        }
+
+        @Override
+        public void proxyToServerRequestSent() {
+            for (HttpFilters filter : filters) {
+                filter.proxyToServerRequestSent();
+            }
+        }
+
+        @Override
+        public HttpObject serverToProxyResponse(HttpObject httpObject) {
+            HttpObject processed = httpObject;
+            for (HttpFilters filter : filters) {
+                processed = filter.serverToProxyResponse(processed);
+                if (processed == null) {
+                    return null;
+                }
+            }
+            return processed;
+        }
+
+        @Override
+        public void serverToProxyResponseTimedOut() {
+            for (HttpFilters filter : filters) {
+                filter.serverToProxyResponseTimedOut();
+            }
+        }
+
+        @Override
+        public void serverToProxyResponseReceiving() {
+            for (HttpFilters filter : filters) {
+                filter.serverToProxyResponseReceiving();
+            }
+        }
+
+        @Override
+        public void serverToProxyResponseReceived() {
+            for (HttpFilters filter : filters) {
+                filter.serverToProxyResponseReceived();
+            }
+        }
+
+        @Override
+        public HttpObject proxyToClientResponse(HttpObject httpObject) {
+            HttpObject processed = httpObject;
+            for (HttpFilters filter : filters) {
+                processed = filter.proxyToClientResponse(processed);
+                if (processed == null) {
+                    return null;
+                }
+            }
+            return processed;
+        }
+
+        @Override
+        public void proxyToServerConnectionQueued() {
+            for (HttpFilters filter : filters) {
+                filter.proxyToServerConnectionQueued();
+            }
+        }
+
+        @Override
+        public InetSocketAddress proxyToServerResolutionStarted(String resolvingServerHostAndPort) {
+            InetSocketAddress address = null;
+            String hostAndPort = resolvingServerHostAndPort;
+            for (HttpFilters filter : filters) {
+                InetSocketAddress filterAddress = filter.proxyToServerResolutionStarted(hostAndPort);
+                if (filterAddress != null) {
+                    // the next filter gets address resolved by the previous one
+                    address = filterAddress;
+                    hostAndPort = filterAddress.getHostString() + ":" + filterAddress.getPort();
+                }
+            }
+            return address;
+        }
+
+        @Override
+        public void proxyToServerResolutionFailed(String hostAndPort) {
+            for (HttpFilters filter : filters) {
+                filter.proxyToServerResolutionFailed(hostAndPort);
+            }
+        }
+
+        @Override
+        public void proxyToServerResolutionSucceeded(String serverHostAndPort, InetSocketAddress resolvedRemoteAddress) {
+            for (HttpFilters filter : filters) {
+                filter.proxyToServerResolutionSucceeded(serverHostAndPort, resolvedRemoteAddress);
+            }
+        }
+
+        @Override
+        public void proxyToServerConnectionStarted() {
+            for (HttpFilters filter : filters) {
+                filter.proxyToServerConnectionStarted();
+            }
+        }
+
+        @Override
+        public void proxyToServerConnectionSSLHandshakeStarted() {
+            for (HttpFilters filter : filters) {
+                filter.proxyToServerConnectionSSLHandshakeStarted();
+            }
+        }
+
+        @Override
+        public void proxyToServerConnectionFailed() {
+            for (HttpFilters filter : filters) {
+                filter.proxyToServerConnectionFailed();
+            }
+        }
+
+        @Override
+        public void proxyToServerConnectionSucceeded(ChannelHandlerContext serverCtx) {
+            for (HttpFilters filter : filters) {
+                filter.proxyToServerConnectionSucceeded(serverCtx);
+            }
+        }
+    }
+}
@@ -0,0 +1,178 @@
+/*******************************************************************************
+ * Copyright 2013-2018 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.browsermobproxy;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.log4j.Logger;
+import org.littleshoot.proxy.HttpFiltersSource;
+
+import io.netty.handler.codec.http.HttpResponse;
+import net.lightbody.bmp.BrowserMobProxy;
+import net.lightbody.bmp.filters.RequestFilter;
+import net.lightbody.bmp.filters.ResponseFilter;
+import net.lightbody.bmp.proxy.CaptureType;
+import net.lightbody.bmp.proxy.dns.AdvancedHostResolver;
+
+/**
+ * Long-living BrowserMob proxy server leased by one test session at a time. Request and response filters added
+ * through {@link #getProxy()} are kept by the lease and dropped together with HAR, HAR capture types, headers, blacklist,
+ * whitelist, rewrite rules, latency, bandwidth limits, auto authorization and host remappings on {@link #reset()}.
+ * Filter factories of the session are dropped on reset as well, so the next session gets a clean proxy without
+ * starting a new server. Start/stop calls of the session are ignored as the server lifecycle is managed by
+ * {@link ProxyPool}. Timeouts and chained proxy can't be restored on the running server, so the session view rejects
+ * them with {@link UnsupportedOperationException}.
+ */
+final class SharedProxy {
+    private static final Logger LOGGER = Logger.getLogger(SharedProxy.class);
+
+    private final BrowserMobProxy server;
+    private final BrowserMobProxy session;
+
+    private final List<RequestFilter> requestFilters = new CopyOnWriteArrayList<RequestFilter>();
+    private final List<ResponseFilter> responseFilters = new CopyOnWriteArrayList<ResponseFilter>();
+
+    // domains of auto authorization added by the session
+    private final Set<String> authorizedDomains = ConcurrentHashMap.newKeySet();
+
+    private final EnumSet<CaptureType> defaultCaptureTypes;
+    private final AdvancedHostResolver defaultResolver;
+
+    // filter factories of the current session added before and after BrowserMob filters
+    private final SessionFiltersSource firstFilterFactories = new SessionFiltersSource();
+    private final SessionFiltersSource lastFilterFactories = new SessionFiltersSource();
+
+    SharedProxy(BrowserMobProxy server) {
+        this.server = server;
+        this.defaultCaptureTypes = EnumSet.copyOf(server.getHarCaptureTypes());
+        this.defaultResolver = server.getHostNameResolver();
+        // the only filters registered in the server, they dispatch messages to filters of the current session
+        server.addRequestFilter((request, contents, messageInfo) -> {
+            for (RequestFilter filter : requestFilters) {
+                HttpResponse response = filter.filterRequest(request, contents, messageInfo);
+                if (response != null) {
+                    return response;
+                }
+            }
+            return null;
+        });
+        server.addResponseFilter((response, contents, messageInfo) -> {
+            for (ResponseFilter filter : responseFilters) {
+                filter.filterResponse(response, contents, messageInfo);
+            }
+        });
+        server.addFirstHttpFilterFactory(firstFilterFactories);
+        server.addLastHttpFilterFactory(lastFilterFactories);
+        this.session = (BrowserMobProxy) Proxy.newProxyInstance(BrowserMobProxy.class.getClassLoader(),
+                new Class<?>[] { BrowserMobProxy.class }, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                    case "addRequestFilter":
+                        requestFilters.add((RequestFilter) args[0]);
+                        return null;
+                    case "addResponseFilter":
+                        responseFilters.add((ResponseFilter) args[0]);
+                        return null;
+                    case "addFirstHttpFilterFactory":
+                        firstFilterFactories.addFirst((HttpFiltersSource) args[0]);
+                        return null;
+                    case "addLastHttpFilterFactory":
+                        lastFilterFactories.add((HttpFiltersSource) args[0]);
+                        return null;
+                    case "autoAuthorization":
+                        authorizedDomains.add((String) args[0]);
+                        break;
+                    case "setConnectTimeout":
+                    case "setIdleConnectionTimeout":
+                    case "setRequestTimeout":
+                    case "setChainedProxy":
+                    case "setChainedProxyManager":
+                    case "chainedProxyAuthorization":
+                        throw new UnsupportedOperationException("'" + method.getName()
+                                + "' changes shared BrowserMob proxy for all sessions, disable browsermob_shared to use it.");
+                    case "start":
+                    case "stop":
+                    case "abort":
+                        LOGGER.debug("Shared BrowserMob proxy ignores '" + method.getName() + "' call of the session.");
+                        return null;
+                    default:
+                        break;
+                    }
+                    try {
+                        return method.invoke(server, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    /**
+     * @return view of the proxy for the session which lease it
+     */
+    BrowserMobProxy getProxy() {
+        return session;
+    }
+
+    BrowserMobProxy getServer() {
+        return server;
+    }
+
+    int getPort() {
+        return server.getPort();
+    }
+
+    /**
+     * Drops all settings of the previous session.
+     */
+    void reset() {
+        requestFilters.clear();
+        responseFilters.clear();
+        firstFilterFactories.clear();
+        lastFilterFactories.clear();
+        if (server.getHar() != null) {
+            server.endHar();
+        }
+        server.removeAllHeaders();
+        server.clearBlacklist();
+        server.disableWhitelist();
+        server.clearRewriteRules();
+        server.setLatency(0, TimeUnit.MILLISECONDS);
+        server.setReadBandwidthLimit(0);
+        server.setWriteBandwidthLimit(0);
+        server.setHarCaptureTypes(defaultCaptureTypes);
+        for (String domain : authorizedDomains) {
+            server.stopAutoAuthorization(domain);
+        }
+        authorizedDomains.clear();
+        server.setHostNameResolver(defaultResolver);
+        server.getHostNameResolver().clearHostRemappings();
+    }
+
+    void stop() {
+        try {
+            server.stop();
+        } catch (IllegalStateException e) {
+            LOGGER.info("Seems like proxy was already stopped.");
+            LOGGER.info(e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,157 @@
+/*******************************************************************************
+ * Copyright 2013-2018 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.browsermobproxy.har;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Network call recorded by {@link HarRecorder}. Response body is kept only for text responses without content
+ * encoding and is truncated by size/time limits of the recorder.
+ */
+public class HarRecord {
+    private long startedDateTime;
+    private long time;
+    private String method;
+    private String url;
+    private int status;
+    private String error;
+    private Map<String, String> requestHeaders = new LinkedHashMap<String, String>();
+    private Map<String, String> responseHeaders = new LinkedHashMap<String, String>();
+    private String contentType;
+    private long bodySize;
+    private String body;
+    private boolean bodyTruncated;
+
+    /**
+     * @return request start time in milliseconds since epoch
+     */
+    public long getStartedDateTime() {
+        return startedDateTime;
+    }
+
+    public void setStartedDateTime(long startedDateTime) {
+        this.startedDateTime = startedDateTime;
+    }
+
+    /**
+     * @return milliseconds from request start till the last response chunk
+     */
+    public long getTime() {
+        return time;
+    }
+
+    public void setTime(long time) {
+        this.time = time;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    public void setMethod(String method) {
+        this.method = method;
+    }
+
+    public String getUrl() {
+        return url;
+    }
+
+    public void setUrl(String url) {
+        this.url = url;
+    }
+
+    /**
+     * @return response status or 0 if response wasn't received
+     */
+    public int getStatus() {
+        return status;
+    }
+
+    public void setStatus(int status) {
+        this.status = status;
+    }
+
+    /**
+     * @return reason of missing response or null
+     */
+    public String getError() {
+        return error;
+    }
+
+    public void setError(String error) {
+        this.error = error;
+    }
+
+    public Map<String, String> getRequestHeaders() {
+        return requestHeaders;
+    }
+
+    public void setRequestHeaders(Map<String, String> requestHeaders) {
+        this.requestHeaders = requestHeaders;
+    }
+
+    public Map<String, String> getResponseHeaders() {
+        return responseHeaders;
+    }
+
+    public void setResponseHeaders(Map<String, String> responseHeaders) {
+        this.responseHeaders = responseHeaders;
+    }
+
+    public String getContentType() {
+        return contentType;
+    }
+
+    public void setContentType(String contentType) {
+        this.contentType = contentType;
+    }
+
+    /**
+     * @return number of received body bytes (encoded if response uses content encoding)
+     */
+    public long getBodySize() {
+        return bodySize;
+    }
+
+    public void setBodySize(long bodySize) {
+        this.bodySize = bodySize;
+    }
+
+    /**
+     * @return captured body or null if body isn't captured
+     */
+    public String getBody() {
+        return body;
+    }
+
+    public void setBody(String body) {
+        this.body = body;
+    }
+
+    public boolean isBodyTruncated() {
+        return bodyTruncated;
+    }
+
+    public void setBodyTruncated(boolean bodyTruncated) {
+        this.bodyTruncated = bodyTruncated;
+    }
+
+    @Override
+    public String toString() {
+        return "HarRecord [method=" + method + ", url=" + url + ", status=" + status + ", time=" + time + "]";
+    }
+}
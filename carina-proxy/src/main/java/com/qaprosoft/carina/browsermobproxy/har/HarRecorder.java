@@ -0,0 +1,367 @@
+/*******************************************************************************
+ * Copyright 2013-2018 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.browsermobproxy.har;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.RandomAccessFile;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+
+import org.apache.log4j.Logger;
+import org.littleshoot.proxy.HttpFilters;
+import org.littleshoot.proxy.HttpFiltersSourceAdapter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.HttpContent;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpObject;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.LastHttpContent;
+import net.lightbody.bmp.filters.HttpsAwareFiltersAdapter;
+
+/**
+ * Records network calls passed through BrowserMob proxy into a file instead of keeping {@link net.lightbody.bmp.core.har.Har}
+ * in memory. Every finished call is appended to the file as a single JSON line ({@link HarRecord}), in-memory index
+ * keeps only URL and position of every record, so memory usage doesn't depend on number of calls and their bodies.
+ *
+ * Responses are not aggregated: body chunks are counted as they pass through the proxy and only the first
+ * maxBodySize bytes received during maxBodyTime milliseconds are kept for text responses without content encoding.
+ * On {@link #close()} the index is saved next to the records file as "url \t offset \t length" lines.
+ *
+ * HTTPS calls are recorded only when MITM is enabled (browsermob_disabled_mitm=false). CONNECT requests are skipped:
+ * traffic passed through the tunnel is not visible to the proxy and LittleProxy doesn't notify filters when the tunnel
+ * is established, so neither status nor timing of a tunnel can be recorded.
+ *
+ * Usage: proxy.addFirstHttpFilterFactory(recorder) or {@link HarRecorderDispatcher#setRecorder(HarRecorder)} for long-living
+ * proxies, then query recorded calls by {@link #findByUrl(String)},
+ * {@link #findByUrlPattern(String)} or {@link #find(Predicate)}.
+ */
+public class HarRecorder extends HttpFiltersSourceAdapter implements Closeable {
+    private static final Logger LOGGER = Logger.getLogger(HarRecorder.class);
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    public static final String INDEX_EXTENSION = ".idx";
+
+    private final File file;
+    private final int maxBodySize;
+    private final long maxBodyTime;
+
+    private final RandomAccessFile output;
+    // positions of records by URL in order of recording
+    private final Map<String, List<long[]>> index = new LinkedHashMap<String, List<long[]>>();
+    private int count;
+    private volatile boolean closed;
+
+    /**
+     * @param file
+     *            - records file, it is overwritten if exists
+     * @param maxBodySize
+     *            - max number of captured body bytes, 0 to skip bodies
+     * @param maxBodyTime
+     *            - max time in milliseconds since response start during which body is captured
+     * @throws IOException if file can't be created
+     */
+    public HarRecorder(File file, int maxBodySize, long maxBodyTime) throws IOException {
+        this.file = file;
+        this.maxBodySize = maxBodySize;
+        this.maxBodyTime = maxBodyTime;
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        this.output = new RandomAccessFile(file, "rw");
+        this.output.setLength(0);
+    }
+
+    @Override
+    public HttpFilters filterRequest(HttpRequest originalRequest, ChannelHandlerContext ctx) {
+        if (closed || HttpMethod.CONNECT.equals(originalRequest.method())) {
+            return null;
+        }
+        return new RecordingFilter(originalRequest, ctx);
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    /**
+     * @return number of recorded calls
+     */
+    public synchronized int size() {
+        return count;
+    }
+
+    /**
+     * @param url
+     *            - full request URL
+     * @return calls with the URL in order of recording
+     * @throws IOException if records can't be read
+     */
+    public synchronized List<HarRecord> findByUrl(String url) throws IOException {
+        List<long[]> positions = index.get(url);
+        if (positions == null) {
+            return Collections.emptyList();
+        }
+        List<HarRecord> records = new ArrayList<HarRecord>(positions.size());
+        for (long[] position : positions) {
+            records.add(read(position));
+        }
+        return records;
+    }
+
+    /**
+     * @param regex
+     *            - regular expression matching the whole request URL
+     * @return matched calls grouped by URL in order of first call of every URL
+     * @throws IOException if records can't be read
+     */
+    public synchronized List<HarRecord> findByUrlPattern(String regex) throws IOException {
+        Pattern pattern = Pattern.compile(regex);
+        List<HarRecord> records = new ArrayList<HarRecord>();
+        for (Map.Entry<String, List<long[]>> entry : index.entrySet()) {
+            if (pattern.matcher(entry.getKey()).matches()) {
+                for (long[] position : entry.getValue()) {
+                    records.add(read(position));
+                }
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Reads all records sequentially, only matched records are kept in memory.
+     *
+     * @param filter
+     *            - record filter
+     * @return matched calls in order of recording
+     * @throws IOException if records can't be read
+     */
+    public synchronized List<HarRecord> find(Predicate<HarRecord> filter) throws IOException {
+        List<HarRecord> records = new ArrayList<HarRecord>();
+        try (BufferedReader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isEmpty()) {
+                    HarRecord record = MAPPER.readValue(line, HarRecord.class);
+                    if (filter.test(record)) {
+                        records.add(record);
+                    }
+                }
+            }
+        }
+        return records;
+    }
+
+    /**
+     * Stops recording and saves URL index. Recorded calls are still available for queries until the file is removed.
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try (PrintWriter writer = new PrintWriter(new File(file.getAbsolutePath() + INDEX_EXTENSION), StandardCharsets.UTF_8.name())) {
+            for (Map.Entry<String, List<long[]>> entry : index.entrySet()) {
+                for (long[] position : entry.getValue()) {
+                    writer.println(entry.getKey() + "\t" + position[0] + "\t" + position[1]);
+                }
+            }
+        } catch (IOException e) {
+            LOGGER.error("Unable to save HAR index for " + file.getAbsolutePath(), e);
+        }
+    }
+
+    /**
+     * Releases records file. Recorder can't be queried after this call.
+     */
+    public synchronized void release() {
+        close();
+        index.clear();
+        try {
+            output.close();
+        } catch (IOException e) {
+            LOGGER.debug("Unable to close " + file.getAbsolutePath(), e);
+        }
+    }
+
+    private synchronized void write(HarRecord record) {
+        if (closed) {
+            return;
+        }
+        try {
+            byte[] bytes = MAPPER.writeValueAsBytes(record);
+            long offset = output.length();
+            output.seek(offset);
+            output.write(bytes);
+            output.write('\n');
+            List<long[]> positions = index.get(record.getUrl());
+            if (positions == null) {
+                positions = new ArrayList<long[]>(1);
+                index.put(record.getUrl(), positions);
+            }
+            positions.add(new long[] { offset, bytes.length });
+            count++;
+        } catch (IOException e) {
+            LOGGER.error("Unable to record network call " + record.getUrl(), e);
+        }
+    }
+
+    private HarRecord read(long[] position) throws IOException {
+        byte[] bytes = new byte[(int) position[1]];
+        long end = output.length();
+        output.seek(position[0]);
+        output.readFully(bytes);
+        output.seek(end);
+        return MAPPER.readValue(bytes, HarRecord.class);
+    }
+
+    private static Map<String, String> toMap(HttpHeaders headers) {
+        Map<String, String> map = new LinkedHashMap<String, String>();
+        for (Map.Entry<String, String> header : headers) {
+            String value = map.get(header.getKey());
+            map.put(header.getKey(), value == null ? header.getValue() : value + ", " + header.getValue());
+        }
+        return map;
+    }
+
+    /**
+     * Collects single network call.
+     */
+    private class RecordingFilter extends HttpsAwareFiltersAdapter {
+        private final HarRecord record = new HarRecord();
+        private final long start = System.currentTimeMillis();
+        private long responseStart;
+        private ByteArrayOutputStream body;
+        private Charset charset = StandardCharsets.UTF_8;
+        private boolean recorded;
+
+        RecordingFilter(HttpRequest originalRequest, ChannelHandlerContext ctx) {
+            super(originalRequest, ctx);
+            record.setStartedDateTime(start);
+            record.setMethod(originalRequest.method().name());
+            record.setUrl(getOriginalUrl());
+            record.setRequestHeaders(toMap(originalRequest.headers()));
+        }
+
+        @Override
+        public HttpObject serverToProxyResponse(HttpObject httpObject) {
+            if (httpObject instanceof HttpResponse) {
+                HttpResponse response = (HttpResponse) httpObject;
+                responseStart = System.currentTimeMillis();
+                record.setStatus(response.status().code());
+                record.setResponseHeaders(toMap(response.headers()));
+                String contentType = response.headers().get(HttpHeaderNames.CONTENT_TYPE);
+                record.setContentType(contentType);
+                if (maxBodySize > 0 && isText(contentType) && response.headers().get(HttpHeaderNames.CONTENT_ENCODING) == null) {
+                    body = new ByteArrayOutputStream(Math.min(maxBodySize, 8 * 1024));
+                    charset = getCharset(contentType);
+                }
+            }
+            if (httpObject instanceof HttpContent) {
+                HttpContent content = (HttpContent) httpObject;
+                int size = content.content().readableBytes();
+                record.setBodySize(record.getBodySize() + size);
+                if (body != null && size > 0) {
+                    int length = Math.min(size, maxBodySize - body.size());
+                    if (length > 0 && System.currentTimeMillis() - responseStart <= maxBodyTime) {
+                        byte[] bytes = new byte[length];
+                        content.content().getBytes(content.content().readerIndex(), bytes);
+                        body.write(bytes, 0, length);
+                    } else {
+                        length = 0;
+                    }
+                    if (length < size) {
+                        record.setBodyTruncated(true);
+                    }
+                }
+                if (httpObject instanceof LastHttpContent) {
+                    finish(null);
+                }
+            }
+            return httpObject;
+        }
+
+        @Override
+        public void serverToProxyResponseTimedOut() {
+            finish("Response timed out");
+        }
+
+        @Override
+        public void proxyToServerResolutionFailed(String hostAndPort) {
+            finish("Unable to resolve " + hostAndPort);
+        }
+
+        @Override
+        public void proxyToServerConnectionFailed() {
+            finish("Unable to connect");
+        }
+
+        private void finish(String error) {
+            if (recorded) {
+                return;
+            }
+            recorded = true;
+            record.setError(error);
+            record.setTime(System.currentTimeMillis() - start);
+            if (body != null) {
+                record.setBody(new String(body.toByteArray(), charset));
+            }
+            write(record);
+        }
+    }
+
+    private static boolean isText(String contentType) {
+        if (contentType == null) {
+            return false;
+        }
+        String type = contentType.toLowerCase();
+        return type.startsWith("text/") || type.contains("json") || type.contains("xml") || type.contains("javascript")
+                || type.contains("x-www-form-urlencoded");
+    }
+
+    private static Charset getCharset(String contentType) {
+        int index = contentType.toLowerCase().indexOf("charset=");
+        if (index != -1) {
+            String name = contentType.substring(index + "charset=".length()).split(";")[0].trim().replace("\"", "");
+            try {
+                return Charset.forName(name);
+            } catch (IllegalArgumentException e) {
+                LOGGER.debug("Unsupported charset: " + name);
+            }
+        }
+        return StandardCharsets.UTF_8;
+    }
+}
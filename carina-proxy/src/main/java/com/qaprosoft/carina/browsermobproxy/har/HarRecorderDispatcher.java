@@ -0,0 +1,61 @@
+/*******************************************************************************
+ * Copyright 2013-2018 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.browsermobproxy.har;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.littleshoot.proxy.HttpFilters;
+import org.littleshoot.proxy.HttpFiltersSourceAdapter;
+
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.http.HttpRequest;
+
+/**
+ * Filter factory registered in proxy server only once. It forwards calls to the current {@link HarRecorder}, so recording
+ * can be started and stopped any number of times on a long-living server while its filter chain stays the same
+ * (BrowserMob doesn't allow to remove filter factories).
+ */
+public class HarRecorderDispatcher extends HttpFiltersSourceAdapter {
+    private final AtomicReference<HarRecorder> recorder = new AtomicReference<HarRecorder>();
+
+    /**
+     * @param recorder
+     *            recorder to forward calls to, previous one is detached
+     */
+    public void setRecorder(HarRecorder recorder) {
+        this.recorder.set(recorder);
+    }
+
+    /**
+     * Detaches recorder if it is the current one.
+     * 
+     * @param recorder
+     *            HarRecorder
+     */
+    public void removeRecorder(HarRecorder recorder) {
+        this.recorder.compareAndSet(recorder, null);
+    }
+
+    public HarRecorder getRecorder() {
+        return recorder.get();
+    }
+
+    @Override
+    public HttpFilters filterRequest(HttpRequest originalRequest, ChannelHandlerContext ctx) {
+        HarRecorder current = recorder.get();
+        return current != null ? current.filterRequest(originalRequest, ctx) : null;
+    }
+}
@@ -0,0 +1,153 @@
+/*******************************************************************************
+ * Copyright 2013-2018 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.browsermobproxy.rewrite;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import org.apache.log4j.Logger;
+
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpMessage;
+import net.lightbody.bmp.util.HttpMessageContents;
+
+/**
+ * Rewrite rules compiled once for all proxied messages. Host and body regular expressions of every {@link RewriteItem}
+ * are compiled in constructor, and all host expressions are combined into a single alternation so a URL that isn't
+ * matched by any rule (the most common case) is rejected by one regex evaluation. Body is decoded only if a matched
+ * rule has a body expression, and every body expression is applied in a single pass over the content.
+ */
+public class RewriteRules {
+
+    protected static final Logger LOGGER = Logger.getLogger(RewriteRules.class);
+
+    // backreferences can't be combined into alternation as group numbers are shifted
+    private static final Pattern BACKREFERENCE = Pattern.compile("\\\\[1-9]|\\\\k<");
+
+    private final List<Rule> rules = new ArrayList<Rule>();
+
+    // combined host expressions or null if some of them can't be combined
+    private final Pattern hosts;
+
+    public RewriteRules(List<RewriteItem> rewrites) {
+        StringBuilder combined = new StringBuilder();
+        boolean combinable = true;
+        for (RewriteItem rewrite : rewrites) {
+            rules.add(new Rule(rewrite));
+            combinable &= !BACKREFERENCE.matcher(rewrite.getHost()).find();
+            combined.append(combined.length() > 0 ? "|" : "").append("(?:").append(rewrite.getHost()).append(')');
+        }
+        this.hosts = combinable && !rules.isEmpty() ? compile(combined.toString()) : null;
+    }
+
+    /**
+     * @return compiled pattern or null if expressions can't be combined (e.g. duplicate group names)
+     */
+    private static Pattern compile(String combined) {
+        try {
+            return Pattern.compile(combined);
+        } catch (PatternSyntaxException e) {
+            LOGGER.debug("Host expressions can't be combined, every rule will be matched separately: " + e.getMessage());
+            return null;
+        }
+    }
+
+    public boolean isEmpty() {
+        return rules.isEmpty();
+    }
+
+    /**
+     * Applies header and body rewrites of all rules matching URL.
+     *
+     * @param url
+     *            - request URL
+     * @param message
+     *            - request or response which headers are updated
+     * @param contents
+     *            - message contents or null if body shouldn't be rewritten
+     */
+    public void apply(String url, HttpMessage message, HttpMessageContents contents) {
+        if (rules.isEmpty() || (hosts != null && !hosts.matcher(url).matches())) {
+            return;
+        }
+        String content = null;
+        boolean changed = false;
+        for (Rule rule : rules) {
+            if (!rule.host.matcher(url).matches()) {
+                continue;
+            }
+            LOGGER.debug("Rewrite rule will be applied for host: ".concat(url));
+            applyHeaders(message.headers(), rule.item.getHeaders());
+
+            if (rule.body != null && contents != null && contents.isText()) {
+                if (content == null) {
+                    content = contents.getTextContents();
+                }
+                Matcher matcher = rule.body.matcher(content);
+                if (matcher.find()) {
+                    StringBuffer sb = new StringBuffer(content.length());
+                    do {
+                        matcher.appendReplacement(sb, rule.item.getReplacement());
+                    } while (matcher.find());
+                    matcher.appendTail(sb);
+                    content = sb.toString();
+                    changed = true;
+                }
+            }
+        }
+        if (changed) {
+            contents.setTextContents(content);
+        }
+    }
+
+    private static void applyHeaders(HttpHeaders headers, List<HeaderItem> items) {
+        if (items == null) {
+            return;
+        }
+        for (HeaderItem headerItem : items) {
+            LOGGER.debug("Rewrite header: ".concat(headerItem.toString()));
+            switch (headerItem.getMethod()) {
+            case ADD:
+                headers.add(headerItem.getHeader().getKey(), headerItem.getHeader().getValue());
+                break;
+            case REMOVE:
+                headers.remove(headerItem.getHeader().getKey());
+                break;
+            case UPDATE:
+                headers.set(headerItem.getHeader().getKey(), headerItem.getHeader().getValue());
+                break;
+            default:
+                break;
+            }
+        }
+    }
+
+    private static class Rule {
+        private final RewriteItem item;
+        private final Pattern host;
+        private final Pattern body;
+
+        Rule(RewriteItem item) {
+            this.item = item;
+            this.host = Pattern.compile(item.getHost());
+            // empty regex means that body shouldn't be rewritten
+            this.body = item.getRegex() != null && !item.getRegex().isEmpty() ? Pattern.compile(item.getRegex()) : null;
+        }
+    }
+}
@@ -27,7 +27,7 @@ public class SystemProxy {
 
     protected static final Logger LOGGER = Logger.getLogger(SystemProxy.class);
 
-    public static void setupProxy() {
+    public static synchronized void setupProxy() {
         String proxyHost = Configuration.get(Parameter.PROXY_HOST);
         String proxyPort = Configuration.get(Parameter.PROXY_PORT);
 
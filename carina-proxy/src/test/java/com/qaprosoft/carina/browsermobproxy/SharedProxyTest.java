@@ -0,0 +1,263 @@
+/*******************************************************************************
+ * Copyright 2013-2018 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.browsermobproxy;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.io.IOUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.qaprosoft.carina.browsermobproxy.har.HarRecorder;
+import com.qaprosoft.carina.core.foundation.utils.R;
+import com.sun.net.httpserver.HttpServer;
+
+import net.lightbody.bmp.BrowserMobProxy;
+import net.lightbody.bmp.BrowserMobProxyServer;
+import net.lightbody.bmp.proxy.CaptureType;
+import net.lightbody.bmp.proxy.auth.AuthType;
+
+public class SharedProxyTest {
+    private static final String[] PARAMS = { "browsermob_proxy", "browsermob_shared", "browsermob_port", "proxy_host", "proxy_port",
+            "proxy_protocols", "browsermob_har_body_limit", "browsermob_har_body_timeout" };
+
+    private final Map<String, String> config = new HashMap<String, String>();
+    private HttpServer server;
+
+    @BeforeClass
+    public void init() throws IOException {
+        for (String param : PARAMS) {
+            config.put(param, R.CONFIG.get(param));
+        }
+        R.CONFIG.put("browsermob_proxy", "true");
+        R.CONFIG.put("browsermob_shared", "true");
+        R.CONFIG.put("browsermob_port", "0");
+        R.CONFIG.put("browsermob_har_body_limit", "1024");
+        R.CONFIG.put("browsermob_har_body_timeout", "1000");
+
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            byte[] body = "carina".getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; charset=UTF-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(body);
+            }
+        });
+        server.createContext("/auth", exchange -> {
+            String authorization = exchange.getRequestHeaders().getFirst("Authorization");
+            byte[] body = String.valueOf(authorization).getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(body);
+            }
+        });
+        server.start();
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void restore() {
+        ProxyPool.stopAllProxies();
+        server.stop(0);
+        for (Map.Entry<String, String> param : config.entrySet()) {
+            R.CONFIG.put(param.getKey(), param.getValue());
+        }
+    }
+
+    @Test
+    public void testProxyIsReusedWithCleanSettings() throws IOException {
+        BrowserMobProxy proxy = ProxyPool.startProxy(0);
+        int port = proxy.getPort();
+        proxy.addResponseFilter((response, contents, messageInfo) -> contents.setTextContents("filtered"));
+        proxy.addHeader("X-Session", "1");
+        proxy.newHar();
+        Assert.assertEquals(get(port), "filtered");
+        Assert.assertEquals(proxy.getHar().getLog().getEntries().size(), 1);
+
+        // the same call is done on driver quit
+        ProxyPool.stopProxy();
+
+        proxy = ProxyPool.startProxy(0);
+        Assert.assertEquals(proxy.getPort(), port, "Started proxy should be reused");
+        Assert.assertTrue(proxy.isStarted());
+        Assert.assertNull(proxy.getHar(), "HAR of the previous session should be dropped");
+        Assert.assertTrue(proxy.getAllHeaders().isEmpty(), "Headers of the previous session should be dropped");
+        Assert.assertEquals(get(port), "carina", "Filters of the previous session should be dropped");
+
+        // session can't stop shared proxy
+        proxy.stop();
+        Assert.assertEquals(get(port), "carina");
+        ProxyPool.stopProxy();
+    }
+
+    @Test
+    public void testServerSettingsAreRestoredOnRelease() throws IOException {
+        BrowserMobProxy proxy = ProxyPool.startProxy(0);
+        int port = proxy.getPort();
+        proxy.setHarCaptureTypes(CaptureType.REQUEST_HEADERS, CaptureType.RESPONSE_CONTENT);
+        proxy.autoAuthorization("127.0.0.1", "user", "password", AuthType.BASIC);
+        proxy.getHostNameResolver().remapHost("carina.test", "127.0.0.1");
+        proxy.setReadBandwidthLimit(100000);
+        proxy.setWriteBandwidthLimit(100000);
+        Assert.assertNotEquals(get(port, "/auth"), "null", "Auto authorization should be applied");
+        ProxyPool.stopProxy();
+
+        proxy = ProxyPool.startProxy(0);
+        Assert.assertEquals(proxy.getPort(), port, "Started proxy should be reused");
+        Assert.assertTrue(proxy.getHarCaptureTypes().isEmpty(), "HAR capture types of the previous session should be dropped");
+        Assert.assertEquals(get(port, "/auth"), "null", "Auto authorization of the previous session should be dropped");
+        Assert.assertTrue(proxy.getHostNameResolver().getHostRemappings().isEmpty(), "Host remappings of the previous session should be dropped");
+        Assert.assertEquals(proxy.getReadBandwidthLimit(), 0);
+        Assert.assertEquals(proxy.getWriteBandwidthLimit(), 0);
+        ProxyPool.stopProxy();
+    }
+
+    @Test
+    public void testServerWideSettingsAreRejected() {
+        BrowserMobProxy proxy = ProxyPool.startProxy(0);
+        try {
+            assertUnsupported(() -> proxy.setConnectTimeout(1, TimeUnit.SECONDS));
+            assertUnsupported(() -> proxy.setIdleConnectionTimeout(1, TimeUnit.SECONDS));
+            assertUnsupported(() -> proxy.setRequestTimeout(1, TimeUnit.SECONDS));
+            assertUnsupported(() -> proxy.setChainedProxy(new InetSocketAddress("127.0.0.1", 1)));
+            assertUnsupported(() -> proxy.chainedProxyAuthorization("user", "password", AuthType.BASIC));
+        } finally {
+            ProxyPool.stopProxy();
+        }
+    }
+
+    @Test
+    public void testFilterFactoryIsDroppedOnRelease() throws IOException {
+        File file = File.createTempFile("network", ".har.ndjson");
+        File otherFile = File.createTempFile("network", ".har.ndjson");
+        HarRecorder recorder = new HarRecorder(file, 0, 0);
+        HarRecorder otherRecorder = new HarRecorder(otherFile, 0, 0);
+        try {
+            BrowserMobProxy proxy = ProxyPool.startProxy(0);
+            int port = proxy.getPort();
+            BrowserMobProxyServer server = (BrowserMobProxyServer) ProxyPool.getServer(Thread.currentThread().getId());
+            int filters = server.getFilterFactories().size();
+            proxy.addFirstHttpFilterFactory(recorder);
+            proxy.addLastHttpFilterFactory(otherRecorder);
+            get(port);
+            Assert.assertEquals(otherRecorder.size(), 1, "All filter factories of the session should be called");
+            ProxyPool.stopProxy();
+
+            Assert.assertEquals(ProxyPool.startProxy(0).getPort(), port);
+            get(port);
+            Assert.assertEquals(recorder.size(), 1, "Filter factory of the previous session should be dropped");
+            Assert.assertEquals(server.getFilterFactories().size(), filters, "Session filter factories shouldn't be added to the server");
+        } finally {
+            ProxyPool.stopProxy();
+            for (HarRecorder harRecorder : new HarRecorder[] { recorder, otherRecorder }) {
+                harRecorder.release();
+            }
+            deleteHar(file);
+            deleteHar(otherFile);
+        }
+    }
+
+    @Test
+    public void testHarRecordingDoesNotGrowFilterChain() throws IOException {
+        BrowserMobProxyServer server = null;
+        int filters = 0;
+        for (int i = 0; i < 3; i++) {
+            int port = ProxyPool.startProxy(0).getPort();
+            try {
+                if (server == null) {
+                    server = (BrowserMobProxyServer) ProxyPool.getServer(Thread.currentThread().getId());
+                } else {
+                    Assert.assertSame(ProxyPool.getServer(Thread.currentThread().getId()), server, "Started proxy should be reused");
+                }
+                HarRecorder recorder = ProxyPool.startHarRecording();
+                get(port);
+                Assert.assertEquals(recorder.size(), 1, "Calls should be recorded by the current recorder only");
+                ProxyPool.stopHarRecording();
+                deleteHar(recorder.getFile());
+                get(port);
+                Assert.assertEquals(ProxyPool.getHarRecorder(), null);
+
+                if (i == 0) {
+                    filters = server.getFilterFactories().size();
+                } else {
+                    Assert.assertEquals(server.getFilterFactories().size(), filters, "Filter chain shouldn't grow on every recording");
+                }
+            } finally {
+                ProxyPool.stopProxy();
+            }
+        }
+    }
+
+    @Test
+    public void testConcurrentSessionsUseDifferentProxies() throws Exception {
+        int port = ProxyPool.startProxy(0).getPort();
+        try {
+            int otherPort = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return ProxyPool.startProxy(0).getPort();
+                } finally {
+                    ProxyPool.stopProxy();
+                }
+            }).get();
+            Assert.assertNotEquals(otherPort, port);
+        } finally {
+            ProxyPool.stopProxy();
+        }
+    }
+
+    private static void deleteHar(File file) {
+        file.delete();
+        new File(file.getAbsolutePath() + HarRecorder.INDEX_EXTENSION).delete();
+    }
+
+    private static void assertUnsupported(Runnable call) {
+        try {
+            call.run();
+            Assert.fail("Server-wide setting should be rejected for the session");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+    }
+
+    private String get(int proxyPort) throws IOException {
+        return get(proxyPort, "/");
+    }
+
+    private String get(int proxyPort, String path) throws IOException {
+        URL url = new URL("http://127.0.0.1:" + server.getAddress().getPort() + path);
+        HttpURLConnection connection = (HttpURLConnection) url.openConnection(new Proxy(Proxy.Type.HTTP, new InetSocketAddress("127.0.0.1",
+                proxyPort)));
+        try (InputStream is = connection.getInputStream()) {
+            return IOUtils.toString(is, StandardCharsets.UTF_8);
+        } finally {
+            connection.disconnect();
+        }
+    }
+}
@@ -0,0 +1,154 @@
+/*******************************************************************************
+ * Copyright 2013-2018 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.browsermobproxy.har;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang3.StringUtils;
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import net.lightbody.bmp.BrowserMobProxyServer;
+
+public class HarRecorderTest {
+    private static final String LARGE_BODY = StringUtils.repeat("carina ", 20000);
+
+    private HttpServer server;
+    private BrowserMobProxyServer proxy;
+    private File dir;
+    private HarRecorder recorder;
+
+    @BeforeClass
+    public void init() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/text", exchange -> respond(exchange, "text/plain; charset=UTF-8", "\u00fc carina".getBytes(StandardCharsets.UTF_8)));
+        server.createContext("/large", exchange -> respond(exchange, "text/html", LARGE_BODY.getBytes(StandardCharsets.UTF_8)));
+        server.createContext("/image", exchange -> respond(exchange, "image/png", new byte[] { 1, 2, 3 }));
+        server.start();
+
+        proxy = new BrowserMobProxyServer();
+        proxy.start(0);
+
+        dir = Files.createTempDirectory("har").toFile();
+        recorder = new HarRecorder(new File(dir, "network.har.ndjson"), 1024, 60000);
+        proxy.addFirstHttpFilterFactory(recorder);
+
+        get("/text");
+        get("/large");
+        get("/image");
+        get("/text?query=1");
+        get("/text");
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void shutdown() throws IOException {
+        recorder.release();
+        proxy.stop();
+        server.stop(0);
+        FileUtils.deleteDirectory(dir);
+    }
+
+    @Test
+    public void testFindByUrl() throws IOException {
+        Assert.assertEquals(recorder.size(), 5);
+        List<HarRecord> records = recorder.findByUrl(getUrl("/text"));
+        Assert.assertEquals(records.size(), 2);
+        HarRecord record = records.get(0);
+        Assert.assertEquals(record.getMethod(), "GET");
+        Assert.assertEquals(record.getStatus(), 200);
+        Assert.assertEquals(record.getBody(), "\u00fc carina");
+        Assert.assertFalse(record.isBodyTruncated());
+        Assert.assertEquals(record.getResponseHeaders().get("Content-type"), "text/plain; charset=UTF-8");
+        Assert.assertTrue(recorder.findByUrl(getUrl("/unknown")).isEmpty());
+    }
+
+    @Test
+    public void testBodyIsTruncated() throws IOException {
+        HarRecord record = recorder.findByUrl(getUrl("/large")).get(0);
+        Assert.assertTrue(record.isBodyTruncated());
+        Assert.assertEquals(record.getBody(), LARGE_BODY.substring(0, 1024));
+        Assert.assertEquals(record.getBodySize(), LARGE_BODY.length());
+    }
+
+    @Test
+    public void testBinaryBodyIsNotSaved() throws IOException {
+        HarRecord record = recorder.findByUrl(getUrl("/image")).get(0);
+        Assert.assertNull(record.getBody());
+        Assert.assertEquals(record.getBodySize(), 3);
+    }
+
+    @Test
+    public void testQueries() throws IOException {
+        Assert.assertEquals(recorder.findByUrlPattern(".*/text.*").size(), 3);
+        List<HarRecord> records = recorder.find(record -> record.getContentType().startsWith("text/"));
+        Assert.assertEquals(records.size(), 4);
+        Assert.assertEquals(records.get(1).getUrl(), getUrl("/large"));
+    }
+
+    @Test(dependsOnMethods = { "testFindByUrl", "testBodyIsTruncated", "testBinaryBodyIsNotSaved", "testQueries" })
+    public void testClose() throws IOException {
+        recorder.close();
+        get("/text");
+        Assert.assertEquals(recorder.size(), 5, "Calls shouldn't be recorded after close");
+        Assert.assertEquals(recorder.findByUrl(getUrl("/text")).size(), 2);
+
+        List<String> index = FileUtils.readLines(new File(recorder.getFile().getAbsolutePath() + HarRecorder.INDEX_EXTENSION),
+                StandardCharsets.UTF_8);
+        Assert.assertEquals(index.size(), 5);
+        Assert.assertTrue(index.get(0).startsWith(getUrl("/text") + "\t0\t"), index.get(0));
+        Assert.assertEquals(Arrays.asList(index.get(1).split("\t")).get(0), getUrl("/text"));
+    }
+
+    private String getUrl(String path) {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + path;
+    }
+
+    private String get(String path) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(getUrl(path))
+                .openConnection(new Proxy(Proxy.Type.HTTP, new InetSocketAddress("127.0.0.1", proxy.getPort())));
+        try (InputStream is = connection.getInputStream()) {
+            return IOUtils.toString(is, StandardCharsets.UTF_8);
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private static void respond(HttpExchange exchange, String contentType, byte[] body) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", contentType);
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(body);
+        }
+    }
+}
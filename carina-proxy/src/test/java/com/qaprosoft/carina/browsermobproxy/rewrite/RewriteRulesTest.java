@@ -0,0 +1,111 @@
+/*******************************************************************************
+ * Copyright 2013-2018 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.browsermobproxy.rewrite;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import net.lightbody.bmp.util.HttpMessageContents;
+
+public class RewriteRulesTest {
+
+    @Test
+    public void testBodyAndHeadersRewrite() {
+        RewriteRules rules = new RewriteRules(Arrays.asList(
+                new RewriteItem(".*example\\.com.*", "carina", "CARINA",
+                        Arrays.asList(new HeaderItem(HeaderMethod.ADD, new ImmutablePair<String, String>("X-Rewrite", "true")))),
+                new RewriteItem(".*example\\.com/page.*", "CARINA (\\w+)", "$1", new ArrayList<HeaderItem>()),
+                new RewriteItem(".*other\\.com.*", "framework", "none", new ArrayList<HeaderItem>())));
+
+        FullHttpResponse response = createResponse("text/html; charset=UTF-8", "carina framework, carina tests");
+        HttpMessageContents contents = new HttpMessageContents(response);
+        rules.apply("http://example.com/page", response, contents);
+
+        Assert.assertEquals(contents.getTextContents(), "framework, tests");
+        Assert.assertEquals(response.headers().get("X-Rewrite"), "true");
+    }
+
+    @Test
+    public void testNotMatchedUrl() {
+        RewriteRules rules = new RewriteRules(Arrays.asList(new RewriteItem(".*example\\.com.*", "carina", "CARINA",
+                Arrays.asList(new HeaderItem(HeaderMethod.REMOVE, new ImmutablePair<String, String>("Server", ""))))));
+
+        FullHttpResponse response = createResponse("text/html", "carina");
+        response.headers().set("Server", "netty");
+        HttpMessageContents contents = new HttpMessageContents(response);
+        rules.apply("http://qaprosoft.com/", response, contents);
+
+        Assert.assertEquals(contents.getTextContents(), "carina");
+        Assert.assertEquals(response.headers().get("Server"), "netty");
+    }
+
+    @Test
+    public void testBackreferenceInHost() {
+        RewriteRules rules = new RewriteRules(Arrays.asList(
+                new RewriteItem("http://(\\w+)\\.com/\\1", "a", "b", Collections.<HeaderItem> emptyList()),
+                new RewriteItem(".*never.*", "b", "c", Collections.<HeaderItem> emptyList())));
+
+        FullHttpResponse response = createResponse("text/plain", "aaa");
+        HttpMessageContents contents = new HttpMessageContents(response);
+        rules.apply("http://test.com/test", response, contents);
+        Assert.assertEquals(contents.getTextContents(), "bbb");
+    }
+
+    @Test
+    public void testDuplicateGroupNamesInHosts() {
+        RewriteRules rules = new RewriteRules(Arrays.asList(
+                new RewriteItem("http://(?<site>\\w+)\\.com/.*", "a", "b", Collections.<HeaderItem> emptyList()),
+                new RewriteItem("https://(?<site>\\w+)\\.org/.*", "a", "c", Collections.<HeaderItem> emptyList())));
+
+        FullHttpResponse response = createResponse("text/plain", "aaa");
+        HttpMessageContents contents = new HttpMessageContents(response);
+        rules.apply("https://test.org/test", response, contents);
+        Assert.assertEquals(contents.getTextContents(), "ccc");
+
+        response = createResponse("text/plain", "aaa");
+        contents = new HttpMessageContents(response);
+        rules.apply("http://test.com/test", response, contents);
+        Assert.assertEquals(contents.getTextContents(), "bbb");
+    }
+
+    @Test
+    public void testBinaryBodyIsNotRewritten() {
+        RewriteRules rules = new RewriteRules(Arrays.asList(new RewriteItem(".*", "a", "b", Collections.<HeaderItem> emptyList())));
+
+        FullHttpResponse response = createResponse("image/png", "aaa");
+        HttpMessageContents contents = new HttpMessageContents(response);
+        rules.apply("http://example.com/logo.png", response, contents);
+        Assert.assertEquals(new String(contents.getBinaryContents(), StandardCharsets.UTF_8), "aaa");
+    }
+
+    private static FullHttpResponse createResponse(String contentType, String body) {
+        FullHttpResponse response = new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK,
+                Unpooled.copiedBuffer(body, StandardCharsets.UTF_8));
+        response.headers().set("Content-Type", contentType);
+        return response;
+    }
+}
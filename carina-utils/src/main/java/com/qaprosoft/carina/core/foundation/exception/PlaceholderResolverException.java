@@ -15,6 +15,8 @@
  *******************************************************************************/
 package com.qaprosoft.carina.core.foundation.exception;
 
+import java.util.Collection;
+
 public class PlaceholderResolverException extends RuntimeException {
     private static final long serialVersionUID = -1666532382220155518L;
 
@@ -25,4 +27,8 @@ public class PlaceholderResolverException extends RuntimeException {
     public PlaceholderResolverException(String key) {
         super("Value not found by key '" + key + "'");
     }
+
+    public PlaceholderResolverException(String key, Collection<String> path) {
+        super("Infinite placeholder loop was found for key '" + key + "': " + String.join(" -> ", path) + " -> " + key);
+    }
 }
@@ -19,10 +19,17 @@ import java.io.BufferedWriter;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
 
+import org.apache.commons.lang3.time.FastDateFormat;
 import org.apache.log4j.AppenderSkeleton;
 import org.apache.log4j.MDC;
+import org.apache.log4j.spi.Filter;
 import org.apache.log4j.spi.LoggingEvent;
 
 import com.qaprosoft.carina.core.foundation.report.ReportContext;
@@ -31,11 +38,63 @@ import com.qaprosoft.carina.core.foundation.utils.Configuration.Parameter;
 
 /*
  * This appender log groups test outputs by test method/test thread so they don't mess up each other even they runs in parallel.
+ *
+ * In async mode (log4j.appender.ThreadLogAppender.async=true) events are put into bounded per-thread buffer and
+ * background writer drains them in batches with single flush per batch. Optional properties:
+ * bufferSize - capacity of per-thread buffer, test thread is blocked when buffer is full (1024 by default)
+ * batchSize - max amount of events written per flush (128 by default)
+ * locationInfo - false allows to skip caller location lookup (stack walk), it is captured on the test thread otherwise
+ * as layout is applied by the writer thread
+ *
+ * Writer is stopped when the last test log is closed and started again by the next event.
  */
 public class ThreadLogAppender extends AppenderSkeleton {
+    // 2016-05-26 04:39:16
+    private static final FastDateFormat DATE_FORMAT = FastDateFormat.getInstance("yyyy-MM-dd hh:mm:ss");
+    private static final long FLUSH_INTERVAL = TimeUnit.MILLISECONDS.toNanos(100);
+    // marker of null event as blocking queue doesn't accept nulls
+    private static final Object NULL_EVENT = new Object();
+
     // single buffer for each thread test.log file
-    private final ThreadLocal<BufferedWriter> testLogBuffer = new ThreadLocal<BufferedWriter>();
-    private long bytesWritten;
+    private final ThreadLocal<ThreadLog> testLogBuffer = new ThreadLocal<ThreadLog>();
+
+    private boolean async = false;
+    private int bufferSize = 1024;
+    private int batchSize = 128;
+    private boolean locationInfo = true;
+
+    private final ConcurrentLinkedQueue<ThreadLog> activeLogs = new ConcurrentLinkedQueue<ThreadLog>();
+    private volatile Thread writer;
+    private boolean shutdownHookAdded = false;
+
+    /*
+     * AppenderSkeleton.doAppend is synchronized so all test threads contend on the appender monitor.
+     * Per-thread state below doesn't require it, so the same threshold and filter checks are done without locking.
+     */
+    @Override
+    public void doAppend(LoggingEvent event) {
+        if (closed) {
+            return;
+        }
+        if (!isAsSevereAsThreshold(event.getLevel())) {
+            return;
+        }
+        Filter f = this.headFilter;
+        while (f != null) {
+            switch (f.decide(event)) {
+            case Filter.DENY:
+                return;
+            case Filter.ACCEPT:
+                f = null;
+                break;
+            case Filter.NEUTRAL:
+                f = f.getNext();
+                break;
+            }
+        }
+        append(event);
+    }
+
     @Override
     public void append(LoggingEvent event) {
         // TODO: [VD] OBLIGATORY double check and create separate unit test for this case
@@ -47,44 +106,42 @@ public class ThreadLogAppender extends AppenderSkeleton {
          */
 
         try {
-
-            BufferedWriter fw = testLogBuffer.get();
-            if (fw == null) {
+            ThreadLog log = testLogBuffer.get();
+            if (log == null) {
                 // 1st request to log something for this thread/test
-                File testLogFile = new File(ReportContext.getTestDir() + "/test.log");
-                if (!testLogFile.exists()){
-                    testLogFile.createNewFile();
-                    bytesWritten = 0;
+                log = new ThreadLog(new File(ReportContext.getTestDir() + "/test.log"), Thread.currentThread());
+                testLogBuffer.set(log);
+                if (async) {
+                    activeLogs.add(log);
                 }
-
-                fw = new BufferedWriter(new FileWriter(testLogFile, true));
-                testLogBuffer.set(fw);
-
             }
 
             if (event != null) {
-                // append time, thread, class name and device name if any
-                SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd hh:mm:ss"); // 2016-05-26 04:39:16
-                String time = dateFormat.format(event.getTimeStamp());
-                // System.out.println("time: " + time);
-
-                long threadId = Thread.currentThread().getId();
-                MDC.put("threadId", "-" + String.valueOf(threadId));
-                // System.out.println("thread: " + threadId);
-                String fileName = event.getLocationInformation().getFileName();
-                // System.out.println("fileName: " + fileName);
-
-                String logLevel = event.getLevel().toString();
+                MDC.put("threadId", "-" + String.valueOf(log.threadId));
+            }
 
-                String message = "[%s] [%s] [%s] [%s] %s";
-                message = String.format(message, time, fileName, threadId, logLevel, event.getMessage().toString());
-                ensureCapacity(message.length());
-                fw.write(message);
+            if (async) {
+                if (event != null) {
+                    // capture thread dependent data before passing event to the writer
+                    event.getNDC();
+                    event.getThreadName();
+                    event.getMDCCopy();
+                    event.getRenderedMessage();
+                    if (locationInfo) {
+                        event.getLocationInformation();
+                    }
+                }
+                log.events.put(event != null ? event : NULL_EVENT);
+                Thread logWriter = writer != null ? writer : startWriter();
+                if (log.events.size() >= batchSize) {
+                    LockSupport.unpark(logWriter);
+                }
             } else {
-                fw.write("null");
+                synchronized (log) {
+                    log.write(event);
+                    log.flush();
+                }
             }
-            fw.write("\n");
-            fw.flush();
         } catch (IOException e) {
             e.printStackTrace();
         } catch (Exception e) {
@@ -96,11 +153,14 @@ public class ThreadLogAppender extends AppenderSkeleton {
     @Override
     public void close() {
         try {
-            BufferedWriter fw = testLogBuffer.get();
-            if (fw != null) {
-                fw.close();
+            ThreadLog log = testLogBuffer.get();
+            if (log != null) {
+                closeLog(log);
                 testLogBuffer.remove();
             }
+            if (activeLogs.isEmpty()) {
+                stopWriter();
+            }
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -111,11 +171,219 @@ public class ThreadLogAppender extends AppenderSkeleton {
         return false;
     }
 
-    private void ensureCapacity(int len) throws IOException {
-        long newBytesWritten = this.bytesWritten + len;
-		long maxMegaBytes = Configuration.getLong(Parameter.MAX_LOG_FILE_SIZE) * 1024 * 1024;
-        if (newBytesWritten > maxMegaBytes)
-            throw new IOException("test Log file size exceeded core limit: " + newBytesWritten + " > " + maxMegaBytes);
-        this.bytesWritten = newBytesWritten;
+    public boolean isAsync() {
+        return async;
+    }
+
+    public void setAsync(boolean async) {
+        this.async = async;
+    }
+
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    public void setBufferSize(int bufferSize) {
+        this.bufferSize = Math.max(1, bufferSize);
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    public void setBatchSize(int batchSize) {
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    public boolean getLocationInfo() {
+        return locationInfo;
+    }
+
+    public void setLocationInfo(boolean locationInfo) {
+        this.locationInfo = locationInfo;
+    }
+
+    private String format(LoggingEvent event, long threadId) {
+        if (layout != null) {
+            String message = layout.format(event);
+            // default format is line based so trailing line separator is appended by writer
+            return message.endsWith("\n") ? message.substring(0, message.length() - 1) : message;
+        }
+
+        // append time, thread, class name and device name if any
+        StringBuilder message = new StringBuilder(128);
+        message.append('[').append(DATE_FORMAT.format(event.getTimeStamp())).append("] [");
+        if (locationInfo) {
+            message.append(event.getLocationInformation().getFileName());
+        } else {
+            message.append(event.getLoggerName());
+        }
+        message.append("] [").append(threadId).append("] [").append(event.getLevel()).append("] ");
+        message.append(event.getRenderedMessage());
+        return message.toString();
+    }
+
+    private synchronized Thread startWriter() {
+        if (writer == null) {
+            writer = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    while (!Thread.currentThread().isInterrupted()) {
+                        boolean drained = false;
+                        for (ThreadLog log : activeLogs) {
+                            if (!log.events.isEmpty()) {
+                                synchronized (log) {
+                                    drained |= drain(log, batchSize) > 0;
+                                }
+                            } else if (!log.thread.isAlive()) {
+                                // thread is finished without closing its test log
+                                closeLog(log);
+                            }
+                        }
+                        if (!drained) {
+                            LockSupport.parkNanos(this, FLUSH_INTERVAL);
+                        }
+                    }
+                    // write events put before the writer was stopped
+                    for (ThreadLog log : activeLogs) {
+                        synchronized (log) {
+                            drain(log, Integer.MAX_VALUE);
+                        }
+                    }
+                }
+            }, "ThreadLogAppender-writer");
+            writer.setDaemon(true);
+            writer.start();
+        }
+        if (!shutdownHookAdded) {
+            shutdownHookAdded = true;
+            Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    // write everything left in buffers of still running threads
+                    for (ThreadLog log : activeLogs) {
+                        synchronized (log) {
+                            drain(log, Integer.MAX_VALUE);
+                        }
+                    }
+                }
+            }));
+        }
+        return writer;
+    }
+
+    private synchronized void stopWriter() {
+        Thread logWriter = writer;
+        if (logWriter != null) {
+            writer = null;
+            logWriter.interrupt();
+            try {
+                logWriter.join(TimeUnit.SECONDS.toMillis(1));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    boolean isWriterStarted() {
+        return writer != null;
+    }
+
+    private void closeLog(ThreadLog log) {
+        activeLogs.remove(log);
+        synchronized (log) {
+            drain(log, Integer.MAX_VALUE);
+            try {
+                log.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Writes pending events of the thread log with single flush per batch.
+     * Caller should hold the lock of the log.
+     *
+     * @param log ThreadLog
+     * @param maxBatches int
+     * @return amount of written events
+     */
+    private int drain(ThreadLog log, int maxBatches) {
+        int written = 0;
+        List<Object> batch = new ArrayList<Object>(batchSize);
+        for (int i = 0; i < maxBatches && log.events.drainTo(batch, batchSize) > 0; i++) {
+            for (Object event : batch) {
+                try {
+                    log.write(event == NULL_EVENT ? null : (LoggingEvent) event);
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+            }
+            written += batch.size();
+            batch.clear();
+            try {
+                log.flush();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        return written;
+    }
+
+    private class ThreadLog {
+        private final File file;
+        private final Thread thread;
+        private final long threadId;
+        private final long maxBytes;
+        private final ArrayBlockingQueue<Object> events;
+        private BufferedWriter fw;
+        private long bytesWritten;
+
+        ThreadLog(File file, Thread thread) {
+            this.file = file;
+            this.thread = thread;
+            this.threadId = thread.getId();
+            this.maxBytes = Configuration.getLong(Parameter.MAX_LOG_FILE_SIZE) * 1024 * 1024;
+            this.events = new ArrayBlockingQueue<Object>(bufferSize);
+        }
+
+        private void write(LoggingEvent event) throws IOException {
+            if (fw == null) {
+                if (!file.exists()) {
+                    file.createNewFile();
+                    bytesWritten = 0;
+                }
+                fw = new BufferedWriter(new FileWriter(file, true));
+            }
+            if (event != null) {
+                String message = format(event, threadId);
+                ensureCapacity(message.length());
+                fw.write(message);
+            } else {
+                fw.write("null");
+            }
+            fw.write("\n");
+        }
+
+        private void flush() throws IOException {
+            if (fw != null) {
+                fw.flush();
+            }
+        }
+
+        private void close() throws IOException {
+            if (fw != null) {
+                fw.close();
+                fw = null;
+            }
+        }
+
+        private void ensureCapacity(int len) throws IOException {
+            long newBytesWritten = this.bytesWritten + len;
+            if (newBytesWritten > maxBytes)
+                throw new IOException("test Log file size exceeded core limit: " + newBytesWritten + " > " + maxBytes);
+            this.bytesWritten = newBytesWritten;
+        }
     }
 }
@@ -15,87 +15,138 @@
  *******************************************************************************/
 package com.qaprosoft.carina.core.foundation.performance;
 
-import java.util.Calendar;
+import java.util.HashMap;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.log4j.Logger;
 
+/**
+ * Per-thread performance metrics engine. Every thread owns its own recorders so start/stop calls are lock and
+ * allocation free (after the first usage of an operation). Recorded latencies are collected into
+ * {@link LatencyHistogram} per operation and merged into run-wide statistics on {@link #readAndClear()}.
+ */
 public class Timer {
     private static final Logger LOGGER = Logger.getLogger(Timer.class);
 
-    //data structure to collect summarized/combined datetime  
-    private static ThreadLocal<ConcurrentHashMap<String, Long>> metrics = new ThreadLocal<ConcurrentHashMap<String, Long>>();
-    
-    //data structure for current timer only
-    private static ThreadLocal<ConcurrentHashMap<String, Long>> timer = new ThreadLocal<ConcurrentHashMap<String, Long>>();
+    private static final long NOT_STARTED = -1;
 
-    public static synchronized void start(IPerformanceOperation operation) {
-        Map<String, Long> testTimer = getTimer();
-        if (testTimer.containsKey(operation.getKey())) {
+    // per-thread recorders for started timers and collected latencies
+    private static final ThreadLocal<Map<String, Recorder>> recorders = new ThreadLocal<Map<String, Recorder>>() {
+        @Override
+        protected Map<String, Recorder> initialValue() {
+            return new HashMap<>();
+        }
+    };
+
+    // run-wide statistics merged from drained per-thread snapshots
+    private static final ConcurrentHashMap<String, LatencyHistogram> summary = new ConcurrentHashMap<>();
+
+    public static void start(IPerformanceOperation operation) {
+        Recorder recorder = getRecorder(operation.getKey());
+        if (recorder.startTime != NOT_STARTED) {
             throw new RuntimeException("Operation already started: " + operation.getKey());
         }
-        testTimer.put(operation.getKey(), Calendar.getInstance().getTimeInMillis());
+        recorder.startTime = System.nanoTime();
     }
 
-    public static synchronized void stop(IPerformanceOperation operation) {
-        Map<String, Long> testTimer = getTimer();
-        if (!testTimer.containsKey(operation.getKey())) {
-			// TODO: current exception could stop tests execution which is
-			// inappropriate. Think about erroring only
-//            Disabled due to socket issue
-//            throw new RuntimeException("Operation not started: " + operation.getKey());
+    public static void stop(IPerformanceOperation operation) {
+        long stopTime = System.nanoTime();
+        Recorder recorder = recorders.get().get(operation.getKey());
+        if (recorder == null || recorder.startTime == NOT_STARTED) {
+            // TODO: current exception could stop tests execution which is
+            // inappropriate. Think about erroring only
+            // Disabled due to socket issue
+            // throw new RuntimeException("Operation not started: " + operation.getKey());
             LOGGER.error("Operation not started: " + operation.getKey());
-            testTimer.remove(operation.getKey());
             return;
         }
-        
-        Map<String, Long> testMertrics = getMetrics();
-        long capturedTime = 0;
-        if (testMertrics.get(operation.getKey()) != null) {
-            	//summarize operation time
-            	capturedTime = testMertrics.get(operation.getKey());
-        }
-        testMertrics.put(operation.getKey(), capturedTime + Calendar.getInstance().getTimeInMillis() - testTimer.get(operation.getKey()));
-        //remove stopped timer data 
-        testTimer.remove(operation.getKey());
+        // histogram is tracked in microseconds to keep precision for quick operations
+        recorder.histogram.record(TimeUnit.NANOSECONDS.toMicros(stopTime - recorder.startTime));
+        recorder.startTime = NOT_STARTED;
     }
 
-    public static synchronized Map<String, Long> readAndClear() {
-        Map<String, Long> testTimer = getTimer();
-        for (String key : testTimer.keySet()) {
-            // timer not stopped
-            LOGGER.error("Timer not stopped for operation: " + key);
+    /**
+     * Returns summarized time in milliseconds per operation collected by current thread and clears it.
+     * Drained snapshot is merged into run-wide statistics available via {@link #getSummary()}.
+     *
+     * @return Map of operation key and summarized time in ms
+     */
+    public static Map<String, Long> readAndClear() {
+        Map<String, Long> returnMetrics = new ConcurrentHashMap<>();
+        for (Entry<String, LatencyHistogram> entry : readAndClearHistograms().entrySet()) {
+            returnMetrics.put(entry.getKey(), TimeUnit.MICROSECONDS.toMillis(entry.getValue().getTotal()));
         }
-
-        Map<String, Long> testMertrics = getMetrics();
-        Map<String, Long> returnMetrics = new ConcurrentHashMap<>(testMertrics);
-        // clear
-        testTimer.clear();
-        testMertrics.clear();
         return returnMetrics;
     }
 
-    private static Map<String, Long> getTimer() {
-        ConcurrentHashMap<String, Long> testTimer = timer.get();
-        if (testTimer == null) {
-        	testTimer = new ConcurrentHashMap<>();
-            timer.set(testTimer);
+    /**
+     * Returns latency histograms (in microseconds) per operation collected by current thread and clears them.
+     * Drained snapshot is merged into run-wide statistics available via {@link #getSummary()}.
+     *
+     * @return Map of operation key and histogram copy
+     */
+    public static Map<String, LatencyHistogram> readAndClearHistograms() {
+        Map<String, LatencyHistogram> snapshot = new HashMap<>();
+        for (Entry<String, Recorder> entry : recorders.get().entrySet()) {
+            Recorder recorder = entry.getValue();
+            if (recorder.startTime != NOT_STARTED) {
+                // timer not stopped
+                LOGGER.error("Timer not stopped for operation: " + entry.getKey());
+                recorder.startTime = NOT_STARTED;
+            }
+            if (recorder.histogram.getCount() == 0) {
+                continue;
+            }
+            LatencyHistogram histogram = recorder.histogram.copy();
+            recorder.histogram.reset();
+            snapshot.put(entry.getKey(), histogram);
+
+            LatencyHistogram total = summary.computeIfAbsent(entry.getKey(), k -> new LatencyHistogram());
+            synchronized (total) {
+                total.merge(histogram);
+            }
         }
-        return testTimer;
+        return snapshot;
     }
-    
-    public static synchronized void clear() {
-        getMetrics().clear();
+
+    /**
+     * Returns run-wide latency histograms (in microseconds) merged from all drained threads.
+     *
+     * @return Map of operation key and histogram copy
+     */
+    public static Map<String, LatencyHistogram> getSummary() {
+        Map<String, LatencyHistogram> copy = new HashMap<>();
+        for (Entry<String, LatencyHistogram> entry : summary.entrySet()) {
+            LatencyHistogram histogram = entry.getValue();
+            synchronized (histogram) {
+                copy.put(entry.getKey(), histogram.copy());
+            }
+        }
+        return copy;
+    }
+
+    public static void clear() {
+        for (Recorder recorder : recorders.get().values()) {
+            recorder.histogram.reset();
+        }
     }
 
-    private static Map<String, Long> getMetrics() {
-        ConcurrentHashMap<String, Long> testMetrics = metrics.get();
-        if (testMetrics == null) {
-            testMetrics = new ConcurrentHashMap<>();
-            metrics.set(testMetrics);
+    private static Recorder getRecorder(String key) {
+        Map<String, Recorder> testRecorders = recorders.get();
+        Recorder recorder = testRecorders.get(key);
+        if (recorder == null) {
+            recorder = new Recorder();
+            testRecorders.put(key, recorder);
         }
-        return testMetrics;
+        return recorder;
+    }
+
+    private static class Recorder {
+        private long startTime = NOT_STARTED;
+        private final LatencyHistogram histogram = new LatencyHistogram();
     }
 
     public interface IPerformanceOperation {
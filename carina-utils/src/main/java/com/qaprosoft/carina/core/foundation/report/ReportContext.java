@@ -33,16 +33,11 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-
-import javax.imageio.ImageIO;
 
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.log4j.Logger;
-import org.imgscalr.Scalr;
 
 import com.qaprosoft.carina.core.foundation.commons.SpecialKeywords;
 import com.qaprosoft.carina.core.foundation.log.ThreadLogAppender;
@@ -51,6 +46,7 @@ import com.qaprosoft.carina.core.foundation.utils.Configuration.Parameter;
 import com.qaprosoft.carina.core.foundation.utils.FileManager;
 import com.qaprosoft.carina.core.foundation.utils.R;
 import com.qaprosoft.carina.core.foundation.utils.ZipManager;
+import com.qaprosoft.carina.core.foundation.utils.image.ScreenshotProcessor;
 
 /*
  * Be careful with LOGGER usage here because potentially it could do recursive call together with ThreadLogAppender functionality
@@ -80,8 +76,6 @@ public class ReportContext {
 
     private static final ThreadLocal<File> testDirectory = new ThreadLocal<File>();
 
-    private static final ExecutorService executor = Executors.newCachedThreadPool();
-    
     // Collects screenshot comments. Screenshot comments are associated using screenshot file name.
     private static Map<String, String> screenSteps = Collections.synchronizedMap(new HashMap<String, String>());
 
@@ -292,6 +286,9 @@ public class ReportContext {
     public static File renameTestDir(String test) {
         File testDir = testDirectory.get();
         if (testDir != null) {
+            // screenshots are saved in background so make sure all of them are in place before renaming
+            ScreenshotProcessor.waitForPending(testDir);
+
             // remove info about old directory to register new one for the next
             // test. Extra after method/class/suite custom messages will be
             // logged into the next test.log file
@@ -557,51 +554,14 @@ public class ReportContext {
     public static String saveScreenshot(BufferedImage screenshot) {
         long now = System.currentTimeMillis();
 
-        executor.execute(new ImageSaverTask(screenshot, String.format("%s/%d.png", getTestDir().getAbsolutePath(), now),
-                Configuration.getInt(Parameter.BIG_SCREEN_WIDTH), Configuration.getInt(Parameter.BIG_SCREEN_HEIGHT)));
-
-        executor.execute(new ImageSaverTask(screenshot, String.format("%s/thumbnails/%d.png", getTestDir().getAbsolutePath(), now),
-                Configuration.getInt(Parameter.SMALL_SCREEN_WIDTH), Configuration.getInt(Parameter.SMALL_SCREEN_HEIGHT)));
+        ScreenshotProcessor.process(null, screenshot, new File(String.format("%s/%d.png", getTestDir().getAbsolutePath(), now)),
+                new File(String.format("%s/thumbnails/%d.png", getTestDir().getAbsolutePath(), now)),
+                Configuration.getInt(Parameter.BIG_SCREEN_WIDTH), Configuration.getInt(Parameter.BIG_SCREEN_HEIGHT),
+                Configuration.getInt(Parameter.SMALL_SCREEN_WIDTH), Configuration.getInt(Parameter.SMALL_SCREEN_HEIGHT));
 
         return String.format("%d.png", now);
     }
 
-    /**
-     * Asynchronous image saver task.
-     */
-    private static class ImageSaverTask implements Runnable {
-        private BufferedImage image;
-        private String path;
-        private Integer width;
-        private Integer height;
-
-        public ImageSaverTask(BufferedImage image, String path, Integer width, Integer height) {
-            this.image = image;
-            this.path = path;
-            this.width = width;
-            this.height = height;
-        }
-
-        @Override
-        public void run() {
-            try {
-                if (width > 0 && height > 0) {
-                    BufferedImage resizedImage = Scalr.resize(image, Scalr.Method.BALANCED, Scalr.Mode.FIT_TO_WIDTH, width, height,
-                            Scalr.OP_ANTIALIAS);
-                    if (resizedImage.getHeight() > height) {
-                        resizedImage = Scalr.crop(resizedImage, resizedImage.getWidth(), height);
-                    }
-                    ImageIO.write(resizedImage, "PNG", new File(path));
-                } else {
-                    ImageIO.write(image, "PNG", new File(path));
-                }
-
-            } catch (Exception e) {
-                LOGGER.error("Unable to save screenshot: " + e.getMessage());
-            }
-        }
-    }
-    
     private static void copyGalleryLib() {
         File reportsRootDir = new File(System.getProperty("user.dir") + "/" + Configuration.get(Parameter.PROJECT_REPORT_DIRECTORY));
         if (!new File(reportsRootDir.getAbsolutePath() + "/gallery-lib").exists()) {
@@ -100,6 +100,8 @@ public class Configuration {
 
         MAX_DRIVER_COUNT("max_driver_count"),
 
+        SESSION_POOL_SIZE("session_pool_size"),
+
         CUSTOM_CAPABILITIES("custom_capabilities"),
 
         EXTRA_CAPABILITIES("extra_capabilities"),
@@ -118,6 +120,12 @@ public class Configuration {
         
         BROWSERMOB_MITM("browsermob_disabled_mitm"),
 
+        BROWSERMOB_SHARED("browsermob_shared"),
+
+        BROWSERMOB_HAR_BODY_LIMIT("browsermob_har_body_limit"),
+
+        BROWSERMOB_HAR_BODY_TIMEOUT("browsermob_har_body_timeout"),
+
         PROXY_SET_TO_SYSTEM("proxy_set_to_system"),
 
         REPORT_URL("report_url"),
@@ -185,10 +193,22 @@ public class Configuration {
 
         DATA_PROVIDER_THREAD_COUNT("data_provider_thread_count"),
 
+        XLS_CACHE_SIZE("xls_cache_size"),
+
+        DATA_PROVIDER_RERUN_FILE("data_provider_rerun_file"),
+
+        DATA_PROVIDER_CACHE_DIR("data_provider_cache_dir"),
+
         CORE_LOG_LEVEL("core_log_level"),
 
         LOG_ALL_JSON("log_all_json"),
 
+        API_CONNECTIONS_PER_ROUTE("api_connections_per_route"),
+
+        API_CONNECTIONS_TOTAL("api_connections_total"),
+
+        API_CONNECTION_TIMEOUT("api_connection_timeout"),
+
         DATE_FORMAT("date_format"),
 
         TIME_FORMAT("time_format"),
@@ -304,34 +324,34 @@ public class Configuration {
     /**
      * Returns configuration value from startup properties or from configuration
      * file if not found in startup args.
+     * Values are resolved once and cached until R.CONFIG update.
      * 
      * @param param
      *            - parameter key.
      * @return parameter value if it is found by key or default value if not.
      */
     public static String get(Parameter param) {
-        String value = R.CONFIG.get(param.getKey());
-        return !(value == null || value.equalsIgnoreCase(SpecialKeywords.NULL)) ? value : StringUtils.EMPTY;
+        return ConfigurationSnapshot.get().getValue(param).value;
     }
 
     public static int getInt(Parameter param) {
-        return Integer.valueOf(get(param).trim());
+        return ConfigurationSnapshot.get().getValue(param).getInt();
     }
 
     public static long getLong(Parameter param) {
-        return Long.valueOf(get(param).trim());
+        return ConfigurationSnapshot.get().getValue(param).getLong();
     }
 
     public static double getDouble(Parameter param) {
-        return Double.valueOf(get(param).trim());
+        return ConfigurationSnapshot.get().getValue(param).getDouble();
     }
 
     public static boolean getBoolean(Parameter param) {
-        return Boolean.valueOf(get(param).trim());
+        return ConfigurationSnapshot.get().getValue(param).booleanValue;
     }
 
     public static DriverMode getDriverMode() {
-        return DriverMode.valueOf(get(Parameter.DRIVER_MODE).trim().toUpperCase());
+        return ConfigurationSnapshot.get().getValue(Parameter.DRIVER_MODE).getDriverMode();
     }
 
     @Deprecated
@@ -400,29 +420,12 @@ public class Configuration {
 
     public static String getPlatform() {
         // default "platform=value" should be used to determine current platform
-        String platform = Configuration.get(Parameter.PLATFORM);
-
-        // redefine platform if capabilities.platform is available
-        String prefix = SpecialKeywords.CAPABILITIES + ".";
-        if (!R.CONFIG.get(prefix + "platform").isEmpty()) {
-            platform = R.CONFIG.get(prefix + "platform");
-        }
-
-        // redefine platform if mobile.platformName is available
-        if (!R.CONFIG.get(prefix + "platformName").isEmpty()) {
-            platform = R.CONFIG.get(prefix + "platformName");
-        }
-        return platform;
+        // redefined by capabilities.platform or capabilities.platformName if available
+        return ConfigurationSnapshot.get().getPlatform();
     }
 
     public static String getDriverType() {
-
-        String platform = getPlatform();
-        if (platform.equalsIgnoreCase(SpecialKeywords.ANDROID) || platform.equalsIgnoreCase(SpecialKeywords.IOS)) {
-            return SpecialKeywords.MOBILE;
-        }
-
-        return SpecialKeywords.DESKTOP;
+        return ConfigurationSnapshot.get().getDriverType();
     }
 
     public static String getDriverType(DesiredCapabilities capabilities) {
@@ -0,0 +1,156 @@
+/*******************************************************************************
+ * Copyright 2013-2018 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.utils;
+
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.apache.commons.lang3.StringUtils;
+
+import com.qaprosoft.carina.core.foundation.commons.SpecialKeywords;
+import com.qaprosoft.carina.core.foundation.utils.Configuration.DriverMode;
+import com.qaprosoft.carina.core.foundation.utils.Configuration.Parameter;
+
+/**
+ * Cached view of {@link R#CONFIG} with resolved placeholders and typed values. Every parameter is resolved on its first
+ * read and typed values are parsed on the first typed read, so {@link R#put(String, String)} of CONFIG properties only
+ * drops the cache and next reads of the same parameter are lock and allocation free.
+ */
+final class ConfigurationSnapshot {
+
+    private static volatile ConfigurationSnapshot current = new ConfigurationSnapshot();
+
+    // values by parameter ordinal
+    private final AtomicReferenceArray<Value> values = new AtomicReferenceArray<>(Parameter.values().length);
+    private volatile String platform;
+
+    private ConfigurationSnapshot() {
+    }
+
+    /**
+     * @return actual snapshot
+     */
+    static ConfigurationSnapshot get() {
+        return current;
+    }
+
+    /**
+     * Drops resolved values, they are resolved again on the next read.
+     */
+    static void invalidate() {
+        current = new ConfigurationSnapshot();
+    }
+
+    /**
+     * @param param Parameter
+     * @return resolved value, {@link com.qaprosoft.carina.core.foundation.exception.PlaceholderResolverException} is
+     *         thrown if it can't be resolved
+     */
+    Value getValue(Parameter param) {
+        Value value = values.get(param.ordinal());
+        if (value == null) {
+            String resolved = resolve(R.CONFIG.getProperties(), param.getKey());
+            value = new Value(!resolved.equalsIgnoreCase(SpecialKeywords.NULL) ? resolved : StringUtils.EMPTY);
+            values.set(param.ordinal(), value);
+        }
+        return value;
+    }
+
+    String getPlatform() {
+        String resolvedPlatform = platform;
+        if (resolvedPlatform == null) {
+            Properties properties = R.CONFIG.getProperties();
+            String prefix = SpecialKeywords.CAPABILITIES + ".";
+            resolvedPlatform = resolve(properties, prefix + "platformName");
+            if (resolvedPlatform.isEmpty()) {
+                resolvedPlatform = resolve(properties, prefix + "platform");
+            }
+            if (resolvedPlatform.isEmpty()) {
+                resolvedPlatform = getValue(Parameter.PLATFORM).value;
+            }
+            platform = resolvedPlatform;
+        }
+        return resolvedPlatform;
+    }
+
+    String getDriverType() {
+        String resolvedPlatform = getPlatform();
+        return resolvedPlatform.equalsIgnoreCase(SpecialKeywords.ANDROID) || resolvedPlatform.equalsIgnoreCase(SpecialKeywords.IOS)
+                ? SpecialKeywords.MOBILE : SpecialKeywords.DESKTOP;
+    }
+
+    private static String resolve(Properties properties, String key) {
+        if (!properties.containsKey(key)) {
+            return StringUtils.EMPTY;
+        }
+        String value = PlaceholderResolver.resolve(properties, key);
+        return value != null ? value : StringUtils.EMPTY;
+    }
+
+    /**
+     * Resolved parameter value. Typed representations are parsed on the first request and fail the same way as parsing
+     * of the string value if it can't be converted.
+     */
+    static final class Value {
+        final String value;
+        final boolean booleanValue;
+        private volatile Integer intValue;
+        private volatile Long longValue;
+        private volatile Double doubleValue;
+        private volatile DriverMode driverMode;
+
+        private Value(String value) {
+            this.value = value;
+            this.booleanValue = Boolean.valueOf(value.trim());
+        }
+
+        int getInt() {
+            Integer parsed = intValue;
+            if (parsed == null) {
+                parsed = Integer.valueOf(value.trim());
+                intValue = parsed;
+            }
+            return parsed;
+        }
+
+        long getLong() {
+            Long parsed = longValue;
+            if (parsed == null) {
+                parsed = Long.valueOf(value.trim());
+                longValue = parsed;
+            }
+            return parsed;
+        }
+
+        double getDouble() {
+            Double parsed = doubleValue;
+            if (parsed == null) {
+                parsed = Double.valueOf(value.trim());
+                doubleValue = parsed;
+            }
+            return parsed;
+        }
+
+        DriverMode getDriverMode() {
+            DriverMode parsed = driverMode;
+            if (parsed == null) {
+                parsed = DriverMode.valueOf(value.trim().toUpperCase());
+                driverMode = parsed;
+            }
+            return parsed;
+        }
+    }
+}
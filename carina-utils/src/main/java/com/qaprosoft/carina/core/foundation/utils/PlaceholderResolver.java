@@ -15,6 +15,7 @@
  *******************************************************************************/
 package com.qaprosoft.carina.core.foundation.utils;
 
+import java.util.LinkedHashSet;
 import java.util.Properties;
 import java.util.Set;
 import java.util.regex.Matcher;
@@ -41,15 +42,23 @@ public class PlaceholderResolver {
      * @param properties Properties
      * @param key Key
      * @return resolved value
+     * @throws PlaceholderResolverException if placeholders of the value refer to each other in a loop
      */
     public static String resolve(Properties properties, String key) {
+        return resolve(properties, key, new LinkedHashSet<String>());
+    }
+
+    private static String resolve(Properties properties, String key, Set<String> path) {
+        if (!path.add(key)) {
+            throw new PlaceholderResolverException(key, path);
+        }
         String value = properties.getProperty(key);
         if (value != null) {
             Matcher matcher = PATTERN.matcher(value);
             while (matcher.find()) {
                 String placeholder = matcher.group();
                 String placeholderKey = placeholder.replace("${", "").replace("}", "");
-                String resolvedValue = resolve(properties, placeholderKey);
+                String resolvedValue = resolve(properties, placeholderKey, path);
                 if (resolvedValue != null) {
                     value = value.replace(placeholder, resolvedValue);
                 }
@@ -59,6 +68,7 @@ public class PlaceholderResolver {
                 LOGGER.warn("Value not resolved by key: " + key);
             }
         }
+        path.remove(key);
         return value;
     }
 
@@ -73,9 +83,6 @@ public class PlaceholderResolver {
         for (Object key : keys) {
             try {
                 resolve(properties, (String) key);
-            } catch (StackOverflowError e) {
-                LOGGER.error("Infinit placeholder loop was found for '" + properties.getProperty((String) key) + "'");
-                return false;
             } catch (PlaceholderResolverException e) {
                 LOGGER.error(e.getMessage());
                 return false;
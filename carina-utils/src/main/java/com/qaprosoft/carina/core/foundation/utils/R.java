@@ -118,6 +118,9 @@ public enum R {
 
     public void put(String key, String value) {
         propertiesHolder.get(resourceFile).put(key, value);
+        if (CONFIG.equals(this)) {
+            ConfigurationSnapshot.invalidate();
+        }
     }
     
     /**
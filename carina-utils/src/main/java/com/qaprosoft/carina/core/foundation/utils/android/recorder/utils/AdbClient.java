@@ -0,0 +1,199 @@
+/*******************************************************************************
+ * Copyright 2013-2018 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.utils.android.recorder.utils;
+
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.apache.commons.lang3.StringUtils;
+import org.apache.log4j.Logger;
+
+/**
+ * Client of adb server host protocol (the same one used by adb binary) so commands are sent directly to the
+ * running adb server instead of spawning new adb process per command.
+ *
+ * Every request is "4 hex digits length + payload", server answers "OKAY" or "FAIL + 4 hex digits length + message".
+ * Device service (shell:) is requested after switching connection to the device transport and its output is streamed
+ * until server closes the connection, so each command uses own short-living local connection.
+ */
+public class AdbClient {
+    private static final Logger LOGGER = Logger.getLogger(AdbClient.class);
+
+    public static final String DEFAULT_HOST = "127.0.0.1";
+    public static final int DEFAULT_PORT = 5037;
+
+    private static final int CONNECT_TIMEOUT = 1000;
+    private static final String OKAY = "OKAY";
+    private static final String FAIL = "FAIL";
+
+    private static final AdbClient defaultClient = new AdbClient(DEFAULT_HOST, getDefaultPort());
+
+    private final String host;
+    private final int port;
+
+    public AdbClient(String host, int port) {
+        this.host = host;
+        this.port = port;
+    }
+
+    /**
+     * Client of local adb server. Port can be overridden by ANDROID_ADB_SERVER_PORT environment variable like for adb
+     * binary.
+     *
+     * @return AdbClient
+     */
+    public static AdbClient getDefault() {
+        return defaultClient;
+    }
+
+    /**
+     * List of devices in "adb devices" format without header: "udid\tstate".
+     *
+     * @return List of String
+     * @throws IOException if server is not available or request failed
+     */
+    public List<String> devices() throws IOException {
+        try (Socket socket = connect()) {
+            send(socket, "host:devices");
+            String payload = readString(socket.getInputStream());
+            List<String> devices = new ArrayList<String>();
+            for (String line : payload.split("\n")) {
+                if (!line.isEmpty()) {
+                    devices.add(line);
+                }
+            }
+            return devices;
+        }
+    }
+
+    /**
+     * Executes shell command on device and returns its output.
+     *
+     * @param serial device udid or null to use single connected device
+     * @param command String shell command
+     * @return List of output lines
+     * @throws IOException if server is not available or request failed
+     */
+    public List<String> shell(String serial, String command) throws IOException {
+        List<String> output = new ArrayList<String>();
+        shell(serial, command, output::add);
+        return output;
+    }
+
+    /**
+     * Executes shell command on device and streams its output line by line.
+     *
+     * @param serial device udid or null to use single connected device
+     * @param command String shell command
+     * @param handler consumer of output lines
+     * @throws IOException if server is not available or request failed
+     */
+    public void shell(String serial, String command, Consumer<String> handler) throws IOException {
+        try (Socket socket = connect()) {
+            send(socket, serial != null ? "host:transport:" + serial : "host:transport-any");
+            send(socket, "shell:" + command);
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            String line;
+            while ((line = in.readLine()) != null) {
+                handler.accept(line);
+            }
+        }
+    }
+
+    /**
+     * Verify if adb server accepts connections.
+     *
+     * @return boolean
+     */
+    public boolean isAvailable() {
+        try (Socket socket = connect()) {
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return host + ":" + port;
+    }
+
+    private Socket connect() throws IOException {
+        Socket socket = new Socket();
+        try {
+            socket.setTcpNoDelay(true);
+            socket.connect(new InetSocketAddress(host, port), CONNECT_TIMEOUT);
+        } catch (IOException e) {
+            AdbExecutor.closeQuietly(socket);
+            throw e;
+        }
+        return socket;
+    }
+
+    /**
+     * Sends request and verifies server status.
+     */
+    private static void send(Socket socket, String request) throws IOException {
+        LOGGER.debug("adb request: " + request);
+        byte[] payload = request.getBytes(StandardCharsets.UTF_8);
+        OutputStream out = socket.getOutputStream();
+        out.write(String.format("%04x", payload.length).getBytes(StandardCharsets.US_ASCII));
+        out.write(payload);
+        out.flush();
+
+        InputStream in = socket.getInputStream();
+        String status = new String(readFully(in, 4), StandardCharsets.US_ASCII);
+        if (FAIL.equals(status)) {
+            throw new IOException("adb server rejected '" + request + "': " + readString(in));
+        }
+        if (!OKAY.equals(status)) {
+            throw new IOException("Unexpected adb server response on '" + request + "': " + status);
+        }
+    }
+
+    private static String readString(InputStream in) throws IOException {
+        String length = new String(readFully(in, 4), StandardCharsets.US_ASCII);
+        try {
+            return new String(readFully(in, Integer.parseInt(length, 16)), StandardCharsets.UTF_8);
+        } catch (NumberFormatException e) {
+            throw new IOException("Invalid adb server message length: " + length);
+        }
+    }
+
+    private static byte[] readFully(InputStream in, int length) throws IOException {
+        byte[] data = new byte[length];
+        new DataInputStream(in).readFully(data);
+        return data;
+    }
+
+    private static int getDefaultPort() {
+        String port = System.getenv("ANDROID_ADB_SERVER_PORT");
+        if (StringUtils.isNumeric(port) && !port.isEmpty()) {
+            return Integer.parseInt(port);
+        }
+        return DEFAULT_PORT;
+    }
+}
@@ -17,12 +17,16 @@ package com.qaprosoft.carina.core.foundation.utils.android.recorder.utils;
 
 import java.io.BufferedReader;
 import java.io.Closeable;
+import java.io.IOException;
 import java.io.InputStreamReader;
+import java.net.ConnectException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import org.apache.commons.lang3.StringUtils;
 import org.apache.log4j.Logger;
 
 /**
@@ -37,9 +41,18 @@ public class AdbExecutor {
 
     // private static final String REMOTE_ADB_EXECUTION_CMD = "ssh %s@%s %s";
 
+    private static final String ADB = "adb";
+
     private static String[] cmdInit;
 
+    private final AdbClient adbClient;
+
     public AdbExecutor() {
+        this(AdbClient.getDefault());
+    }
+
+    AdbExecutor(AdbClient adbClient) {
+        this.adbClient = adbClient;
         initDefaultCmd();
     }
 
@@ -109,7 +122,20 @@ public class AdbExecutor {
         }
     }
 
+    /**
+     * Executes command and returns its output. "adb devices", "adb [-s udid] shell ..." and "adb [-s udid] logcat ..."
+     * are sent directly to the adb server, everything else (or all commands if adb server is not started yet) is executed
+     * as new process.
+     *
+     * @param cmd String[]
+     * @return List of output lines
+     */
     public List<String> execute(String[] cmd) {
+        List<String> serverOutput = executeOnServer(cmd);
+        if (serverOutput != null) {
+            return serverOutput;
+        }
+
         ProcessBuilderExecutor executor = null;
         BufferedReader in = null;
         List<String> output = new ArrayList<String>();
@@ -135,6 +161,54 @@ public class AdbExecutor {
         return output;
     }
 
+    /**
+     * Sends supported adb command to adb server.
+     *
+     * @param cmd String[]
+     * @return output (empty if server rejected the command) or null if command should be executed by adb binary
+     */
+    private List<String> executeOnServer(String[] cmd) {
+        if (cmd.length < 2 || !ADB.equals(cmd[0])) {
+            return null;
+        }
+
+        String serial = null;
+        int i = 1;
+        if ("-s".equals(cmd[i]) && cmd.length > 3) {
+            serial = cmd[i + 1];
+            i += 2;
+        }
+        String service = cmd[i];
+        String args = StringUtils.join(Arrays.copyOfRange(cmd, i + 1, cmd.length), " ");
+
+        try {
+            List<String> output;
+            if ("devices".equals(service) && serial == null && args.isEmpty()) {
+                output = new ArrayList<String>();
+                output.add("List of devices attached");
+                output.addAll(adbClient.devices());
+            } else if ("shell".equals(service) && !args.isEmpty()) {
+                output = adbClient.shell(serial, args);
+            } else if ("logcat".equals(service)) {
+                output = adbClient.shell(serial, args.isEmpty() ? service : service + " " + args);
+            } else {
+                return null;
+            }
+            for (String line : output) {
+                LOGGER.debug(line);
+            }
+            return output;
+        } catch (ConnectException e) {
+            // adb server is not started, adb binary will start it
+            LOGGER.debug("adb server is not available on " + adbClient + ", adb process will be used.");
+            return null;
+        } catch (IOException e) {
+            // device is offline/not found or connection is broken: adb binary prints error and returns no output
+            LOGGER.error("adb command '" + StringUtils.join(cmd, " ") + "' failed: " + e.getMessage());
+            return new ArrayList<String>();
+        }
+    }
+
     public static void closeQuietly(Closeable closeable) {
         try {
             if (closeable != null) {
@@ -97,6 +97,11 @@ public class ProcessBuilderExecutor {
 
     public void gc() {
         destroyProcess(process);
+        if (process != null) {
+            synchronized (ProcessBuilderExecutor.class) {
+                runPIDs.remove(pid);
+            }
+        }
     }
 
     @Override
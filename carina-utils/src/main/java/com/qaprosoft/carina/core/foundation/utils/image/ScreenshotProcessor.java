@@ -0,0 +1,221 @@
+/*******************************************************************************
+ * Copyright 2013-2018 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.utils.image;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.imageio.ImageIO;
+
+import org.apache.commons.io.FilenameUtils;
+import org.apache.log4j.Logger;
+import org.imgscalr.Scalr;
+
+/**
+ * Saves captured screenshots and thumbnails using bounded pool of background workers.
+ * Raw driver output is decoded only once and every target file is encoded only once. Encoding format is detected by
+ * the target file extension (png, jpg, or any other format with registered ImageIO writer, e.g. webp plugin).
+ * When all workers are busy and queue is full the job is processed by the calling thread.
+ */
+public class ScreenshotProcessor {
+    private static final Logger LOGGER = Logger.getLogger(ScreenshotProcessor.class);
+
+    private static final int QUEUE_SIZE = 64;
+    private static final long PENDING_TIMEOUT = 60;
+
+    private static final ThreadPoolExecutor executor = createExecutor();
+
+    // not completed jobs per test directory, job removes itself on completion
+    private static final Map<String, List<Future<?>>> pending = new ConcurrentHashMap<>();
+
+    private ScreenshotProcessor() {
+        // hide default constructor
+    }
+
+    /**
+     * Schedules saving of screenshot and its thumbnail.
+     *
+     * @param raw - encoded image returned by driver (OutputType.BYTES) or null if image is provided
+     * @param image - already decoded image or null if raw bytes are provided
+     * @param screenshot - target screenshot file
+     * @param thumbnail - target thumbnail file
+     * @param bigWidth - screenshot width or -1 to keep original size
+     * @param bigHeight - screenshot height or -1 to keep original size
+     * @param smallWidth - thumbnail width or -1 to keep original size
+     * @param smallHeight - thumbnail height or -1 to keep original size
+     * @return Future completed when both images are saved
+     */
+    public static Future<?> process(byte[] raw, BufferedImage image, File screenshot, File thumbnail, int bigWidth, int bigHeight,
+            int smallWidth, int smallHeight) {
+        String dir = screenshot.getParentFile().getAbsolutePath();
+        Job job = new Job(dir, () -> {
+            try {
+                BufferedImage screen = image != null ? image : ImageIO.read(new ByteArrayInputStream(raw));
+                if (screen == null) {
+                    LOGGER.error("Unable to decode screenshot: " + screenshot.getName());
+                    return;
+                }
+
+                if (bigWidth > 0 && bigHeight > 0) {
+                    write(resize(screen, bigWidth, bigHeight), screenshot);
+                } else if (raw != null && isSameFormat(raw, screenshot)) {
+                    // driver output is already encoded in required format
+                    Files.write(screenshot.toPath(), raw);
+                } else {
+                    write(screen, screenshot);
+                }
+
+                write(smallWidth > 0 && smallHeight > 0 ? resize(screen, smallWidth, smallHeight) : screen, thumbnail);
+            } catch (Exception e) {
+                LOGGER.error("Unable to save screenshot: " + screenshot.getName(), e);
+            }
+        });
+
+        // job is registered before start as it can be completed by the calling thread
+        pending.compute(dir, (k, jobs) -> {
+            List<Future<?>> list = jobs != null ? jobs : new ArrayList<>();
+            list.add(job);
+            return list;
+        });
+        executor.execute(job);
+        return job;
+    }
+
+    /**
+     * Waits until all scheduled screenshots for the directory are saved.
+     *
+     * @param dir - test directory
+     */
+    public static void waitForPending(File dir) {
+        if (dir == null) {
+            return;
+        }
+        // completed jobs don't modify removed list anymore
+        List<Future<?>> jobs = pending.remove(dir.getAbsolutePath());
+        if (jobs == null) {
+            return;
+        }
+        for (Future<?> job : jobs) {
+            try {
+                job.get(PENDING_TIMEOUT, TimeUnit.SECONDS);
+            } catch (TimeoutException e) {
+                LOGGER.error("Screenshot is not saved during " + PENDING_TIMEOUT + " seconds in " + dir.getAbsolutePath());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                LOGGER.debug("Screenshot saving failed.", e);
+            }
+        }
+    }
+
+    /**
+     * Resizes image according to specified dimensions.
+     *
+     * @param image - image to resize.
+     * @param width - new image width.
+     * @param height - new image height.
+     * @return resized image
+     */
+    private static BufferedImage resize(BufferedImage image, int width, int height) {
+        BufferedImage resized = Scalr.resize(image, Scalr.Method.BALANCED, Scalr.Mode.FIT_TO_WIDTH, width, height,
+                Scalr.OP_ANTIALIAS);
+        if (resized.getHeight() > height) {
+            resized = Scalr.crop(resized, resized.getWidth(), height);
+        }
+        return resized;
+    }
+
+    private static void write(BufferedImage image, File file) throws IOException {
+        String format = getFormat(file);
+        if ("jpg".equals(format) && image.getColorModel().hasAlpha()) {
+            // jpeg writer doesn't support alpha channel
+            BufferedImage rgb = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_RGB);
+            rgb.createGraphics().drawImage(image, 0, 0, null);
+            image = rgb;
+        }
+        if (!ImageIO.write(image, format, file)) {
+            LOGGER.warn("No image writer found for '" + format + "', PNG format will be used for " + file.getName());
+            ImageIO.write(image, "png", file);
+        }
+    }
+
+    private static String getFormat(File file) {
+        String extension = FilenameUtils.getExtension(file.getName()).toLowerCase();
+        if (extension.isEmpty()) {
+            return "png";
+        }
+        return "jpeg".equals(extension) ? "jpg" : extension;
+    }
+
+    private static boolean isSameFormat(byte[] raw, File file) {
+        // PNG signature: 0x89 'P' 'N' 'G'
+        boolean isPng = raw.length > 4 && (raw[0] & 0xFF) == 0x89 && raw[1] == 'P' && raw[2] == 'N' && raw[3] == 'G';
+        return isPng && "png".equals(getFormat(file));
+    }
+
+    /**
+     * Screenshot saving job which is removed from pending jobs of the directory when completed.
+     */
+    private static class Job extends FutureTask<Void> {
+        private final String dir;
+
+        Job(String dir, Runnable task) {
+            super(task, null);
+            this.dir = dir;
+        }
+
+        @Override
+        protected void done() {
+            pending.computeIfPresent(dir, (k, jobs) -> {
+                jobs.remove(this);
+                return jobs.isEmpty() ? null : jobs;
+            });
+        }
+    }
+
+    private static ThreadPoolExecutor createExecutor() {
+        int threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+        ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<Runnable>(QUEUE_SIZE), new ThreadFactory() {
+                    private final AtomicInteger counter = new AtomicInteger();
+
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        Thread thread = new Thread(r, "screenshot-processor-" + counter.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+}
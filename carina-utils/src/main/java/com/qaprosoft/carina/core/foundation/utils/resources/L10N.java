@@ -46,13 +46,23 @@ public class L10N {
 
     public static boolean isUTF = false;
 
-    private static ArrayList<ResourceBundle> resBoundles = new ArrayList<ResourceBundle>();
+    // (locale, key) -> value index built from loaded bundles, first loaded bundle wins as before
+    private static volatile Map<Locale, Map<String, String>> texts = Collections.emptyMap();
+    // the same index with values re-decoded from ISO-8859-1 to UTF-8
+    private static volatile Map<Locale, Map<String, String>> utfTexts = Collections.emptyMap();
+    private static int bundlesCount = 0;
 
-    public static void init() {
+    // configuration value and default locale parsed from it
+    private static volatile Map.Entry<String, Locale> defaultLocale;
+
+    public static synchronized void init() {
         if (!Configuration.getBoolean(Parameter.ENABLE_L10N)) {
             return;
         }
 
+        Map<Locale, Map<String, String>> loadedTexts = copy(texts);
+        Map<Locale, Map<String, String>> loadedUtfTexts = copy(utfTexts);
+
         List<Locale> locales = LocaleReader.init(Configuration
                 .get(Parameter.LOCALE));
 
@@ -116,17 +126,7 @@ public class L10N {
 
             if (!loadedResources.contains(resource)) {
                 loadedResources.add(resource);
-                try {
-                    LOGGER.debug(String.format("Adding '%s' resource...",
-                            resource));
-                    for (Locale locale : locales) {
-                        resBoundles.add(ResourceBundle.getBundle(resource, locale));
-                    }
-                    LOGGER.debug(String
-                            .format("Resource '%s' added.", resource));
-                } catch (MissingResourceException e) {
-                    LOGGER.debug(e);
-                }
+                addResource(resource, locales, loadedTexts, loadedUtfTexts);
             } else {
                 LOGGER.debug(String
                         .format("Requested resource '%s' is already loaded into the ResourceBundle!",
@@ -134,10 +134,80 @@ public class L10N {
             }
         }
 
-        LOGGER.debug("init: L10N bundle size: " + resBoundles.size());
+        texts = loadedTexts;
+        utfTexts = loadedUtfTexts;
+        LOGGER.debug("init: L10N bundle size: " + bundlesCount);
         isUTF = isUTF8();
     }
 
+    /**
+     * Loads resource bundles for specified locales into the lookup index.
+     * 
+     * @param resource
+     *            - bundle base name, e.g. L10N.messages
+     * @param locales
+     *            - locales to load
+     */
+    static synchronized void load(String resource, List<Locale> locales) {
+        Map<Locale, Map<String, String>> loadedTexts = copy(texts);
+        Map<Locale, Map<String, String>> loadedUtfTexts = copy(utfTexts);
+        addResource(resource, locales, loadedTexts, loadedUtfTexts);
+        texts = loadedTexts;
+        utfTexts = loadedUtfTexts;
+    }
+
+    private static void addResource(String resource, List<Locale> locales, Map<Locale, Map<String, String>> loadedTexts,
+            Map<Locale, Map<String, String>> loadedUtfTexts) {
+        try {
+            LOGGER.debug(String.format("Adding '%s' resource...",
+                    resource));
+            for (Locale locale : locales) {
+                index(ResourceBundle.getBundle(resource, locale), loadedTexts, loadedUtfTexts);
+            }
+            LOGGER.debug(String
+                    .format("Resource '%s' added.", resource));
+        } catch (MissingResourceException e) {
+            LOGGER.debug(e);
+        }
+    }
+
+    /**
+     * Adds all bundle values (including inherited from parent bundles) into indexes. Values which are already indexed
+     * for the bundle locale by previously loaded bundles are not overridden.
+     */
+    private static void index(ResourceBundle bundle, Map<Locale, Map<String, String>> loadedTexts,
+            Map<Locale, Map<String, String>> loadedUtfTexts) {
+        bundlesCount++;
+        Locale locale = bundle.getLocale();
+        Map<String, String> localeTexts = loadedTexts.computeIfAbsent(locale, k -> new HashMap<String, String>());
+        Map<String, String> localeUtfTexts = loadedUtfTexts.computeIfAbsent(locale, k -> new HashMap<String, String>());
+        for (String key : bundle.keySet()) {
+            if (localeTexts.containsKey(key)) {
+                continue;
+            }
+            Object value = bundle.getObject(key);
+            if (!(value instanceof String)) {
+                continue;
+            }
+            localeTexts.put(key, (String) value);
+            String utfValue = (String) value;
+            try {
+                utfValue = new String(utfValue.getBytes("ISO-8859-1"), "UTF-8");
+            } catch (UnsupportedEncodingException er) {
+                LOGGER.debug("Error: ", er);
+            }
+            localeUtfTexts.put(key, utfValue);
+        }
+    }
+
+    private static Map<Locale, Map<String, String>> copy(Map<Locale, Map<String, String>> index) {
+        Map<Locale, Map<String, String>> copy = new HashMap<Locale, Map<String, String>>();
+        for (Map.Entry<Locale, Map<String, String>> entry : index.entrySet()) {
+            copy.put(entry.getKey(), new HashMap<String, String>(entry.getValue()));
+        }
+        return copy;
+    }
+
     public boolean isUTF() {
         return isUTF;
     }
@@ -148,14 +218,21 @@ public class L10N {
      * @return Locale
      */
     public static Locale getDefaultLocale() {
-        List<Locale> locales = LocaleReader.init(Configuration
-                .get(Parameter.LOCALE));
+        String setting = Configuration.get(Parameter.LOCALE);
+        Map.Entry<String, Locale> cached = defaultLocale;
+        if (cached != null && setting.equals(cached.getKey())) {
+            return cached.getValue();
+        }
+
+        List<Locale> locales = LocaleReader.init(setting);
 
         if (locales.size() == 0) {
             throw new RuntimeException("Undefined default locale specified! Review 'locale' setting in _config.properties.");
         }
 
-        return locales.get(0);
+        Locale locale = locales.get(0);
+        defaultLocale = new AbstractMap.SimpleImmutableEntry<String, Locale>(setting, locale);
+        return locale;
     }
 
     /**
@@ -180,26 +257,7 @@ public class L10N {
      * @return String
      */
     public static String getText(String key, Locale locale) {
-        LOGGER.debug("getText: L10N bundle size: " + resBoundles.size());
-        Iterator<ResourceBundle> iter = resBoundles.iterator();
-        while (iter.hasNext()) {
-            ResourceBundle bundle = iter.next();
-            try {
-                String value = bundle.getString(key);
-                LOGGER.debug("Looking for value for locale:'"
-                        + locale.toString()
-                        + "' current iteration locale is: '"
-                        + bundle.getLocale().toString() + "'.");
-                if (bundle.getLocale().toString().equals(locale.toString())) {
-                    LOGGER.debug("Found locale:'" + locale.toString()
-                            + "' and value is '" + value + "'.");
-                    return value;
-                }
-            } catch (MissingResourceException e) {
-                // do nothing
-            }
-        }
-        return key;
+        return lookup(texts, key, locale);
     }
 
     /**
@@ -224,31 +282,17 @@ public class L10N {
      * @return String in UTF-8
      */
     public static String getUTFText(String key, Locale locale) {
-        LOGGER.debug("getText: L10N bundle size: " + resBoundles.size());
-        Iterator<ResourceBundle> iter = resBoundles.iterator();
-        while (iter.hasNext()) {
-            ResourceBundle bundle = iter.next();
-            try {
-                String value = bundle.getString(key);
-                try {
-                    value = new String(value.getBytes("ISO-8859-1"), "UTF-8");
-                } catch (UnsupportedEncodingException er) {
-                    LOGGER.debug("Error: ", er);
-                }
-                LOGGER.debug("Looking for value for locale:'"
-                        + locale.toString()
-                        + "' current iteration locale is: '"
-                        + bundle.getLocale().toString() + "'.");
-                if (bundle.getLocale().toString().equals(locale.toString())) {
-                    LOGGER.debug("Found locale:'" + locale.toString()
-                            + "' and value is '" + value + "'.");
-                    return value;
-                }
-            } catch (MissingResourceException e) {
-                // do nothing
-            }
+        return lookup(utfTexts, key, locale);
+    }
+
+    private static String lookup(Map<Locale, Map<String, String>> index, String key, Locale locale) {
+        Map<String, String> localeTexts = index.get(locale);
+        String value = localeTexts != null ? localeTexts.get(key) : null;
+        if (value == null) {
+            LOGGER.debug("Value for key '" + key + "' is not found for locale: '" + locale + "'.");
+            return key;
         }
-        return key;
+        return value;
     }
 
     /*
@@ -0,0 +1,93 @@
+/*******************************************************************************
+ * Copyright 2013-2018 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.log;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.log4j.Logger;
+import org.apache.log4j.PatternLayout;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import com.qaprosoft.carina.core.foundation.report.ReportContext;
+
+public class ThreadLogAppenderTest {
+
+    @AfterMethod(alwaysRun = true)
+    public void deleteTestLog() {
+        FileUtils.deleteQuietly(new File(ReportContext.getTestDir() + "/test.log"));
+    }
+
+    @Test
+    public void testAsyncAppend() throws IOException {
+        ThreadLogAppender appender = new ThreadLogAppender();
+        appender.setAsync(true);
+        appender.setBatchSize(2);
+        appender.setLocationInfo(false);
+
+        Logger logger = Logger.getLogger("ThreadLogAppenderTest");
+        logger.setAdditivity(false);
+        logger.addAppender(appender);
+        try {
+            for (int i = 0; i < 5; i++) {
+                logger.info("async message " + i);
+            }
+            // close drains pending events of current thread
+            appender.close();
+            Assert.assertFalse(appender.isWriterStarted(), "Writer should be stopped when the last test log is closed");
+        } finally {
+            logger.removeAppender(appender);
+        }
+
+        File testLog = new File(ReportContext.getTestDir() + "/test.log");
+        List<String> lines = FileUtils.readLines(testLog, Charset.defaultCharset());
+        int index = 0;
+        for (String line : lines) {
+            if (line.endsWith("async message " + index)) {
+                Assert.assertTrue(line.contains("[ThreadLogAppenderTest] [" + Thread.currentThread().getId() + "] [INFO]"),
+                        "Unexpected log line format: " + line);
+                index++;
+            }
+        }
+        Assert.assertEquals(index, 5, "Not all messages were written in order: " + lines);
+    }
+
+    @Test
+    public void testAsyncLocationWithLayout() throws IOException {
+        ThreadLogAppender appender = new ThreadLogAppender();
+        appender.setAsync(true);
+        appender.setLayout(new PatternLayout("[%F:%M] %m%n"));
+
+        Logger logger = Logger.getLogger("ThreadLogAppenderLayoutTest");
+        logger.setAdditivity(false);
+        logger.addAppender(appender);
+        try {
+            logger.info("async location");
+            appender.close();
+        } finally {
+            logger.removeAppender(appender);
+        }
+
+        List<String> lines = FileUtils.readLines(new File(ReportContext.getTestDir() + "/test.log"), Charset.defaultCharset());
+        Assert.assertTrue(lines.contains("[ThreadLogAppenderTest.java:testAsyncLocationWithLayout] async location"),
+                "Location should be calculated on the logging thread: " + lines);
+    }
+}
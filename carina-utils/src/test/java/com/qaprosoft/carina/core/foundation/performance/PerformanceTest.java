@@ -82,6 +82,36 @@ public class PerformanceTest {
         Assert.assertEquals(testMetrics.size(), 0);
     }
     
+    @Test(priority = 6)
+    public void testHistogramMetric() {
+        for (int i = 0; i < 3; i++) {
+            Timer.start(OPERATIONS.TEST);
+            pause(0.01);
+            Timer.stop(OPERATIONS.TEST);
+        }
+
+        Map<String, LatencyHistogram> testMetrics = Timer.readAndClearHistograms();
+        LatencyHistogram histogram = testMetrics.get(OPERATIONS.TEST.getKey());
+        Assert.assertEquals(histogram.getCount(), 3);
+        Assert.assertTrue(histogram.getP50() >= 10000, "p50 is less than 10ms: " + histogram.getP50());
+        Assert.assertTrue(histogram.getP99() <= histogram.getMax());
+        Assert.assertTrue(Timer.getSummary().get(OPERATIONS.TEST.getKey()).getCount() >= 3);
+    }
+
+    @Test
+    public void testHistogramPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long i = 1; i <= 1000; i++) {
+            histogram.record(i);
+        }
+        Assert.assertEquals(histogram.getCount(), 1000);
+        Assert.assertEquals(histogram.getMax(), 1000);
+        // values are tracked with ~6% precision
+        Assert.assertTrue(Math.abs(histogram.getP50() - 500) <= 32, "Invalid p50: " + histogram.getP50());
+        Assert.assertTrue(Math.abs(histogram.getP95() - 950) <= 64, "Invalid p95: " + histogram.getP95());
+        Assert.assertTrue(Math.abs(histogram.getP99() - 990) <= 64, "Invalid p99: " + histogram.getP99());
+    }
+
     private void pause(Number timeout) {
         try {
             Float timeoutFloat = timeout.floatValue() * 1000;
@@ -0,0 +1,145 @@
+/*******************************************************************************
+ * Copyright 2013-2018 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.utils.android.recorder.utils;
+
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+public class AdbClientTest {
+    private static final String SERIAL = "emulator-5554";
+
+    private ServerSocket server;
+    private AdbClient client;
+
+    @BeforeClass
+    public void startFakeServer() throws IOException {
+        server = new ServerSocket(0);
+        client = new AdbClient("127.0.0.1", server.getLocalPort());
+        Thread thread = new Thread(() -> {
+            while (!server.isClosed()) {
+                try (Socket socket = server.accept()) {
+                    handle(socket);
+                } catch (IOException e) {
+                    // server is closed or client disconnected
+                }
+            }
+        });
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void stopFakeServer() throws IOException {
+        server.close();
+    }
+
+    @Test
+    public void testDevices() throws IOException {
+        Assert.assertEquals(client.devices(), Arrays.asList(SERIAL + "\tdevice", "emulator-5556\toffline"));
+    }
+
+    @Test
+    public void testShell() throws IOException {
+        List<String> output = client.shell(SERIAL, "pm list packages");
+        Assert.assertEquals(output, Arrays.asList("package:pm list packages", "package:com.android.settings"));
+    }
+
+    @Test
+    public void testUnknownDevice() {
+        try {
+            client.shell("unknown", "ls");
+            Assert.fail("Exception expected for unknown device");
+        } catch (IOException e) {
+            Assert.assertTrue(e.getMessage().contains("device 'unknown' not found"), e.getMessage());
+        }
+    }
+
+    @Test
+    public void testExecutorRouting() {
+        AdbExecutor executor = new AdbExecutor(client);
+        List<String> devices = executor.execute(CmdLine.insertCommandsAfter(executor.getDefaultCmd(), "devices"));
+        Assert.assertEquals(devices.get(0), "List of devices attached");
+        Assert.assertTrue(devices.contains(SERIAL + "\tdevice"));
+
+        List<String> logcat = executor.execute(CmdLine.insertCommandsAfter(executor.getDefaultCmd(), "-s", SERIAL, "logcat", "-d"));
+        Assert.assertEquals(logcat.get(0), "package:logcat -d");
+    }
+
+    @Test
+    public void testExecutorServerFailure() {
+        AdbExecutor executor = new AdbExecutor(client);
+        List<String> output = executor.execute(CmdLine.insertCommandsAfter(executor.getDefaultCmd(), "-s", "unknown", "shell", "ls"));
+        Assert.assertTrue(output.isEmpty(), "Empty output expected on adb server FAIL reply: " + output);
+    }
+
+    @Test
+    public void testUnavailableServer() throws IOException {
+        int port;
+        try (ServerSocket free = new ServerSocket(0)) {
+            port = free.getLocalPort();
+        }
+        Assert.assertFalse(new AdbClient("127.0.0.1", port).isAvailable());
+        Assert.assertTrue(client.isAvailable());
+    }
+
+    private static void handle(Socket socket) throws IOException {
+        DataInputStream in = new DataInputStream(socket.getInputStream());
+        OutputStream out = socket.getOutputStream();
+        String request = read(in);
+        if ("host:devices".equals(request)) {
+            out.write("OKAY".getBytes(StandardCharsets.US_ASCII));
+            write(out, SERIAL + "\tdevice\nemulator-5556\toffline\n");
+        } else if (("host:transport:" + SERIAL).equals(request)) {
+            out.write("OKAY".getBytes(StandardCharsets.US_ASCII));
+            String command = read(in).substring("shell:".length());
+            out.write("OKAY".getBytes(StandardCharsets.US_ASCII));
+            // old devices use pty so lines are ended by \r\n
+            out.write(("package:" + command + "\r\npackage:com.android.settings\n").getBytes(StandardCharsets.UTF_8));
+        } else if (request.startsWith("host:transport:")) {
+            out.write("FAIL".getBytes(StandardCharsets.US_ASCII));
+            write(out, "device '" + request.substring("host:transport:".length()) + "' not found");
+        } else {
+            out.write("FAIL".getBytes(StandardCharsets.US_ASCII));
+            write(out, "unknown host service");
+        }
+        out.flush();
+    }
+
+    private static String read(DataInputStream in) throws IOException {
+        byte[] length = new byte[4];
+        in.readFully(length);
+        byte[] payload = new byte[Integer.parseInt(new String(length, StandardCharsets.US_ASCII), 16)];
+        in.readFully(payload);
+        return new String(payload, StandardCharsets.UTF_8);
+    }
+
+    private static void write(OutputStream out, String message) throws IOException {
+        byte[] payload = message.getBytes(StandardCharsets.UTF_8);
+        out.write(String.format("%04x", payload.length).getBytes(StandardCharsets.US_ASCII));
+        out.write(payload);
+    }
+}
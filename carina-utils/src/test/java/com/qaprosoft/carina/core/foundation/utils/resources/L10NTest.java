@@ -0,0 +1,76 @@
+/*******************************************************************************
+ * Copyright 2013-2018 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.utils.resources;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+import org.testng.Assert;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import com.qaprosoft.carina.core.foundation.utils.R;
+
+public class L10NTest {
+    private static final Locale DE = new Locale("de", "DE");
+
+    private String locale;
+
+    @BeforeClass
+    public void init() {
+        locale = R.CONFIG.get("locale");
+        R.CONFIG.put("locale", "de_DE");
+        // classpath scanning of L10N.init() doesn't work with surefire manifest-only jar
+        L10N.load("L10N.l10ntest", Arrays.asList(DE));
+    }
+
+    @AfterClass(alwaysRun = true)
+    public void restore() {
+        R.CONFIG.put("locale", locale);
+    }
+
+    @Test
+    public void testGetText() {
+        Assert.assertEquals(L10N.getText("l10n.test.title", DE), "Titel \u00fc");
+        Assert.assertEquals(L10N.getText("l10n.test.title"), "Titel \u00fc");
+        // value inherited from the base bundle
+        Assert.assertEquals(L10N.getText("l10n.test.only.default", DE), "Default only");
+    }
+
+    @Test
+    public void testMissingText() {
+        Assert.assertEquals(L10N.getText("l10n.test.missing", DE), "l10n.test.missing");
+        Assert.assertEquals(L10N.getText("l10n.test.title", Locale.JAPAN), "l10n.test.title");
+    }
+
+    @Test
+    public void testGetUTFText() {
+        Assert.assertEquals(L10N.getUTFText("l10n.test.utf", DE), "Gr\u00fc\u00dfe");
+        Assert.assertNotEquals(L10N.getText("l10n.test.utf", DE), "Gr\u00fc\u00dfe");
+    }
+
+    @Test
+    public void testDefaultLocale() {
+        Assert.assertEquals(L10N.getDefaultLocale(), DE);
+        R.CONFIG.put("locale", "fr_FR,de_DE");
+        try {
+            Assert.assertEquals(L10N.getDefaultLocale(), Locale.FRANCE);
+        } finally {
+            R.CONFIG.put("locale", "de_DE");
+        }
+    }
+}
@@ -18,7 +18,10 @@ package com.qaprosoft.carina.core.utils;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+import com.qaprosoft.carina.core.foundation.commons.SpecialKeywords;
+import com.qaprosoft.carina.core.foundation.exception.PlaceholderResolverException;
 import com.qaprosoft.carina.core.foundation.utils.Configuration;
+import com.qaprosoft.carina.core.foundation.utils.Configuration.DriverMode;
 import com.qaprosoft.carina.core.foundation.utils.Configuration.Parameter;
 import com.qaprosoft.carina.core.foundation.utils.R;
 
@@ -54,4 +57,62 @@ public class ConfugurationTest {
         Assert.assertEquals(Configuration.getEnvArg("url"), "http://localhost:8081");
         Assert.assertEquals(Configuration.get(Parameter.URL), "http://localhost:8081");
     }
+
+    @Test
+    public void testTypedValuesRefresh() {
+        String width = R.CONFIG.get("big_screen_width");
+        String driverMode = R.CONFIG.get("driver_mode");
+        String autoScreenshot = R.CONFIG.get("auto_screenshot");
+
+        R.CONFIG.put("big_screen_width", "1024");
+        Assert.assertEquals(Configuration.getInt(Parameter.BIG_SCREEN_WIDTH), 1024);
+        R.CONFIG.put("big_screen_width", "-1");
+        Assert.assertEquals(Configuration.getInt(Parameter.BIG_SCREEN_WIDTH), -1);
+
+        R.CONFIG.put("driver_mode", "method_mode");
+        Assert.assertEquals(Configuration.getDriverMode(), DriverMode.METHOD_MODE);
+
+        R.CONFIG.put("auto_screenshot", "NULL");
+        Assert.assertEquals(Configuration.get(Parameter.AUTO_SCREENSHOT), "");
+        Assert.assertFalse(Configuration.getBoolean(Parameter.AUTO_SCREENSHOT));
+
+        R.CONFIG.put("big_screen_width", width);
+        R.CONFIG.put("driver_mode", driverMode);
+        R.CONFIG.put("auto_screenshot", autoScreenshot);
+    }
+
+    @Test
+    public void testPlatformRefresh() {
+        String platform = R.CONFIG.get("platform");
+
+        R.CONFIG.put("platform", "ANDROID");
+        Assert.assertEquals(Configuration.getPlatform(), "ANDROID");
+        Assert.assertEquals(Configuration.getDriverType(), SpecialKeywords.MOBILE);
+        R.CONFIG.put("platform", "*");
+        Assert.assertEquals(Configuration.getDriverType(), SpecialKeywords.DESKTOP);
+
+        R.CONFIG.put("platform", platform);
+    }
+
+    @Test
+    public void testPlaceholderRefresh() {
+        String width = R.CONFIG.get("big_screen_width");
+        try {
+            R.CONFIG.put("snapshot_width", "1");
+            R.CONFIG.put("big_screen_width", "${snapshot_width}");
+            Assert.assertEquals(Configuration.getInt(Parameter.BIG_SCREEN_WIDTH), 1);
+            R.CONFIG.put("snapshot_width", "2");
+            Assert.assertEquals(Configuration.getInt(Parameter.BIG_SCREEN_WIDTH), 2);
+
+            R.CONFIG.put("big_screen_width", "${big_screen_width}");
+            try {
+                Configuration.get(Parameter.BIG_SCREEN_WIDTH);
+                Assert.fail("Placeholder loop should be detected");
+            } catch (PlaceholderResolverException e) {
+                // expected
+            }
+        } finally {
+            R.CONFIG.put("big_screen_width", width);
+        }
+    }
 }
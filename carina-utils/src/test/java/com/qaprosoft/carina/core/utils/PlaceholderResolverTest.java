@@ -20,6 +20,7 @@ import java.util.Properties;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
+import com.qaprosoft.carina.core.foundation.exception.PlaceholderResolverException;
 import com.qaprosoft.carina.core.foundation.utils.PlaceholderResolver;
 
 /**
@@ -66,4 +67,9 @@ public class PlaceholderResolverTest {
         Assert.assertEquals(PlaceholderResolver.resolve(validProperties, "greeting"), "We wish you a Merry Cristmas and happy New Year 2014!");
         Assert.assertEquals(PlaceholderResolver.resolve(noPlaceholderDefProperties, "key1"), "${key3}");
     }
+
+    @Test(expectedExceptions = PlaceholderResolverException.class, expectedExceptionsMessageRegExp = ".*key1 -> key2 -> key3 -> key1")
+    public void testResolveLoop() {
+        PlaceholderResolver.resolve(loopedProperties, "key1");
+    }
 }
@@ -0,0 +1,67 @@
+/*******************************************************************************
+ * Copyright 2013-2018 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.utils;
+
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import javax.imageio.ImageIO;
+
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import com.qaprosoft.carina.core.foundation.utils.image.ScreenshotProcessor;
+
+public class ScreenshotProcessorTest {
+
+    @Test
+    public void testProcessRawScreenshot() throws IOException {
+        File dir = Files.createTempDirectory("screenshots").toFile();
+        File screenshot = new File(dir, "1.png");
+        File thumbnail = new File(dir, "1_thumb.jpg");
+
+        BufferedImage image = new BufferedImage(400, 300, BufferedImage.TYPE_INT_ARGB);
+        ByteArrayOutputStream raw = new ByteArrayOutputStream();
+        ImageIO.write(image, "png", raw);
+
+        ScreenshotProcessor.process(raw.toByteArray(), null, screenshot, thumbnail, -1, -1, 90, 60);
+        ScreenshotProcessor.waitForPending(dir);
+
+        // raw driver output is saved as is
+        Assert.assertEquals(Files.readAllBytes(screenshot.toPath()), raw.toByteArray());
+        BufferedImage thumb = ImageIO.read(thumbnail);
+        Assert.assertNotNull(thumb, "Thumbnail is not saved as jpg");
+        Assert.assertEquals(thumb.getWidth(), 90);
+    }
+
+    @Test
+    public void testProcessResizedScreenshot() throws IOException {
+        File dir = Files.createTempDirectory("screenshots").toFile();
+        File screenshot = new File(dir, "2.png");
+        File thumbnail = new File(dir, "2_thumb.png");
+
+        ScreenshotProcessor.process(null, new BufferedImage(400, 300, BufferedImage.TYPE_INT_RGB), screenshot, thumbnail, 200, 100, 90, 60);
+        ScreenshotProcessor.waitForPending(dir);
+
+        BufferedImage screen = ImageIO.read(screenshot);
+        Assert.assertEquals(screen.getWidth(), 200);
+        Assert.assertEquals(screen.getHeight(), 100);
+        Assert.assertEquals(ImageIO.read(thumbnail).getWidth(), 90);
+    }
+}
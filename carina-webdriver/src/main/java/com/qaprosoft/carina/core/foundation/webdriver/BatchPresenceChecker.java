@@ -0,0 +1,226 @@
+/*******************************************************************************
+ * Copyright 2013-2018 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.webdriver;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.log4j.Logger;
+import org.openqa.selenium.By;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.SearchContext;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+
+import com.qaprosoft.carina.core.foundation.utils.Configuration;
+import com.qaprosoft.carina.core.foundation.utils.Configuration.Parameter;
+import com.qaprosoft.carina.core.foundation.webdriver.decorator.ExtendedWebElement;
+
+/**
+ * Checks presence (and visibility) of several elements by a single executeScript call per polling cycle instead of
+ * separate WebDriverWait per element. Locators are translated into JavaScript lookups once: By.id, By.name,
+ * By.className, By.tagName, By.cssSelector, By.xpath, By.linkText and By.partialLinkText are supported for elements
+ * searched by driver. Other elements (nested into parent element, mobile or custom locators) and all elements in
+ * contexts without JavaScript support (e.g. NATIVE_APP) are checked one by one by
+ * {@link ExtendedWebElement#isElementPresent(long)} with zero timeout in every polling cycle.
+ *
+ * Element is visible for the script if it has a layout box and isn't hidden by display/visibility styles. It is a
+ * simplified version of Selenium isDisplayed: element with opacity:0 is visible for the script, and element of zero
+ * size without client rects is invisible even if its overflowing children are shown.
+ *
+ * Text checks (isElementWithTextPresent) aren't batched: they are done for a single element, so batching doesn't save
+ * round-trips, and script text differs from the rendered text returned by WebElement.getText.
+ */
+public class BatchPresenceChecker {
+    private static final Logger LOGGER = Logger.getLogger(BatchPresenceChecker.class);
+
+    private static final long RETRY_TIME = Configuration.getLong(Parameter.RETRY_INTERVAL);
+
+    private static final String SCRIPT = "var locators = arguments[0], result = [];"
+            + "function visible(el) {"
+            + "  var style = window.getComputedStyle(el);"
+            + "  if (style.display === 'none' || style.visibility === 'hidden' || style.visibility === 'collapse') return false;"
+            + "  return !!(el.offsetWidth || el.offsetHeight || el.getClientRects().length);"
+            + "}"
+            + "function link(text, partial) {"
+            + "  var links = document.getElementsByTagName('a');"
+            + "  for (var j = 0; j < links.length; j++) {"
+            + "    var t = (links[j].innerText || links[j].textContent || '').trim();"
+            + "    if (partial ? t.indexOf(text) !== -1 : t === text) return links[j];"
+            + "  }"
+            + "  return null;"
+            + "}"
+            + "for (var i = 0; i < locators.length; i++) {"
+            + "  var type = locators[i][0], value = locators[i][1], el = null;"
+            + "  try {"
+            + "    switch (type) {"
+            + "    case 'id': el = document.getElementById(value); break;"
+            + "    case 'name': el = document.getElementsByName(value)[0]; break;"
+            + "    case 'className': el = document.getElementsByClassName(value)[0]; break;"
+            + "    case 'tagName': el = document.getElementsByTagName(value)[0]; break;"
+            + "    case 'cssSelector': el = document.querySelector(value); break;"
+            + "    case 'xpath': el = document.evaluate(value, document, null, XPathResult.FIRST_ORDERED_NODE_TYPE, null).singleNodeValue; break;"
+            + "    case 'linkText': el = link(value, false); break;"
+            + "    case 'partialLinkText': el = link(value, true); break;"
+            + "    }"
+            + "  } catch (e) { el = null; }"
+            + "  result.push(!!el && el.nodeType === 1 && visible(el));"
+            + "}"
+            + "return result;";
+
+    private static final List<String> SUPPORTED_LOCATORS = Arrays.asList("id", "name", "className", "tagName", "cssSelector", "xpath",
+            "linkText", "partialLinkText");
+
+    private final WebDriver driver;
+    private final ExtendedWebElement[] elements;
+
+    // [type, value] of elements checked by script, null for elements checked one by one
+    private final List<String>[] locators;
+    private final List<List<String>> scriptArgument = new ArrayList<List<String>>();
+    private boolean scriptSupported;
+
+    /**
+     * @param driver
+     *            - driver for script execution or null to check all elements one by one
+     * @param elements
+     *            - elements to check
+     */
+    @SuppressWarnings("unchecked")
+    public BatchPresenceChecker(WebDriver driver, ExtendedWebElement... elements) {
+        this.driver = driver;
+        this.elements = elements;
+        this.locators = new List[elements.length];
+        this.scriptSupported = driver instanceof JavascriptExecutor;
+        for (int i = 0; i < elements.length && scriptSupported; i++) {
+            locators[i] = toLocator(elements[i]);
+            if (locators[i] != null) {
+                scriptArgument.add(locators[i]);
+            }
+        }
+    }
+
+    /**
+     * Waits until all elements are present and visible.
+     *
+     * @param timeout
+     *            - timeout in seconds
+     * @return presence of every element at the last check
+     */
+    public boolean[] waitForAll(long timeout) {
+        return waitFor(timeout, true);
+    }
+
+    /**
+     * Waits until any element is present and visible.
+     *
+     * @param timeout
+     *            - timeout in seconds
+     * @return index of the first present element or -1
+     */
+    public int waitForAny(long timeout) {
+        boolean[] present = waitFor(timeout, false);
+        for (int i = 0; i < present.length; i++) {
+            if (present[i]) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private boolean[] waitFor(long timeout, boolean all) {
+        long deadline = System.currentTimeMillis() + timeout * 1000;
+        while (true) {
+            boolean[] present = check(all);
+            long left = deadline - System.currentTimeMillis();
+            if (isSatisfied(present, all) || left <= 0) {
+                return present;
+            }
+            try {
+                Thread.sleep(Math.min(RETRY_TIME, left));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return present;
+            }
+        }
+    }
+
+    /**
+     * Checks all elements once: single script call for supported locators and separate checks for the rest.
+     *
+     * @param all
+     *            - true if all elements should be checked, otherwise checks are stopped on the first present element
+     * @return presence of elements
+     */
+    boolean[] check(boolean all) {
+        boolean[] present = new boolean[elements.length];
+        List<?> scriptResult = null;
+        if (scriptSupported && !scriptArgument.isEmpty()) {
+            try {
+                scriptResult = (List<?>) ((JavascriptExecutor) driver).executeScript(SCRIPT, scriptArgument);
+            } catch (WebDriverException | ClassCastException e) {
+                // e.g. native context of mobile application
+                LOGGER.debug("Batch presence check isn't supported, elements will be checked one by one: " + e.getMessage());
+                scriptSupported = false;
+            }
+            if (scriptResult != null && scriptResult.size() != scriptArgument.size()) {
+                LOGGER.debug("Unexpected batch presence check result, elements will be checked one by one: " + scriptResult);
+                scriptResult = null;
+                scriptSupported = false;
+            }
+        }
+        int scriptIndex = 0;
+        for (int i = 0; i < elements.length; i++) {
+            if (scriptResult != null && locators[i] != null) {
+                present[i] = Boolean.TRUE.equals(scriptResult.get(scriptIndex++));
+            } else if (all || !isSatisfied(present, false)) {
+                present[i] = elements[i].isElementPresent(0);
+            }
+        }
+        return present;
+    }
+
+    private static boolean isSatisfied(boolean[] present, boolean all) {
+        for (boolean value : present) {
+            if (value != all) {
+                return !all;
+            }
+        }
+        return all;
+    }
+
+    /**
+     * @return [type, value] for script or null if element should be checked separately
+     */
+    private static List<String> toLocator(ExtendedWebElement element) {
+        By by = element.getBy();
+        SearchContext context = element.getSearchContext();
+        if (by == null || (context != null && !(context instanceof WebDriver))) {
+            return null;
+        }
+        // By.toString() format is "By.type: value"
+        String locator = by.toString();
+        int separator = locator.indexOf(": ");
+        if (!locator.startsWith("By.") || separator == -1) {
+            return null;
+        }
+        String type = locator.substring("By.".length(), separator);
+        if (!SUPPORTED_LOCATORS.contains(type) || by.getClass().getEnclosingClass() != By.class) {
+            return null;
+        }
+        return Arrays.asList(type, locator.substring(separator + 2));
+    }
+}
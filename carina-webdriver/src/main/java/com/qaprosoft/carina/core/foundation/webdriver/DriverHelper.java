@@ -204,20 +204,14 @@ public class DriverHelper {
      * @return boolean return true only if all elements present.
      */
     public boolean allElementsPresent(long timeout, ExtendedWebElement... elements) {
-        int index = 0;
-        boolean present = true;
         boolean ret = true;
-        int counts = 1;
-        timeout = timeout / counts;
         if (timeout < 1)
             timeout = 1;
-        while (present && index++ < counts) {
-            for (int i = 0; i < elements.length; i++) {
-                present = elements[i].isElementPresent(timeout);
-                if (!present) {
-                    LOGGER.error(elements[i].getNameWithLocator() + " is not present.");
-                    ret = false;
-                }
+        boolean[] present = new BatchPresenceChecker(driver, elements).waitForAll(timeout);
+        for (int i = 0; i < elements.length; i++) {
+            if (!present[i]) {
+                LOGGER.error(elements[i].getNameWithLocator() + " is not present.");
+                ret = false;
             }
         }
         return ret;
@@ -292,26 +286,15 @@ public class DriverHelper {
      * @return true if any of elements was found.
      */
     public boolean isAnyElementPresent(long timeout, ExtendedWebElement... elements) {
-        int index = 0;
-        boolean present = false;
-        int counts = 10;
-        timeout = timeout / counts;
         if (timeout < 1)
             timeout = 1;
-        while (!present && index++ < counts) {
-            for (int i = 0; i < elements.length; i++) {
-                present = elements[i].isElementPresent(timeout);
-                if (present) {
-                    LOGGER.debug(elements[i].getNameWithLocator() + " is present");
-                    return true;
-                }
-            }
-        }
-        if (!present) {
-            LOGGER.error("Unable to find any element from array: " + elements.toString());
-            return false;
+        int index = new BatchPresenceChecker(driver, elements).waitForAny(timeout);
+        if (index != -1) {
+            LOGGER.debug(elements[index].getNameWithLocator() + " is present");
+            return true;
         }
-        return present;
+        LOGGER.error("Unable to find any element from array: " + elements.toString());
+        return false;
     }
 
     /**
@@ -334,22 +317,14 @@ public class DriverHelper {
      * @return ExtendedWebElement
      */
     public ExtendedWebElement returnAnyPresentElement(long timeout, ExtendedWebElement... elements) {
-        int index = 0;
-        boolean present = false;
-        int counts = 10;
-        timeout = timeout / counts;
         if (timeout < 1)
             timeout = 1;
-        while (!present && index++ < counts) {
-            for (int i = 0; i < elements.length; i++) {
-                present = elements[i].isElementPresent(timeout);
-                if (present) {
-                    LOGGER.debug(elements[i].getNameWithLocator() + " is present");
-                    return elements[i];
-                }
-            }
+        int index = new BatchPresenceChecker(driver, elements).waitForAny(timeout);
+        if (index != -1) {
+            LOGGER.debug(elements[index].getNameWithLocator() + " is present");
+            return elements[index];
         }
-        //throw exception anyway if nothing was returned inside for cycle
+        //throw exception anyway if nothing was returned
         LOGGER.error("All elements are not present");
         throw new RuntimeException("Unable to find any element from array: " + elements.toString());
     }
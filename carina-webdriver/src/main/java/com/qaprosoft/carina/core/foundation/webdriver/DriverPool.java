@@ -215,6 +215,7 @@ public final class DriverPool {
                 DevicePool.deregisterDevice();
             }
             
+            SessionPool.discard(drv);
             drv.quit();
 
             LOGGER.debug("Driver exited during restart...");
@@ -270,7 +271,10 @@ public final class DriverPool {
             DevicePool.deregisterDevice();
             deregisterDriver(name);
             
-            drv.quit();
+            // pooled session is reset and reused instead of quit
+            if (!SessionPool.release(drv)) {
+                drv.quit();
+            }
 
             LOGGER.debug("Driver exited..." + name);
         } catch (WebDriverException e) {
@@ -329,7 +333,11 @@ public final class DriverPool {
             try {
                 LOGGER.debug("initDriver start...");
 
-                drv = DriverFactory.create(name, device, capabilities, seleniumHost);
+                if (device.isNull() && SessionPool.isEnabled(capabilities)) {
+                    drv = SessionPool.lease(name, capabilities, seleniumHost);
+                } else {
+                    drv = DriverFactory.create(name, device, capabilities, seleniumHost);
+                }
                 
                 registerDriver(drv, name);
 
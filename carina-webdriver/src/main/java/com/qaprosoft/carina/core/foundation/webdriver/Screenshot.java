@@ -21,6 +21,8 @@ import java.io.IOException;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Proxy;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
@@ -30,11 +32,9 @@ import java.util.List;
 import java.util.UUID;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-
-import javax.imageio.ImageIO;
+import java.util.concurrent.Future;
 
 import org.apache.log4j.Logger;
-import org.imgscalr.Scalr;
 import org.openqa.selenium.OutputType;
 import org.openqa.selenium.TakesScreenshot;
 import org.openqa.selenium.WebDriver;
@@ -46,6 +46,7 @@ import com.qaprosoft.carina.core.foundation.performance.Timer;
 import com.qaprosoft.carina.core.foundation.report.ReportContext;
 import com.qaprosoft.carina.core.foundation.utils.Configuration;
 import com.qaprosoft.carina.core.foundation.utils.Configuration.Parameter;
+import com.qaprosoft.carina.core.foundation.utils.image.ScreenshotProcessor;
 import com.qaprosoft.carina.core.foundation.utils.messager.ZafiraMessager;
 import com.qaprosoft.carina.core.foundation.webdriver.augmenter.DriverAugmenter;
 import com.qaprosoft.carina.core.foundation.webdriver.device.DevicePool;
@@ -256,12 +257,8 @@ public class Screenshot {
                 augmentedDriver = new DriverAugmenter().augment(driver);
             }
 
-            BufferedImage screen;
-
             // Create screenshot
-            screen = takeVisibleScreenshot(augmentedDriver);
-
-            ImageIO.write(screen, "PNG", new File(screenPath));
+            Files.write(Paths.get(screenPath), takeVisibleScreenshot(augmentedDriver));
 
         } catch (IOException e) {
             LOGGER.error("Unable to capture screenshot due to the I/O issues!", e);
@@ -331,39 +328,33 @@ public class Screenshot {
                     augmentedDriver = new DriverAugmenter().augment(driver);
                 }
 
-                BufferedImage screen;
-
-                // Create screenshot
+                // test thread waits only for the raw screenshot, decoding and encoding are done in background
+                byte[] raw = null;
+                BufferedImage screen = null;
                 if (fullSize) {
-                    screen = takeFullScreenshot(driver, augmentedDriver);
+                    if (isWebFullSize(driver)) {
+                        screen = takeFullScreenshot(augmentedDriver);
+                    } else {
+                        raw = takeFullMobileScreenshot(driver, augmentedDriver);
+                    }
                 } else {
-                    screen = takeVisibleScreenshot(augmentedDriver);
+                    raw = takeVisibleScreenshot(augmentedDriver);
                 }
 
-                if (screen == null) {
+                if (raw == null && screen == null) {
                 	//do nothing and return empty 
                 	return "";
                 }
-                BufferedImage thumbScreen = screen;
-
-                if (Configuration.getInt(Parameter.BIG_SCREEN_WIDTH) != -1
-                        && Configuration.getInt(Parameter.BIG_SCREEN_HEIGHT) != -1) {
-                    resizeImg(screen, Configuration.getInt(Parameter.BIG_SCREEN_WIDTH),
-                            Configuration.getInt(Parameter.BIG_SCREEN_HEIGHT), screenPath);
-                }
 
                 File screenshot = new File(screenPath);
+                File thumbnail = new File(testScreenRootDir.getAbsolutePath() + "/thumbnails/" + screenName);
 
-                ImageIO.write(screen, "PNG", screenshot);
-
-                // Create screenshot thumbnail
-                String thumbScreenPath = screenPath.replace(screenName, "/thumbnails/" + screenName);
-                ImageIO.write(thumbScreen, "PNG", new File(thumbScreenPath));
-                resizeImg(thumbScreen, Configuration.getInt(Parameter.SMALL_SCREEN_WIDTH),
-                        Configuration.getInt(Parameter.SMALL_SCREEN_HEIGHT), thumbScreenPath);
+                Future<?> saved = ScreenshotProcessor.process(raw, screen, screenshot, thumbnail,
+                        Configuration.getInt(Parameter.BIG_SCREEN_WIDTH), Configuration.getInt(Parameter.BIG_SCREEN_HEIGHT),
+                        Configuration.getInt(Parameter.SMALL_SCREEN_WIDTH), Configuration.getInt(Parameter.SMALL_SCREEN_HEIGHT));
 
                 // Uploading screenshot to Amazon S3
-                uploadToAmazonS3(screenshot);
+                uploadToAmazonS3(screenshot, saved);
 
                 // add screenshot comment to collector
                 ReportContext.addScreenshotComment(screenName, comment);
@@ -382,9 +373,10 @@ public class Screenshot {
 
     /**
      * Upload screenshot file to Amazon S3 using Zafira Client
-     * @param screenshot - existing screenshot {@link File}
+     * @param screenshot - screenshot {@link File}
+     * @param saved - {@link Future} of screenshot saving
      */
-    private static void uploadToAmazonS3(File screenshot) {
+    private static void uploadToAmazonS3(File screenshot, Future<?> saved) {
         if (!Configuration.getBoolean(Parameter.S3_SAVE_SCREENSHOTS)) {
             LOGGER.debug("there is no sense to continue as saving screenshots onto S3 is disabled.");
             return;
@@ -397,6 +389,7 @@ public class Screenshot {
                     .addHeader("AMAZON_PATH_CORRELATION_ID", correlationId));
             executorService.execute(() -> {
                 try {
+                    saved.get();
                 	    LOGGER.debug("Uploading to AWS: " + screenshot.getName());
                     String url = ZafiraSingleton.INSTANCE.getClient().uploadFile(screenshot, String.format(AMAZON_KEY_FORMAT, DATE_FORMAT.format(new Date())));
                     LOGGER.debug("Uploaded to AWS: " + screenshot.getName());
@@ -415,74 +408,56 @@ public class Screenshot {
     }
 
     /**
-     * Resizes image according to specified dimensions.
+     * Makes fullsize screenshot using javascript (May not work properly with
+     * popups and active js-elements on the page)
+     * 
+     * @param augmentedDriver
+     *            - webDriver.
+     * @exception Exception
      * 
-     * @param bufImage
-     *            - image to resize.
-     * @param width
-     *            - new image width.
-     * @param height
-     *            - new image height.
-     * @param path
-     *            - path to screenshot file.
+     * @return screenshot image
      */
-    private static void resizeImg(BufferedImage bufferdImage, int width, int height, String path) {
-        try {
-            BufferedImage bufImage = Scalr.resize(bufferdImage, Scalr.Method.BALANCED, Scalr.Mode.FIT_TO_WIDTH, width, height,
-                    Scalr.OP_ANTIALIAS);
-            if (bufImage.getHeight() > height) {
-                bufImage = Scalr.crop(bufImage, bufImage.getWidth(), height);
-            }
-            ImageIO.write(bufImage, "png", new File(path));
-        } catch (Exception e) {
-            LOGGER.error("Image scaling problem!", e);
-        }
+    private static BufferedImage takeFullScreenshot(WebDriver augmentedDriver) throws Exception {
+        // regular web
+        ru.yandex.qatools.ashot.Screenshot screenshot = new AShot()
+                .shootingStrategy(ShootingStrategies.viewportPasting(100)).takeScreenshot(augmentedDriver);
+        return screenshot.getImage();
     }
 
     /**
-     * Makes fullsize screenshot using javascript (May not work properly with
-     * popups and active js-elements on the page)
+     * Makes fullsize screenshot of mobile native application or mobile web page
      * 
      * @param driver
      *            - webDriver.
      * @param augmentedDriver
      *            - webDriver.
-     * @exception IOException
      * 
-     * @return screenshot image
+     * @return encoded screenshot
      */
-    private static BufferedImage takeFullScreenshot(WebDriver driver, WebDriver augmentedDriver) throws Exception {
-        BufferedImage screenShot;
+    private static byte[] takeFullMobileScreenshot(WebDriver driver, WebDriver augmentedDriver) {
         if (driver.getClass().toString().contains("java_client")) {
             // Mobile Native app
-            File screenshot = ((AppiumDriver<?>) driver).getScreenshotAs(OutputType.FILE);
-            screenShot = ImageIO.read(screenshot);
-        } else if (Configuration.getDriverType().equals(SpecialKeywords.MOBILE)) {
-            // Mobile web
-            screenShot = ImageIO.read(((TakesScreenshot) augmentedDriver).getScreenshotAs(OutputType.FILE));
-        } else {
-            // regular web
-            ru.yandex.qatools.ashot.Screenshot screenshot = new AShot()
-                    .shootingStrategy(ShootingStrategies.viewportPasting(100)).takeScreenshot(augmentedDriver);
-            screenShot = screenshot.getImage();
+            return ((AppiumDriver<?>) driver).getScreenshotAs(OutputType.BYTES);
         }
+        // Mobile web
+        return ((TakesScreenshot) augmentedDriver).getScreenshotAs(OutputType.BYTES);
+    }
 
-        return screenShot;
+    private static boolean isWebFullSize(WebDriver driver) {
+        return !driver.getClass().toString().contains("java_client")
+                && !Configuration.getDriverType().equals(SpecialKeywords.MOBILE);
     }
 
     /**
      * Makes screenshot of visible part of the page
      * 
-     * @param driver
-     *            - webDriver.
      * @param augmentedDriver
      *            - webDriver.
-     * @exception IOException
      * 
-     * @return screenshot image
+     * @return encoded screenshot
      */
-    private static BufferedImage takeVisibleScreenshot(WebDriver augmentedDriver) throws Exception {
-    	return ImageIO.read(((TakesScreenshot) augmentedDriver).getScreenshotAs(OutputType.FILE));
+    private static byte[] takeVisibleScreenshot(WebDriver augmentedDriver) {
+    	return ((TakesScreenshot) augmentedDriver).getScreenshotAs(OutputType.BYTES);
     }
     
 
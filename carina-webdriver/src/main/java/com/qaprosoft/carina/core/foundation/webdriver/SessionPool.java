@@ -0,0 +1,293 @@
+/*******************************************************************************
+ * Copyright 2013-2018 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.webdriver;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.log4j.Logger;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.remote.DesiredCapabilities;
+import org.openqa.selenium.support.events.EventFiringWebDriver;
+
+import com.qaprosoft.carina.core.foundation.commons.SpecialKeywords;
+import com.qaprosoft.carina.core.foundation.utils.Configuration;
+import com.qaprosoft.carina.core.foundation.utils.Configuration.Parameter;
+import com.qaprosoft.carina.core.foundation.utils.R;
+import com.qaprosoft.carina.core.foundation.webdriver.core.factory.DriverFactory;
+import com.qaprosoft.carina.core.foundation.webdriver.device.DevicePool;
+
+/**
+ * Pool of warm desktop WebDriver sessions. Enabled by session_pool_size &gt; 0.
+ *
+ * Background provisioner keeps session_pool_size idle sessions per capability set, tests lease them on driver
+ * creation and return on quit. Returned session is reset (cookies, storage, extra windows, about:blank) and reused
+ * or quit if reset failed. Idle session is probed before lease and replaced if grid or browser already killed it
+ * (e.g. by newSessionWaitTimeout or browser timeout). Mobile drivers, video recording and browsermob proxy sessions are bound to the test/device
+ * so they are never pooled.
+ */
+public final class SessionPool {
+    private static final Logger LOGGER = Logger.getLogger(SessionPool.class);
+
+    private static final String BLANK_PAGE = "about:blank";
+
+    // idle sessions per capability set key
+    private static final ConcurrentHashMap<String, ConcurrentLinkedQueue<WebDriver>> idle = new ConcurrentHashMap<>();
+    // sessions which are being created in background per capability set key
+    private static final ConcurrentHashMap<String, AtomicInteger> provisioning = new ConcurrentHashMap<>();
+    // leased sessions and their capability set key
+    private static final ConcurrentHashMap<WebDriver, PoolKey> leased = new ConcurrentHashMap<>();
+
+    private static ExecutorService provisioner;
+
+    // creates new sessions, replaced by unit tests
+    static SessionFactory factory = (name, capabilities, seleniumHost) -> DriverFactory.create(name, DevicePool.getNullDevice(),
+            capabilities, seleniumHost);
+
+    private SessionPool() {
+        // hide default constructor
+    }
+
+    /**
+     * Verify if driver with such capabilities can be served by pool.
+     *
+     * @param capabilities DesiredCapabilities
+     * @return boolean
+     */
+    public static boolean isEnabled(DesiredCapabilities capabilities) {
+        return getSize() > 0
+                && SpecialKeywords.DESKTOP.equals(Configuration.getDriverType(capabilities))
+                && !Configuration.getBoolean(Parameter.BROWSERMOB_PROXY)
+                && !R.CONFIG.getBoolean(SpecialKeywords.ENABLE_VIDEO);
+    }
+
+    /**
+     * Lease warm session or create new one if there is no idle sessions. Pool is refilled in background.
+     *
+     * @param name String driver name
+     * @param capabilities DesiredCapabilities
+     * @param seleniumHost String
+     * @return WebDriver
+     */
+    public static WebDriver lease(String name, DesiredCapabilities capabilities, String seleniumHost) {
+        PoolKey key = new PoolKey(name, capabilities, seleniumHost);
+        ConcurrentLinkedQueue<WebDriver> sessions = getIdle(key.id);
+        WebDriver drv;
+        while ((drv = sessions.poll()) != null && !isAlive(drv)) {
+            LOGGER.debug("Idle session is not alive anymore and will be replaced: " + key.id);
+            quit(drv);
+        }
+        if (drv != null) {
+            LOGGER.debug("Leased warm session for: " + key.id);
+        } else {
+            LOGGER.debug("No warm session available, starting new one for: " + key.id);
+            drv = factory.create(name, copy(capabilities), seleniumHost);
+        }
+        leased.put(drv, key);
+        refill(key);
+        return drv;
+    }
+
+    /**
+     * Return leased session to the pool.
+     *
+     * @param drv WebDriver
+     * @return true if session is reused by pool and shouldn't be quit by the caller
+     */
+    public static boolean release(WebDriver drv) {
+        PoolKey key = leased.remove(drv);
+        if (key == null) {
+            return false;
+        }
+
+        ConcurrentLinkedQueue<WebDriver> sessions = getIdle(key.id);
+        if (sessions.size() >= getSize() || !reset(drv)) {
+            // recycle session, new one is created in background
+            quit(drv);
+            refill(key);
+            return true;
+        }
+
+        sessions.add(drv);
+        LOGGER.debug("Session returned to the pool: " + key.id);
+        return true;
+    }
+
+    /**
+     * Forget leased session which is going to be quit by the caller.
+     *
+     * @param drv WebDriver
+     */
+    public static void discard(WebDriver drv) {
+        PoolKey key = leased.remove(drv);
+        if (key != null) {
+            refill(key);
+        }
+    }
+
+    /**
+     * Quit all idle sessions.
+     */
+    public static void shutdown() {
+        for (ConcurrentLinkedQueue<WebDriver> sessions : idle.values()) {
+            WebDriver drv;
+            while ((drv = sessions.poll()) != null) {
+                quit(drv);
+            }
+        }
+    }
+
+    private static int getSize() {
+        return Configuration.getInt(Parameter.SESSION_POOL_SIZE);
+    }
+
+    private static ConcurrentLinkedQueue<WebDriver> getIdle(String key) {
+        return idle.computeIfAbsent(key, k -> new ConcurrentLinkedQueue<WebDriver>());
+    }
+
+    private static void refill(PoolKey key) {
+        ConcurrentLinkedQueue<WebDriver> sessions = getIdle(key.id);
+        AtomicInteger inProgress = provisioning.computeIfAbsent(key.id, k -> new AtomicInteger());
+        while (true) {
+            int started = inProgress.get();
+            if (sessions.size() + started >= getSize()) {
+                return;
+            }
+            if (inProgress.compareAndSet(started, started + 1)) {
+                getProvisioner().execute(() -> {
+                    try {
+                        WebDriver drv = factory.create(key.name, copy(key.capabilities), key.seleniumHost);
+                        sessions.add(drv);
+                        LOGGER.debug("Warm session provisioned for: " + key.id);
+                    } catch (Throwable thr) {
+                        LOGGER.error("Unable to provision session for: " + key.id, thr);
+                    } finally {
+                        inProgress.decrementAndGet();
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * Number of idle sessions with such capabilities.
+     */
+    static int getIdleCount(String name, DesiredCapabilities capabilities, String seleniumHost) {
+        return getIdle(new PoolKey(name, capabilities, seleniumHost).id).size();
+    }
+
+    /**
+     * Cheap remote call verifying that session is not killed by grid/browser while it was idle.
+     */
+    private static boolean isAlive(WebDriver driver) {
+        try {
+            unwrap(driver).getWindowHandle();
+            return true;
+        } catch (Exception e) {
+            LOGGER.debug("Pooled session probe failed: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private static WebDriver unwrap(WebDriver driver) {
+        // use original driver to avoid listeners reaction on pool actions
+        return driver instanceof EventFiringWebDriver ? ((EventFiringWebDriver) driver).getWrappedDriver() : driver;
+    }
+
+    private static boolean reset(WebDriver driver) {
+        WebDriver drv = unwrap(driver);
+        try {
+            Set<String> handles = drv.getWindowHandles();
+            String main = handles.iterator().next();
+            for (String handle : handles) {
+                if (!handle.equals(main)) {
+                    drv.switchTo().window(handle);
+                    drv.close();
+                }
+            }
+            drv.switchTo().window(main);
+            drv.manage().deleteAllCookies();
+            try {
+                ((JavascriptExecutor) drv).executeScript("window.localStorage.clear(); window.sessionStorage.clear();");
+            } catch (Exception e) {
+                // storage is not accessible for current page, e.g. about:blank
+                LOGGER.debug("Unable to clear web storage: " + e.getMessage());
+            }
+            drv.get(BLANK_PAGE);
+            return true;
+        } catch (Exception e) {
+            LOGGER.debug("Unable to reset session, it will be recycled: " + e.getMessage(), e);
+            return false;
+        }
+    }
+
+    private static void quit(WebDriver drv) {
+        try {
+            drv.quit();
+        } catch (Exception e) {
+            LOGGER.debug("Error discovered during pooled session quit: " + e.getMessage(), e);
+        }
+    }
+
+    private static DesiredCapabilities copy(DesiredCapabilities capabilities) {
+        // factory modifies capabilities so every session gets own copy
+        return capabilities != null ? new DesiredCapabilities(capabilities) : null;
+    }
+
+    private static synchronized ExecutorService getProvisioner() {
+        if (provisioner == null) {
+            provisioner = Executors.newFixedThreadPool(Math.max(1, getSize()), new ThreadFactory() {
+                private final AtomicInteger counter = new AtomicInteger();
+
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread thread = new Thread(r, "session-provisioner-" + counter.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+            Runtime.getRuntime().addShutdownHook(new Thread(SessionPool::shutdown));
+        }
+        return provisioner;
+    }
+
+    interface SessionFactory {
+        WebDriver create(String name, DesiredCapabilities capabilities, String seleniumHost);
+    }
+
+    private static class PoolKey {
+        private final String id;
+        private final String name;
+        private final DesiredCapabilities capabilities;
+        private final String seleniumHost;
+
+        PoolKey(String name, DesiredCapabilities capabilities, String seleniumHost) {
+            this.name = name;
+            this.capabilities = copy(capabilities);
+            this.seleniumHost = seleniumHost;
+            Map<String, ?> caps = capabilities != null ? new TreeMap<>(capabilities.asMap()) : null;
+            this.id = String.format("%s|%s|%s", name, seleniumHost, caps);
+        }
+    }
+}
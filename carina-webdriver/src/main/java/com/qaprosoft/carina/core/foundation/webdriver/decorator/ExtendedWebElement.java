@@ -94,6 +94,8 @@ public class ExtendedWebElement {
     private WebElement element;
     private Throwable originalException;
     private String name;
+    // name is taken from element text on the first use
+    private boolean nameFromText;
     private By by;
     
     private boolean caseInsensitive;
@@ -416,15 +418,49 @@ public class ExtendedWebElement {
     }
 
     public String getName() {
+        String name = resolveName();
         return name != null ? name : String.format(" (%s)", by);
     }
 
     public String getNameWithLocator() {
+        String name = resolveName();
         return by != null ? name + String.format(" (%s)", by) : name + " (n/a)";
     }
 
-    public void setName(String name) {
+    /**
+     * Search context of the element: driver or parent element for nested elements.
+     *
+     * @return SearchContext or null if element is searched by driver
+     */
+    public SearchContext getSearchContext() {
+        return searchContext;
+    }
+
+    public synchronized void setName(String name) {
         this.name = name;
+        this.nameFromText = false;
+    }
+
+    /**
+     * Postpones getText call for the element name until the name is really used (logging, reporting), so located list
+     * elements are wrapped without extra remote calls. Current name is kept if text can't be read.
+     * Name resolution is synchronized so element shared between threads reads its text once.
+     */
+    public synchronized void setNameFromText() {
+        this.nameFromText = element != null;
+    }
+
+    private synchronized String resolveName() {
+        if (nameFromText) {
+            nameFromText = false;
+            try {
+                name = element.getText();
+            } catch (Exception e) {
+                // do nothing and keep default name
+                LOGGER.debug("Unable to get name of element from text: " + e.getMessage());
+            }
+        }
+        return name;
     }
     
     /**
@@ -442,7 +478,7 @@ public class ExtendedWebElement {
 
     @Override
     public String toString() {
-        return name;
+        return resolveName();
     }
 
 
@@ -1214,7 +1250,7 @@ public class ExtendedWebElement {
         if (locator.startsWith("By.AccessibilityId: ")) {
             by = MobileBy.AccessibilityId(String.format(StringUtils.remove(locator, "By.AccessibilityId: "), objects));
         }
-        return new ExtendedWebElement(by, name, getDriver());
+        return new ExtendedWebElement(by, resolveName(), getDriver());
     }
 
     private void captureElements() {
@@ -15,11 +15,11 @@
  *******************************************************************************/
 package com.qaprosoft.carina.core.foundation.webdriver.locator.internal;
 
+import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
-import java.util.ArrayList;
 import java.util.List;
 
 import org.apache.log4j.Logger;
@@ -53,6 +53,9 @@ public class AbstractUIObjectListHandler<T extends AbstractUIObject> implements
     private String name;
 
     private By locatorBy;
+    // UI objects are created once per located element and reused while the element is found by the list locator
+    private final LazyElementList<T> uiObjects;
+    private Constructor<?> constructor;
     private Logger LOGGER = Logger.getLogger(ExtendedFieldDecorator.class);
 
     public AbstractUIObjectListHandler(Class<?> clazz, WebDriver webDriver, ElementLocator locator, String name) {
@@ -61,58 +64,70 @@ public class AbstractUIObjectListHandler<T extends AbstractUIObject> implements
         this.locator = locator;
         this.name = name;
         this.locatorBy = getLocatorBy(locator);
+        this.uiObjects = new LazyElementList<T>(this::findElements, this::create, this::setIndex);
     }
 
-    @SuppressWarnings("unchecked")
     public Object invoke(Object object, Method method, Object[] objects) throws Throwable {
-    	
+        try {
+            return method.invoke(uiObjects.get(), objects);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private List<WebElement> findElements() {
 		// Hotfix for huge and expected regression in carina: we lost managed
 		// time delays with lists manipulations
 		// Temporary we are going to restore explicit waiter here with hardcoded
 		// timeout before we find better solution
 		// Pros: super fast regression issue which block UI execution
 		// Cons: there is no way to manage timeouts in this places
+		// Wait is performed only when nothing is found at once
 
-    	waitUntil(ExpectedConditions.and(ExpectedConditions.presenceOfElementLocated(locatorBy),
-    			ExpectedConditions.visibilityOfElementLocated(locatorBy)));
+    	List<WebElement> elements = locateElements();
+    	if (elements == null || elements.isEmpty()) {
+    		waitUntil(ExpectedConditions.and(ExpectedConditions.presenceOfElementLocated(locatorBy),
+    				ExpectedConditions.visibilityOfElementLocated(locatorBy)));
+    		elements = locateElements();
+    	}
+    	return elements;
+    }
 
-    	List<WebElement> elements = null;
+    private List<WebElement> locateElements() {
     	try {
-    		elements = locator.findElements();
+    		return locator.findElements();
 		} catch (StaleElementReferenceException | InvalidElementStateException e) {
 			LOGGER.debug("catched StaleElementReferenceException: ", e);
-			elements = webDriver.findElements(locatorBy);
+			return webDriver.findElements(locatorBy);
 		}
+    }
 
-        List<T> uIObjects = new ArrayList<T>();
-        int index = 0;
-        if (elements != null) {
-            for (WebElement element : elements) {
-                T uiObject;
-                try {
-                    uiObject = (T) clazz.getConstructor(WebDriver.class, SearchContext.class)
-                            .newInstance(
-                                    webDriver, element);
-                } catch (NoSuchMethodException e) {
-                    LOGGER.error("Implement appropriate AbstractUIObject constructor for auto-initialization: "
-                            + e.getMessage());
-                    throw new RuntimeException(
-                            "Implement appropriate AbstractUIObject constructor for auto-initialization: "
-                                    + e.getMessage(),
-                            e);
-                }
-                uiObject.setName(String.format("%s - %d", name, index++));
-                uiObject.setRootElement(element);
-                uiObject.setRootBy(locatorBy);
-                uIObjects.add(uiObject);
+    @SuppressWarnings("unchecked")
+    private T create(WebElement element, int index) {
+        T uiObject;
+        try {
+            if (constructor == null) {
+                constructor = clazz.getConstructor(WebDriver.class, SearchContext.class);
             }
+            uiObject = (T) constructor.newInstance(webDriver, element);
+        } catch (NoSuchMethodException e) {
+            LOGGER.error("Implement appropriate AbstractUIObject constructor for auto-initialization: "
+                    + e.getMessage());
+            throw new RuntimeException(
+                    "Implement appropriate AbstractUIObject constructor for auto-initialization: "
+                            + e.getMessage(),
+                    e);
+        } catch (ReflectiveOperationException e) {
+            throw new RuntimeException("Unable to initialize " + clazz.getName() + ": " + e.getMessage(), e);
         }
+        setIndex(uiObject, index);
+        uiObject.setRootElement(element);
+        uiObject.setRootBy(locatorBy);
+        return uiObject;
+    }
 
-        try {
-            return method.invoke(uIObjects, objects);
-        } catch (InvocationTargetException e) {
-            throw e.getCause();
-        }
+    private void setIndex(T uiObject, int index) {
+        uiObject.setName(String.format("%s - %d", name, index));
     }
     
     private By getLocatorBy(ElementLocator locator) {
@@ -0,0 +1,119 @@
+/*******************************************************************************
+ * Copyright 2013-2018 QaProSoft (http://www.qaprosoft.com).
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ *******************************************************************************/
+package com.qaprosoft.carina.core.foundation.webdriver.locator.internal;
+
+import java.util.AbstractList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
+
+import org.openqa.selenium.WebElement;
+
+/**
+ * Source of read-only lists of wrappers for located elements. Elements are located on every call (single remote
+ * command) so the list always reflects current page, but wrappers are created on demand and reused for the same
+ * elements (WebElement equality, i.e. the same remote element id) found by the previous call, so untouched or already
+ * wrapped elements cost nothing.
+ *
+ * Instance isn't thread-safe, like the page object it belongs to.
+ *
+ * @param <E> wrapper type
+ */
+class LazyElementList<E> {
+    private final Supplier<List<WebElement>> finder;
+    private final BiFunction<WebElement, Integer, E> factory;
+    private final BiConsumer<E, Integer> reindex;
+
+    // wrappers created for the elements of the last located list
+    private Map<WebElement, E> wrappers = new HashMap<WebElement, E>();
+
+    /**
+     * @param finder
+     *            - locates elements
+     * @param factory
+     *            - creates wrapper for located element and its index
+     */
+    LazyElementList(Supplier<List<WebElement>> finder, BiFunction<WebElement, Integer, E> factory) {
+        this(finder, factory, null);
+    }
+
+    /**
+     * @param finder
+     *            - locates elements
+     * @param factory
+     *            - creates wrapper for located element and its index
+     * @param reindex
+     *            - updates reused wrapper with new index of its element, may be null
+     */
+    LazyElementList(Supplier<List<WebElement>> finder, BiFunction<WebElement, Integer, E> factory, BiConsumer<E, Integer> reindex) {
+        this.finder = finder;
+        this.factory = factory;
+        this.reindex = reindex;
+    }
+
+    /**
+     * @return wrappers of currently located elements
+     */
+    List<E> get() {
+        List<WebElement> elements = finder.get();
+        if (elements == null) {
+            elements = Collections.emptyList();
+        }
+        Map<WebElement, E> previous = wrappers;
+        wrappers = new HashMap<WebElement, E>();
+        return new Items(elements, previous, wrappers);
+    }
+
+    private class Items extends AbstractList<E> {
+        private final List<WebElement> elements;
+        private final Object[] items;
+        private final Map<WebElement, E> previous;
+        private final Map<WebElement, E> current;
+
+        private Items(List<WebElement> elements, Map<WebElement, E> previous, Map<WebElement, E> current) {
+            this.elements = elements;
+            this.items = new Object[elements.size()];
+            this.previous = previous;
+            this.current = current;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public E get(int index) {
+            if (items[index] == null) {
+                WebElement element = elements.get(index);
+                E item = previous.remove(element);
+                if (item == null) {
+                    item = factory.apply(element, index);
+                } else if (reindex != null) {
+                    reindex.accept(item, index);
+                }
+                current.put(element, item);
+                items[index] = item;
+            }
+            return (E) items[index];
+        }
+
+        @Override
+        public int size() {
+            return items.length;
+        }
+    }
+}
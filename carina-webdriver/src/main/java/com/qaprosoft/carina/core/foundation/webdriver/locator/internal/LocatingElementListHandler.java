@@ -18,7 +18,6 @@ package com.qaprosoft.carina.core.foundation.webdriver.locator.internal;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
-import java.util.ArrayList;
 import java.util.List;
 
 import org.apache.log4j.Logger;
@@ -48,6 +47,8 @@ public class LocatingElementListHandler implements InvocationHandler {
     private String name;
     private By by;
     private final WebDriver driver;
+    // wrappers are reused for the same elements found by the next calls
+    private final LazyElementList<ExtendedWebElement> elements;
     
     protected static final Logger LOGGER = Logger.getLogger(LocatingElementListHandler.class);
 
@@ -56,6 +57,7 @@ public class LocatingElementListHandler implements InvocationHandler {
         this.locator = locator;
         this.name = name;
         this.by = by;
+        this.elements = new LazyElementList<ExtendedWebElement>(this::findElements, this::wrap, this::reuse);
     }
 
     public Object invoke(Object object, Method method, Object[] objects) throws Throwable {
@@ -70,49 +72,34 @@ public class LocatingElementListHandler implements InvocationHandler {
 //    		LOGGER.error("List is not present: " + by);
 //    	}
 
-    	
-    	List<WebElement> elements = null;
+        try {
+            return method.invoke(elements.get(), objects);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private List<WebElement> findElements() {
     	try {
-    		elements = locator.findElements();
+    		return locator.findElements();
 		} catch (StaleElementReferenceException | InvalidElementStateException e) {
 			LOGGER.debug("catched StaleElementReferenceException: ", e);
-			elements = driver.findElements(by);
+			return driver.findElements(by);
 		}
-    	
-        List<ExtendedWebElement> extendedWebElements = null;
-        if (elements != null) {
-            extendedWebElements = new ArrayList<ExtendedWebElement>();
-/*            for (WebElement element : elements) {
-                extendedWebElements.add(new ExtendedWebElement(element, name, by));
-            }*/
-            
-            int i = 1;
-			for (WebElement element : elements) {
-				String tempName = name;
-				try {
-					tempName = element.getText();
-				} catch (Exception e) {
-					 //do nothing and keep 'undefined' for control name 
-				}
-
-				ExtendedWebElement tempElement = new ExtendedWebElement(element, tempName, by);
-//				tempElement.setBy(tempElement.generateByForList(by, i));
-				extendedWebElements.add(tempElement);
-				i++;
-			}
+    }
 
-        }
-        
-        
+    private ExtendedWebElement wrap(WebElement element, int index) {
+		// name is taken from element text only when it is used to avoid getText call per element
+		ExtendedWebElement extendedElement = new ExtendedWebElement(element, name, by);
+		extendedElement.setNameFromText();
+		return extendedElement;
+    }
 
-        try {
-            return method.invoke(extendedWebElements, objects);
-        } catch (InvocationTargetException e) {
-            throw e.getCause();
-        }
+    private void reuse(ExtendedWebElement extendedElement, int index) {
+		// text of the element could be changed since its name was resolved
+		extendedElement.setNameFromText();
     }
 
-    
     /**
      * Wait until any condition happens.
      *